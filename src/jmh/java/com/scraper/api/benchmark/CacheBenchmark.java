@@ -0,0 +1,81 @@
+package com.scraper.api.benchmark;
+
+import com.scraper.api.config.SearchCacheProperties;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchCacheKey;
+import com.scraper.api.service.SearchResultCache;
+import com.scraper.api.store.ProductCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Search result cache hits, from a built key and from the raw keyword of a request, on one thread and contended.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CacheBenchmark {
+
+	@Param({"10000"})
+	public int entries;
+
+	private ExecutorService refreshExecutor;
+	private SearchResultCache cache;
+	private SearchCacheKey[] keys;
+	private String[] keywords;
+	private Supplier<List<ProductData>> loader;
+
+	@Setup
+	public void setUp() {
+		refreshExecutor = Executors.newSingleThreadExecutor();
+		SearchCacheProperties properties = new SearchCacheProperties();
+		properties.setMaxEntries(entries);
+		cache = new SearchResultCache(properties, new ProductCodec(), refreshExecutor);
+
+		List<ProductData> products = FixtureSite.products(48);
+		loader = () -> products;
+		keys = new SearchCacheKey[entries];
+		keywords = new String[entries];
+		for (int i = 0; i < entries; i++) {
+			keywords[i] = "  Organic Milk " + i + " ";
+			keys[i] = new SearchCacheKey("zehrs", keywords[i]);
+			cache.get(keys[i], loader);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		refreshExecutor.shutdownNow();
+	}
+
+	@Benchmark
+	public List<ProductData> hitByKey() {
+		return cache.get(keys[ThreadLocalRandom.current().nextInt(entries)], loader);
+	}
+
+	@Benchmark
+	public List<ProductData> hitByKeyword() {
+		return cache.get(new SearchCacheKey("zehrs", keywords[ThreadLocalRandom.current().nextInt(entries)]), loader);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public List<ProductData> hitByKeyContended() {
+		return cache.get(keys[ThreadLocalRandom.current().nextInt(entries)], loader);
+	}
+}
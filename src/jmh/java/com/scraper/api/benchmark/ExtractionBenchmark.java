@@ -0,0 +1,53 @@
+package com.scraper.api.benchmark;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.site.ZehrsSiteAdapter;
+import com.scraper.api.untils.HtmlTileExtractor;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product tile extraction from a saved search page of 48 tiles, streamed as the HTTP engine does it, and from a
+ * fully parsed document for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExtractionBenchmark {
+
+	private static final String BASE_URI = "https://www.zehrs.ca/search?search-bar=milk";
+
+	private String page;
+
+	@Setup
+	public void setUp() {
+		page = FixtureSite.fixture(FixtureSite.FULL_PAGE);
+	}
+
+	@Benchmark
+	public List<ProductData> streamedPage() throws IOException {
+		return HtmlTileExtractor.extract(new StringReader(page), BASE_URI, ZehrsSiteAdapter.SEARCH_PRODUCT_TILE, Integer.MAX_VALUE);
+	}
+
+	@Benchmark
+	public void parsedPage(Blackhole blackhole) {
+		Document document = Jsoup.parse(page, BASE_URI);
+		for (Element tile : document.select(ZehrsSiteAdapter.SEARCH_PRODUCT_TILE.getTileSelector())) {
+			blackhole.consume(HtmlTileExtractor.extractTile(tile, ZehrsSiteAdapter.SEARCH_PRODUCT_TILE));
+		}
+	}
+}
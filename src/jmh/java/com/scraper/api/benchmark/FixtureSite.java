@@ -0,0 +1,129 @@
+package com.scraper.api.benchmark;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.site.ZehrsSiteAdapter;
+import com.scraper.api.untils.HtmlTileExtractor;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Zehrs-like search site on the loopback interface, serving the saved result pages of {@code fixtures/}.
+ * Pages before {@code pages} are full pages of 48 tiles, each with its own product ids, the last one is short,
+ * so a crawl of {@code pages} pages ends complete. A latency holds every response back like a remote site would.
+ */
+final class FixtureSite implements AutoCloseable {
+
+	static final String FULL_PAGE = "fixtures/zehrs-search.html";
+	static final String LAST_PAGE = "fixtures/zehrs-search-last.html";
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final byte[][] bodies;
+	private final long latencyMillis;
+
+	FixtureSite(int pages) throws IOException {
+		this(pages, 0);
+	}
+
+	FixtureSite(int pages, long latencyMillis) throws IOException {
+		this.latencyMillis = latencyMillis;
+		String full = fixture(FULL_PAGE);
+		bodies = new byte[pages][];
+		for (int page = 1; page < pages; page++) {
+			// the saved page lists products 21000000 to 21000047, every page gets its own ones
+			bodies[page - 1] = full.replace("/p/21", "/p/" + page + "21").getBytes(StandardCharsets.UTF_8);
+		}
+		bodies[pages - 1] = fixture(LAST_PAGE).getBytes(StandardCharsets.UTF_8);
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		// delayed responses wait on their own thread, the site must not be the bottleneck of the load
+		executor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "fixture-site");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.createContext("/zehrs/search", this::serve);
+		server.start();
+	}
+
+	/**
+	 * Search URL template of the site, in the form of {@code scraper.sites.zehrs.search-url}.
+	 */
+	String searchUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/zehrs/search?search-bar={keyword}";
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Products extracted from as many saved pages as needed, each page with its own product ids.
+	 */
+	static List<ProductData> products(int count) {
+		String full = fixture(FULL_PAGE);
+		List<ProductData> products = new ArrayList<>(count);
+		try {
+			for (int page = 1; products.size() < count; page++) {
+				String body = full.replace("/p/21", "/p/" + page + "21");
+				products.addAll(HtmlTileExtractor.extract(new StringReader(body), "https://www.zehrs.ca/search?search-bar=milk",
+						ZehrsSiteAdapter.SEARCH_PRODUCT_TILE, count - products.size()));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return products;
+	}
+
+	static String fixture(String name) {
+		try (InputStream in = FixtureSite.class.getClassLoader().getResourceAsStream(name)) {
+			if (in == null) throw new IllegalStateException("Missing fixture " + name);
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+		int page = page(exchange.getRequestURI().getRawQuery());
+		byte[] body = page >= 1 && page <= bodies.length ? bodies[page - 1] : new byte[0];
+		if (latencyMillis > 0) {
+			try {
+				Thread.sleep(latencyMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				exchange.close();
+				return;
+			}
+		}
+		exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static int page(String query) {
+		if (query == null) return 1;
+		for (String parameter : query.split("&")) {
+			if (parameter.startsWith("page=")) return Integer.parseInt(parameter.substring("page=".length()));
+		}
+		return 1;
+	}
+}
@@ -0,0 +1,118 @@
+package com.scraper.api.benchmark;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.store.CompactProduct;
+import com.scraper.api.store.ProductCodec;
+import com.scraper.api.untils.PriceParser;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap held by a catalog of {@value #PRODUCTS} products: as {@link ProductData} objects, as the {@link CompactProduct}s
+ * of the index, or encoded 48 per array like the result cache. The products are built like the store decodes them,
+ * every field its own string. The footprint is the {@code bytesPerProduct} counter, measured after a full GC;
+ * the score is the time to build the catalog, GCs included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class FootprintBenchmark {
+
+	private static final int PRODUCTS = 1_000_000;
+	private static final int PAGE = 48;
+
+	@Param({"pojo", "compact", "encoded"})
+	public String model;
+
+	private List<ProductData> templates;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		public long bytesPerProduct;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytesPerProduct = 0;
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		templates = FixtureSite.products(PAGE);
+	}
+
+	@Benchmark
+	public Object catalog(Footprint footprint) {
+		long before = usedHeap();
+		Object catalog;
+		if ("pojo".equals(model)) {
+			List<ProductData> products = new ArrayList<>(PRODUCTS);
+			for (int i = 0; i < PRODUCTS; i++) products.add(product(i));
+			catalog = products;
+		} else if ("compact".equals(model)) {
+			ProductCodec codec = new ProductCodec();
+			CompactProduct[] products = new CompactProduct[PRODUCTS];
+			for (int i = 0; i < PRODUCTS; i++) products[i] = codec.compact(product(i));
+			catalog = new Object[]{codec, products};
+		} else {
+			ProductCodec codec = new ProductCodec();
+			byte[][] pages = new byte[PRODUCTS / PAGE + 1][];
+			List<ProductData> page = new ArrayList<>(PAGE);
+			for (int i = 0; i < PRODUCTS; i++) {
+				page.add(product(i));
+				if (page.size() == PAGE || i == PRODUCTS - 1) {
+					pages[i / PAGE] = codec.encode(page);
+					page.clear();
+				}
+			}
+			catalog = new Object[]{codec, pages};
+		}
+		footprint.bytesPerProduct = (usedHeap() - before) / PRODUCTS;
+		return catalog;
+	}
+
+	/**
+	 * A distinct product in the shape of a fixture one, with its own product id in the URLs.
+	 */
+	private ProductData product(int index) {
+		ProductData template = templates.get(index % templates.size());
+		String url = template.getUrl();
+		int idStart = url.indexOf("/p/") + 3;
+		String templateId = url.substring(idStart, idStart + 8);
+		String id = String.valueOf(30_000_000 + index);
+
+		ProductData product = new ProductData();
+		product.setName(new String(template.getName()));
+		product.setBrand(template.getBrand() == null ? null : new String(template.getBrand()));
+		product.setPrice(new String(template.getPrice()));
+		product.setUrl(url.replace(templateId, id));
+		product.setImage(template.getImage() == null ? null : template.getImage().replace(templateId, id));
+		product.setUnitPrice(PriceParser.unitPrice(product.getPrice()));
+		return product;
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,34 @@
+package com.scraper.api.benchmark;
+
+import com.scraper.api.untils.PriceParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit price parsing over the price formats found on the tiles, per price.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PriceParserBenchmark {
+
+	private static final String[] PRICES = {
+			"$4.99", "$12.49", "$4.99 ea", "$1.29/100g", "99¢", "2 for $7.00", "3/$5", "$3.49 - $4.99", "$1,299.00", "4.50"
+	};
+
+	@Benchmark
+	@OperationsPerInvocation(10)
+	public void unitPrice(Blackhole blackhole) {
+		for (String price : PRICES) {
+			blackhole.consume(PriceParser.unitPrice(price));
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.scraper.api.benchmark;
+
+import com.scraper.api.ApiApplication;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.service.ProductService;
+import com.scraper.api.service.SearchListener;
+import com.scraper.api.untils.ProductScraperParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A whole search through the application: fan out, crawl of the fixture site over HTTP, extraction, store write,
+ * index and price history, with the result cache off so every search scrapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchBenchmark {
+
+	// the fixture site lists 216 products over 5 pages
+	private static final int PAGES = 5;
+
+	@Param({"10", "240"})
+	public long products;
+
+	private Path directory;
+	private FixtureSite site;
+	private ConfigurableApplicationContext context;
+	private ProductService productService;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("search-benchmark");
+		site = new FixtureSite(PAGES);
+		// command line arguments, they override application.yml where default properties would not
+		context = new SpringApplicationBuilder(ApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.main.banner-mode=off",
+						"--logging.level.root=WARN",
+						"--scraper.sites.zehrs.search-url=" + site.searchUrl(),
+						"--scraper.sites.zehrs.engine=http",
+						"--scraper.sites.zehrs.max-pages=" + PAGES,
+						// the site is local, politeness would only measure its own delays
+						"--scraper.sites.zehrs.requests-per-second=100000",
+						"--scraper.sites.zehrs.burst=100000",
+						"--scraper.pool.warm-up=0",
+						"--scraper.cache.enabled=false",
+						"--scraper.prewarm.enabled=false",
+						"--scraper.store.path=" + directory.resolve("store"),
+						"--scraper.store.fsync=false",
+						"--scraper.store.legacy-csv=",
+						"--scraper.history.path=" + directory.resolve("history"));
+		productService = context.getBean(ProductService.class);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		context.close();
+		site.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public SearchResult search() {
+		ProductScraperParameters parameters = new ProductScraperParameters();
+		parameters.setKeywords("milk");
+		parameters.setTotalProductsToFetch(products);
+		return productService.searchProducts(parameters, SearchListener.NONE);
+	}
+}
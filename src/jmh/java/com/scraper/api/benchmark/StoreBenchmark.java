@@ -0,0 +1,143 @@
+package com.scraper.api.benchmark;
+
+import com.opencsv.CSVWriter;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.store.ProductStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Product store writes and reads over products extracted from the saved pages: a batch where every price changed,
+ * a batch where nothing changed, lookups, a full scan, a reopen rebuilding the index from the segments and the
+ * import of the legacy CSV file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StoreBenchmark {
+
+	private static final long SEGMENT_BYTES = 16 * 1024 * 1024;
+
+	@Param({"1000"})
+	public int products;
+
+	// the disk is not what is measured, pass -p fsync=true to include it
+	@Param({"false"})
+	public boolean fsync;
+
+	private Path directory;
+	private ProductStore store;
+	private List<ProductData> batch;
+	private List<ProductData> repriced;
+	private String[] keys;
+	private int imports;
+	private boolean flip;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("store-benchmark");
+		batch = FixtureSite.products(products);
+		repriced = new ArrayList<>(batch.size());
+		keys = new String[batch.size()];
+		for (int i = 0; i < batch.size(); i++) {
+			ProductData product = batch.get(i);
+			ProductData copy = new ProductData();
+			copy.setName(product.getName());
+			copy.setBrand(product.getBrand());
+			copy.setPrice(product.getPrice() + " ea");
+			copy.setImage(product.getImage());
+			copy.setUrl(product.getUrl());
+			repriced.add(copy);
+			keys[i] = ProductStore.keyOf(product);
+		}
+
+		store = open(directory.resolve("store"), "");
+		store.putAll(batch);
+
+		try (Writer writer = Files.newBufferedWriter(directory.resolve("products.csv"));
+			 CSVWriter csv = new CSVWriter(writer)) {
+			csv.writeNext(new String[]{"id", "name", "brand", "price", "image", "url"});
+			int id = 0;
+			for (ProductData product : batch) {
+				csv.writeNext(new String[]{String.valueOf(++id), product.getName(), product.getBrand(), product.getPrice(),
+						product.getImage(), product.getUrl()});
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		store.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public int putAllChanged() {
+		flip = !flip;
+		return store.putAll(flip ? repriced : batch);
+	}
+
+	@Benchmark
+	public int putAllUnchanged() {
+		return store.putAll(batch);
+	}
+
+	@Benchmark
+	public ProductData get() {
+		return store.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+	}
+
+	@Benchmark
+	public List<ProductData> getAll() {
+		return store.getAll();
+	}
+
+	@Benchmark
+	public int reopen() throws IOException {
+		ProductStore reopened = open(directory.resolve("store"), "");
+		try {
+			return reopened.size();
+		} finally {
+			reopened.close();
+		}
+	}
+
+	@Benchmark
+	public int importCsv() throws IOException {
+		// an import only happens into an empty store
+		ProductStore imported = open(directory.resolve("import-" + ++imports), directory.resolve("products.csv").toString());
+		try {
+			return imported.size();
+		} finally {
+			imported.close();
+		}
+	}
+
+	private ProductStore open(Path path, String legacyCsv) throws IOException {
+		ProductStore productStore = new ProductStore(path.toString(), SEGMENT_BYTES, fsync, 0.5, 1024 * 1024, legacyCsv,
+				Duration.ofDays(7));
+		productStore.open();
+		return productStore;
+	}
+}
@@ -0,0 +1,121 @@
+package com.scraper.api.benchmark;
+
+import com.scraper.api.ApiApplication;
+import com.scraper.api.untils.VirtualThreads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bursts of concurrent searches over HTTP against a fixture site answering every page after {@value #LATENCY_MILLIS}ms,
+ * like a remote retailer keeps a scrape blocked. The platform mode runs them on Tomcat's pool and the fan-out threads,
+ * the virtual mode on a virtual thread each. The score is the time for the whole burst to be answered.
+ * The virtual mode needs Java 21, its runs fail on an older JVM.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThreadModelBenchmark {
+
+	private static final long LATENCY_MILLIS = 100;
+
+	@Param({"platform", "virtual"})
+	public String mode;
+
+	@Param({"64", "256"})
+	public int concurrency;
+
+	private final AtomicLong keywords = new AtomicLong();
+	private Path directory;
+	private FixtureSite site;
+	private ConfigurableApplicationContext context;
+	private HttpClient client;
+	private String searchUrl;
+
+	@Setup
+	public void setUp() throws IOException {
+		boolean virtual = "virtual".equals(mode);
+		if (virtual && !VirtualThreads.isSupported()) {
+			throw new IllegalStateException("The virtual mode needs Java 21, running Java " + System.getProperty("java.version"));
+		}
+		directory = Files.createTempDirectory("thread-model-benchmark");
+		site = new FixtureSite(2, LATENCY_MILLIS);
+		context = new SpringApplicationBuilder(ApiApplication.class)
+				.run("--spring.main.banner-mode=off",
+						"--logging.level.root=WARN",
+						"--server.port=0",
+						"--scraper.threads.virtual=" + virtual,
+						"--scraper.sites.zehrs.search-url=" + site.searchUrl(),
+						"--scraper.sites.zehrs.engine=http",
+						// one page per search, the burst measures waiting rather than extraction
+						"--scraper.sites.zehrs.max-pages=1",
+						// only the thread model may limit the searches in flight
+						"--scraper.sites.zehrs.requests-per-second=100000",
+						"--scraper.sites.zehrs.burst=100000",
+						"--scraper.sites.zehrs.max-concurrent-pages=100000",
+						"--scraper.politeness.max-in-flight=100000",
+						"--scraper.http.max-connections=100000",
+						"--scraper.http.max-connections-per-host=100000",
+						"--scraper.pool.warm-up=0",
+						"--scraper.cache.enabled=false",
+						"--scraper.prewarm.enabled=false",
+						"--scraper.store.path=" + directory.resolve("store"),
+						"--scraper.store.fsync=false",
+						"--scraper.store.legacy-csv=",
+						"--scraper.history.path=" + directory.resolve("history"));
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		searchUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port")
+				+ "/api/products/search/detail?limit=48&q=";
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		context.close();
+		site.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public int burst() {
+		List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			// every search its own keyword, identical concurrent searches would share one scrape
+			HttpRequest request = HttpRequest.newBuilder(URI.create(searchUrl + "milk-" + keywords.incrementAndGet()))
+					.timeout(Duration.ofMinutes(2))
+					.build();
+			responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+		}
+		int ok = 0;
+		for (CompletableFuture<HttpResponse<Void>> response : responses) {
+			if (response.join().statusCode() == 200) ok++;
+		}
+		if (ok != concurrency) throw new IllegalStateException((concurrency - ok) + " searches of the burst failed");
+		return ok;
+	}
+}
@@ -0,0 +1,144 @@
+package com.scraper.api.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zehrs-like retailer on the loopback interface. A search answers {@code pages} result pages of {@code pageSize}
+ * product tiles in the markup of the Zehrs site adapter, the last one half full, every keyword with its own stable
+ * products. Every response is held back by the latency plus a uniform jitter, and a share of them fail with a 503.
+ */
+final class FakeRetailer implements AutoCloseable {
+
+	private static final String[] BRANDS = {"President's Choice", "Neilson", "Natrel", "Lactantia", "Gay Lea", "No Name", "Dairyland"};
+	private static final String[] PRICES = {"$2.49", "$3.99", "$4.79", "$5.49", "2 for $7.00", "99¢", "$1.29/100g"};
+
+	private final int pageSize;
+	private final int pages;
+	private final long latencyMillis;
+	private final long jitterMillis;
+	private final double errorRate;
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+
+	FakeRetailer(int pageSize, int pages, long latencyMillis, long jitterMillis, double errorRate) throws IOException {
+		this.pageSize = pageSize;
+		this.pages = pages;
+		this.latencyMillis = latencyMillis;
+		this.jitterMillis = jitterMillis;
+		this.errorRate = errorRate;
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		AtomicInteger counter = new AtomicInteger();
+		// delayed responses wait on their own thread, the retailer must not be the bottleneck of the load
+		executor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "fake-retailer-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		server.setExecutor(executor);
+		server.createContext("/zehrs/search", this::serve);
+		server.start();
+	}
+
+	/**
+	 * Search URL template of the retailer, in the form of {@code scraper.sites.zehrs.search-url}.
+	 */
+	String searchUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/zehrs/search?search-bar={keyword}";
+	}
+
+	long getRequests() {
+		return requests.sum();
+	}
+
+	long getErrors() {
+		return errors.sum();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+		requests.increment();
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long delay = latencyMillis + (jitterMillis > 0 ? random.nextLong(-jitterMillis, jitterMillis + 1) : 0);
+		try {
+			if (delay > 0) Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			exchange.close();
+			return;
+		}
+		if (random.nextDouble() < errorRate) {
+			errors.increment();
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+			return;
+		}
+
+		String keyword = "";
+		int page = 1;
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query != null) {
+			for (String parameter : query.split("&")) {
+				if (parameter.startsWith("search-bar=")) keyword = URLDecoder.decode(parameter.substring(11), StandardCharsets.UTF_8);
+				if (parameter.startsWith("page=")) page = Integer.parseInt(parameter.substring(5));
+			}
+		}
+		byte[] body = page(keyword, page).getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private String page(String keyword, int page) {
+		int tiles = page < pages ? pageSize : page == pages ? pageSize / 2 : 0;
+		// the same keyword always lists the same products, 8 digit ids like the real site
+		long base = 10_000_000 + (long) Math.floorMod(keyword.toLowerCase().hashCode(), 80_000) * 1000 + (long) (page - 1) * pageSize;
+		StringBuilder html = new StringBuilder(2048 + tiles * 1500);
+		html.append("<!DOCTYPE html><html lang=\"en\"><head><title>Search results | Zehrs</title></head><body>")
+				.append("<div class=\"product-grid\"><div class=\"product-tile-group\"><div class=\"product-tile-group__list\">");
+		for (int i = 0; i < tiles; i++) {
+			long id = base + i;
+			String name = capitalize(keyword) + " " + (i + 1) + ", " + (250 + id % 8 * 250) + " ml";
+			String slug = name.toLowerCase().replaceAll("[^a-z0-9]+", "-");
+			String href = "/" + slug + "/p/" + id + "_EA";
+			html.append("<div class=\"product-tile-group__list__item\"><div class=\"product-tile product-tile--grid\" data-testid=\"product-tile\">")
+					.append("<div class=\"product-tile__thumbnail\"><a class=\"product-tile__thumbnail__link\" href=\"").append(href).append("\">")
+					.append("<img class=\"responsive-image--product-tile-image\" src=\"https://assets.shop.loblaws.ca/products/")
+					.append(id).append("/b1/en/front/").append(id).append("_front_a01_@2.png\" alt=\"").append(name).append("\"></a></div>")
+					.append("<div class=\"product-tile__details\"><h3 class=\"product-tile__details__info__name\">")
+					.append("<a class=\"product-tile__details__info__name__link\" href=\"").append(href).append("\">")
+					.append("<span class=\"product-name__item product-name__item--brand\">").append(BRANDS[(int) (id % BRANDS.length)]).append("</span>")
+					.append("<span class=\"product-name__item product-name__item--name\">").append(name).append("</span></a></h3>")
+					.append("<ul class=\"selling-price-list\"><li><span class=\"price__value selling-price-list__item__price--now-price__value\">")
+					.append(PRICES[(int) (id % PRICES.length)]).append("</span></li></ul></div></div></div>");
+		}
+		return html.append("</div></div></div></body></html>").toString();
+	}
+
+	private static String capitalize(String keyword) {
+		return keyword.isEmpty() ? "Product" : Character.toUpperCase(keyword.charAt(0)) + keyword.substring(1);
+	}
+}
@@ -0,0 +1,201 @@
+package com.scraper.api.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop clients firing a mix of product searches and full product lists at the API for a duration, after a
+ * warm-up whose requests are not recorded. Searches draw their keyword from a small hot set most of the time, like
+ * the real traffic, and otherwise from the long tail of the vocabulary. A share of the requests revalidate the
+ * response they got before with its ETag.
+ */
+final class LoadDriver {
+
+	private static final String[] WORDS = {"milk", "bread", "eggs", "butter", "cheese", "yogurt", "apples", "bananas",
+			"chicken", "beef", "pasta", "rice", "cereal", "coffee", "tea", "juice", "chips", "cookies", "soup", "flour",
+			"sugar", "salt", "oil", "tomatoes", "potatoes", "onions", "carrots", "lettuce", "salmon", "tuna"};
+
+	private final String baseUrl;
+	private final int clients;
+	private final Duration warmUp;
+	private final Duration duration;
+	private final double searchShare;
+	private final int keywords;
+	private final int hotKeywords;
+	private final double hotShare;
+	private final double conditionalShare;
+	private final long limit;
+	private final HttpClient client;
+
+	LoadDriver(String baseUrl, Map<String, String> options) {
+		this.baseUrl = baseUrl;
+		this.clients = Integer.parseInt(options.getOrDefault("clients", "16"));
+		this.warmUp = LoadTest.duration(options.getOrDefault("warm-up", "5s"));
+		this.duration = LoadTest.duration(options.getOrDefault("duration", "30s"));
+		this.searchShare = Double.parseDouble(options.getOrDefault("search-share", "0.8"));
+		this.keywords = Integer.parseInt(options.getOrDefault("keywords", "200"));
+		this.hotKeywords = Integer.parseInt(options.getOrDefault("hot-keywords", "10"));
+		this.hotShare = Double.parseDouble(options.getOrDefault("hot-share", "0.8"));
+		this.conditionalShare = Double.parseDouble(options.getOrDefault("conditional-share", "0.2"));
+		this.limit = Long.parseLong(options.getOrDefault("limit", "48"));
+		this.client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+	}
+
+	/**
+	 * Runs the warm-up then the measured phase, and reports every operation apart and all of them together.
+	 */
+	Map<String, Object> run() throws InterruptedException {
+		long start = System.nanoTime();
+		long recordFrom = start + warmUp.toNanos();
+		long end = recordFrom + duration.toNanos();
+
+		Client[] workers = new Client[clients];
+		Thread[] threads = new Thread[clients];
+		for (int i = 0; i < clients; i++) {
+			workers[i] = new Client(recordFrom, end);
+			threads[i] = new Thread(workers[i], "load-client-" + (i + 1));
+			threads[i].setDaemon(true);
+			threads[i].start();
+		}
+		for (Thread thread : threads) thread.join();
+
+		double seconds = duration.toNanos() / 1e9;
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("clients", clients);
+		report.put("durationSeconds", seconds);
+		Map<String, Object> operations = new LinkedHashMap<>();
+		Recorder all = new Recorder();
+		for (Operation operation : Operation.values()) {
+			Recorder merged = new Recorder();
+			for (Client worker : workers) merged.add(worker.recorders.get(operation));
+			all.add(merged);
+			operations.put(operation.label, merged.summary(seconds));
+		}
+		operations.put("all", all.summary(seconds));
+		report.put("operations", operations);
+		return report;
+	}
+
+	private String keyword(ThreadLocalRandom random) {
+		int index = random.nextDouble() < hotShare ? random.nextInt(hotKeywords) : hotKeywords + random.nextInt(Math.max(1, keywords - hotKeywords));
+		// the first keywords are plain words, the tail gets numbered variants of them
+		String word = WORDS[index % WORDS.length];
+		return index < WORDS.length ? word : word + " " + (index / WORDS.length);
+	}
+
+	private enum Operation {
+		SEARCH("search"), PRODUCTS("products");
+
+		private final String label;
+
+		Operation(String label) {
+			this.label = label;
+		}
+	}
+
+	private final class Client implements Runnable {
+		private final long recordFrom;
+		private final long end;
+		private final Map<Operation, Recorder> recorders = new HashMap<>();
+		// last ETag of every URL, sent back by the conditional requests
+		private final Map<String, String> etags = new HashMap<>();
+
+		Client(long recordFrom, long end) {
+			this.recordFrom = recordFrom;
+			this.end = end;
+			for (Operation operation : Operation.values()) recorders.put(operation, new Recorder());
+		}
+
+		@Override
+		public void run() {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			while (System.nanoTime() < end) {
+				Operation operation = random.nextDouble() < searchShare ? Operation.SEARCH : Operation.PRODUCTS;
+				String url = operation == Operation.SEARCH
+						? baseUrl + "/api/products/search?limit=" + limit + "&q=" + URLEncoder.encode(keyword(random), StandardCharsets.UTF_8)
+						: baseUrl + "/api/products/";
+				HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+						.header("Accept-Encoding", "gzip")
+						.timeout(Duration.ofMinutes(2));
+				String etag = etags.get(url);
+				if (etag != null && random.nextDouble() < conditionalShare) request.header("If-None-Match", etag);
+
+				long started = System.nanoTime();
+				int status;
+				try {
+					HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+					status = response.statusCode();
+					response.headers().firstValue("ETag").ifPresent(tag -> etags.put(url, tag));
+				} catch (IOException e) {
+					status = -1;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				long finished = System.nanoTime();
+				// every request started in the window counts, the slow ones finishing after it too
+				if (started >= recordFrom && started < end) recorders.get(operation).record(finished - started, status);
+			}
+		}
+	}
+
+	/**
+	 * Latencies and statuses of the requests of one client, merged into the report once the clients are done.
+	 */
+	private static final class Recorder {
+		private long[] latencies = new long[1024];
+		private int count;
+		private final Map<String, Long> statuses = new TreeMap<>();
+
+		void record(long nanos, int status) {
+			if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+			latencies[count++] = nanos;
+			statuses.merge(status < 0 ? "io-error" : String.valueOf(status), 1L, Long::sum);
+		}
+
+		void add(Recorder other) {
+			if (count + other.count > latencies.length) latencies = Arrays.copyOf(latencies, count + other.count);
+			System.arraycopy(other.latencies, 0, latencies, count, other.count);
+			count += other.count;
+			other.statuses.forEach((status, n) -> statuses.merge(status, n, Long::sum));
+		}
+
+		Map<String, Object> summary(double seconds) {
+			long[] sorted = Arrays.copyOf(latencies, count);
+			Arrays.sort(sorted);
+			long errors = statuses.entrySet().stream()
+					.filter(entry -> !entry.getKey().equals("200") && !entry.getKey().equals("304"))
+					.mapToLong(Map.Entry::getValue)
+					.sum();
+			Map<String, Object> summary = new LinkedHashMap<>();
+			summary.put("requests", count);
+			summary.put("throughput", Math.round(count / seconds * 10) / 10.0);
+			summary.put("errors", errors);
+			for (Map.Entry<String, Double> percentile : List.of(Map.entry("p50", 0.50), Map.entry("p95", 0.95), Map.entry("p99", 0.99), Map.entry("max", 1.0))) {
+				summary.put(percentile.getKey() + "Millis", count == 0 ? 0.0 : millis(sorted[Math.max(0, (int) Math.ceil(percentile.getValue() * count) - 1)]));
+			}
+			summary.put("statuses", statuses);
+			return summary;
+		}
+
+		private static double millis(long nanos) {
+			return Math.round(nanos / 1e4) / 100.0;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.scraper.api.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.scraper.api.ApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Offline load test: boots the API against a {@link FakeRetailer} on the loopback interface, drives it with a
+ * {@link LoadDriver} and reports the throughput and latency percentiles of every operation, on the console and as
+ * JSON in {@code --result}. With {@code --target} the driver runs against an API already up instead, and the
+ * retailer options do not apply.
+ * <p>
+ * Options are {@code --name=value}. Arguments starting with {@code --scraper.}, {@code --server.} or
+ * {@code --spring.} are handed to the booted API, over the load test defaults.
+ */
+public final class LoadTest {
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new LinkedHashMap<>();
+		List<String> applicationArgs = new ArrayList<>();
+		for (String arg : args) {
+			if (!arg.startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + arg + ", options are --name=value");
+			if (arg.startsWith("--scraper.") || arg.startsWith("--server.") || arg.startsWith("--spring.")) {
+				applicationArgs.add(arg);
+				continue;
+			}
+			int equals = arg.indexOf('=');
+			options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals), equals < 0 ? "true" : arg.substring(equals + 1));
+		}
+
+		Map<String, Object> report = new LinkedHashMap<>();
+		String target = options.get("target");
+		if (target != null) {
+			report.put("target", target);
+			report.putAll(new LoadDriver(target, options).run());
+		} else {
+			report.putAll(runOffline(options, applicationArgs));
+		}
+
+		print(report);
+		String result = options.get("result");
+		if (result != null && !result.isBlank()) {
+			Path path = Paths.get(result);
+			if (path.getParent() != null) Files.createDirectories(path.getParent());
+			new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+			System.out.println("Report written to " + path.toAbsolutePath());
+		}
+	}
+
+	private static Map<String, Object> runOffline(Map<String, String> options, List<String> applicationArgs) throws Exception {
+		int pageSize = Integer.parseInt(options.getOrDefault("page-size", "48"));
+		int pages = Integer.parseInt(options.getOrDefault("pages", "3"));
+		Duration latency = duration(options.getOrDefault("latency", "200ms"));
+		Duration jitter = duration(options.getOrDefault("jitter", "100ms"));
+		double errorRate = Double.parseDouble(options.getOrDefault("error-rate", "0.01"));
+
+		Path directory = Files.createTempDirectory("load-test");
+		try (FakeRetailer retailer = new FakeRetailer(pageSize, pages, latency.toMillis(), jitter.toMillis(), errorRate)) {
+			List<String> args = new ArrayList<>(List.of(
+					"--spring.main.banner-mode=off",
+					"--logging.level.root=WARN",
+					"--server.port=0",
+					"--scraper.sites.zehrs.search-url=" + retailer.searchUrl(),
+					"--scraper.sites.zehrs.engine=http",
+					"--scraper.sites.zehrs.page-size=" + pageSize,
+					// the retailer is ours, the politeness limits would only measure themselves
+					"--scraper.sites.zehrs.requests-per-second=1000",
+					"--scraper.sites.zehrs.burst=1000",
+					"--scraper.pool.warm-up=0",
+					"--scraper.prewarm.enabled=false",
+					"--scraper.store.path=" + directory.resolve("store"),
+					"--scraper.store.fsync=false",
+					"--scraper.store.legacy-csv=",
+					"--scraper.history.path=" + directory.resolve("history")));
+			// given later, the arguments of the command line win
+			args.addAll(applicationArgs);
+
+			ConfigurableApplicationContext context = new SpringApplicationBuilder(ApiApplication.class).run(args.toArray(new String[0]));
+			try {
+				String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+				Map<String, Object> report = new LinkedHashMap<>();
+				Map<String, Object> site = new LinkedHashMap<>();
+				site.put("pageSize", pageSize);
+				site.put("pages", pages);
+				site.put("latencyMillis", latency.toMillis());
+				site.put("jitterMillis", jitter.toMillis());
+				site.put("errorRate", errorRate);
+				report.put("retailer", site);
+				report.putAll(new LoadDriver(baseUrl, options).run());
+				site.put("requests", retailer.getRequests());
+				site.put("errors", retailer.getErrors());
+				return report;
+			} finally {
+				context.close();
+			}
+		} finally {
+			try (Stream<Path> files = Files.walk(directory)) {
+				files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+
+	/**
+	 * Parses a duration the way the application properties do, {@code 30s} or {@code 250ms}.
+	 */
+	static Duration duration(String value) {
+		return DurationStyle.detectAndParse(value);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void print(Map<String, Object> report) {
+		System.out.println();
+		System.out.printf("%d clients for %.0fs%n", (Integer) report.get("clients"), (Double) report.get("durationSeconds"));
+		Object site = report.get("retailer");
+		if (site != null) System.out.println("retailer " + site);
+		System.out.printf("%-10s %10s %10s %8s %10s %10s %10s %10s%n", "operation", "requests", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+		Map<String, Map<String, Object>> operations = (Map<String, Map<String, Object>>) report.get("operations");
+		operations.forEach((operation, summary) -> System.out.printf("%-10s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+				operation, summary.get("requests"), summary.get("throughput"), summary.get("errors"),
+				summary.get("p50Millis"), summary.get("p95Millis"), summary.get("p99Millis"), summary.get("maxMillis")));
+	}
+}
@@ -0,0 +1,56 @@
+package com.scraper.api.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * HTTP client of the {@code HTTP} scrape engine.
+     * Connections are pooled and kept alive between searches, responses are requested gzip/deflate compressed
+     * and transparently decompressed.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient scraperHttpClient(@Value("${scraper.http.max-connections:50}") int maxConnections,
+                                                 @Value("${scraper.http.max-connections-per-host:10}") int maxConnectionsPerHost,
+                                                 @Value("${scraper.http.connect-timeout:5s}") Duration connectTimeout,
+                                                 @Value("${scraper.http.response-timeout:20s}") Duration responseTimeout,
+                                                 @Value("${scraper.http.user-agent}") String userAgent) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerHost)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(responseTimeout.toMillis()))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeout.toMillis()))
+                        .build())
+                .setUserAgent(userAgent)
+                .setDefaultHeaders(Arrays.asList(
+                        new BasicHeader(HttpHeaders.ACCEPT, "text/html,application/xhtml+xml"),
+                        new BasicHeader(HttpHeaders.ACCEPT_LANGUAGE, "en-CA,en;q=0.8")))
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package com.scraper.api.config;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchCacheKey;
+import com.scraper.api.service.PolitenessScheduler;
+import com.scraper.api.service.SearchResultCache;
+import com.scraper.api.store.ProductStore;
+import com.scraper.api.untils.SingleFlight;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Gauges and counters of the components keeping their own statistics, read when the registry is scraped.
+ * The scrape phases are timed by {@link com.scraper.api.service.ScrapeMetrics}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder webDriverPoolMetrics(WebDriverPool pool) {
+        return registry -> {
+            Gauge.builder("scraper.pool.sessions", pool, WebDriverPool::getActive)
+                    .description("Browser sessions checked out").tag("state", "active").register(registry);
+            Gauge.builder("scraper.pool.sessions", pool, WebDriverPool::getIdle)
+                    .description("Browser sessions waiting in the pool").tag("state", "idle").register(registry);
+            Gauge.builder("scraper.pool.max", pool, WebDriverPool::getMaxSize)
+                    .description("Browser sessions the pool may hold").register(registry);
+            Gauge.builder("scraper.pool.utilization", pool, p -> p.getMaxSize() == 0 ? 0 : (double) p.getActive() / p.getMaxSize())
+                    .description("Share of the browser sessions checked out").register(registry);
+            Gauge.builder("scraper.pool.waiting", pool, WebDriverPool::getWaiting)
+                    .description("Scrapes waiting for a browser session").register(registry);
+            FunctionCounter.builder("scraper.pool.created", pool, WebDriverPool::getCreatedCount)
+                    .description("Browser sessions started").register(registry);
+            FunctionCounter.builder("scraper.pool.destroyed", pool, WebDriverPool::getDestroyedCount)
+                    .description("Browser sessions quit").register(registry);
+            FunctionCounter.builder("scraper.pool.borrowed", pool, WebDriverPool::getBorrowedCount)
+                    .description("Browser session checkouts").register(registry);
+            FunctionCounter.builder("scraper.pool.exhausted", pool, WebDriverPool::getExhaustedCount)
+                    .description("Checkouts given up on a full pool").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder searchCacheMetrics(SearchResultCache cache) {
+        return registry -> {
+            FunctionCounter.builder("scraper.cache.requests", cache, SearchResultCache::getHits)
+                    .description("Result cache lookups").tag("result", "hit").register(registry);
+            FunctionCounter.builder("scraper.cache.requests", cache, SearchResultCache::getStaleHits)
+                    .description("Result cache lookups").tag("result", "stale").register(registry);
+            FunctionCounter.builder("scraper.cache.requests", cache, SearchResultCache::getMisses)
+                    .description("Result cache lookups").tag("result", "miss").register(registry);
+            Gauge.builder("scraper.cache.hit.ratio", cache, SearchResultCache::getHitRate)
+                    .description("Share of the lookups served from the cache, fresh or stale").register(registry);
+            Gauge.builder("scraper.cache.size", cache, SearchResultCache::getSize)
+                    .description("Cached searches").register(registry);
+            Gauge.builder("scraper.cache.weighted", cache, SearchResultCache::getWeightedBytes)
+                    .description("Estimated memory of the cached products").baseUnit(BaseUnits.BYTES).register(registry);
+            FunctionCounter.builder("scraper.cache.evictions", cache, SearchResultCache::getEvictions)
+                    .description("Searches evicted from the cache").register(registry);
+            FunctionCounter.builder("scraper.cache.refreshes", cache, SearchResultCache::getRefreshes)
+                    .description("Background refreshes of stale searches").tag("outcome", "success").register(registry);
+            FunctionCounter.builder("scraper.cache.refreshes", cache, SearchResultCache::getRefreshFailures)
+                    .description("Background refreshes of stale searches").tag("outcome", "error").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder scrapeFlightMetrics(SingleFlight<SearchCacheKey, List<ProductData>> scrapeFlights) {
+        return registry -> {
+            Gauge.builder("scraper.flights.active", scrapeFlights, SingleFlight::getInFlight)
+                    .description("Site scrapes running").register(registry);
+            FunctionCounter.builder("scraper.flights.executions", scrapeFlights, SingleFlight::getExecutions)
+                    .description("Site scrapes run").register(registry);
+            FunctionCounter.builder("scraper.flights.coalesced", scrapeFlights, SingleFlight::getCoalesced)
+                    .description("Searches served by a site scrape already running").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder politenessMetrics(PolitenessScheduler politenessScheduler) {
+        return registry -> {
+            Gauge.builder("scraper.politeness.in.flight", politenessScheduler, PolitenessScheduler::getInFlight)
+                    .description("Pages loading over all hosts").register(registry);
+            FunctionCounter.builder("scraper.politeness.timeouts", politenessScheduler, PolitenessScheduler::getTimeouts)
+                    .description("Page loads given up waiting for their host").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder productStoreMetrics(ProductStore store) {
+        return registry -> {
+            Gauge.builder("scraper.store.products", store, ProductStore::size)
+                    .description("Stored products").register(registry);
+            Gauge.builder("scraper.store.segments.size", store, ProductStore::getTotalBytes)
+                    .description("Size of the segment files").baseUnit(BaseUnits.BYTES).register(registry);
+            Gauge.builder("scraper.store.live.size", store, ProductStore::getLiveBytes)
+                    .description("Size of the live records").baseUnit(BaseUnits.BYTES).register(registry);
+            FunctionCounter.builder("scraper.store.writes", store, ProductStore::getAddedCount)
+                    .description("Products written or skipped").tag("result", "added").register(registry);
+            FunctionCounter.builder("scraper.store.writes", store, ProductStore::getChangedCount)
+                    .description("Products written or skipped").tag("result", "changed").register(registry);
+            FunctionCounter.builder("scraper.store.writes", store, ProductStore::getUnchangedCount)
+                    .description("Products written or skipped").tag("result", "unchanged").register(registry);
+        };
+    }
+}
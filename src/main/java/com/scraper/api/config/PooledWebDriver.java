@@ -0,0 +1,65 @@
+package com.scraper.api.config;
+
+import lombok.Getter;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * A browser session checked out from the {@link WebDriverPool}.
+ * Closing it returns the session to the pool, so it is meant to be used in a try-with-resources block.
+ */
+public class PooledWebDriver implements AutoCloseable {
+
+    private final WebDriverPool pool;
+
+    @Getter
+    private final WebDriver driver;
+
+    @Getter
+    private final long createdAt;
+
+    @Getter
+    private volatile long lastUsedAt;
+
+    @Getter
+    private volatile int uses;
+
+    private volatile boolean invalid;
+
+    private volatile boolean checkedOut;
+
+    PooledWebDriver(WebDriverPool pool, WebDriver driver) {
+        this.pool = pool;
+        this.driver = driver;
+        this.createdAt = System.currentTimeMillis();
+        this.lastUsedAt = createdAt;
+    }
+
+    /**
+     * Marks the session as broken so the pool quits it instead of handing it out again.
+     */
+    public void invalidate() {
+        invalid = true;
+    }
+
+    public boolean isInvalid() {
+        return invalid;
+    }
+
+    void markCheckedOut() {
+        checkedOut = true;
+        uses++;
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    boolean markReturned() {
+        if (!checkedOut) return false;
+        checkedOut = false;
+        lastUsedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+}
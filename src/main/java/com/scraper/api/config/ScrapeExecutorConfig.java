@@ -0,0 +1,155 @@
+package com.scraper.api.config;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchCacheKey;
+import com.scraper.api.untils.ScrapeContext;
+import com.scraper.api.untils.SingleFlight;
+import com.scraper.api.untils.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executors of the searches and scrapes, platform thread pools or, with {@code scraper.threads.virtual}, a virtual
+ * thread per task. Virtual threads make a search blocked on a browser or a site cost next to nothing, so the searches
+ * in flight are bounded by the browser pool, the politeness limits and the job workers instead of by thread counts.
+ * Locks held while blocking or writing to disk are {@code ReentrantLock}s, so a virtual thread waiting on them frees its
+ * carrier. The monitors left only guard short in-memory updates.
+ */
+@Slf4j
+@Configuration
+public class ScrapeExecutorConfig {
+
+    private final boolean virtual;
+
+    public ScrapeExecutorConfig(@Value("${scraper.threads.virtual:false}") boolean virtual) {
+        if (virtual && !VirtualThreads.isSupported()) {
+            log.warn("scraper.threads.virtual needs Java 21 or later, running on platform threads on Java {}",
+                    System.getProperty("java.version"));
+        }
+        this.virtual = virtual && VirtualThreads.isSupported();
+    }
+
+    /**
+     * Serves the HTTP requests on virtual threads, Tomcat's max-threads no longer caps the searches in flight.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadRequests() {
+        return handler -> {
+            if (virtual) handler.setExecutor(VirtualThreads.newThreadPerTaskExecutor("http-"));
+        };
+    }
+
+    /**
+     * Worker threads running the per-site scrapes of a search in parallel.
+     * Sites wait on the browser pool, so more threads than sessions only queue on the pool.
+     * On virtual threads every site scrape gets its own thread and the fan-out threads are ignored.
+     * The scrape executors carry the {@link ScrapeContext} of the submitting thread, for the metrics and traces.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService scrapeExecutor(@Value("${scraper.fan-out.threads:8}") int threads) {
+        return ScrapeContext.propagating(executor("scrape-", () -> {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "scrape-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }));
+    }
+
+    /**
+     * Threads running the scrapes shared by coalesced identical searches.
+     * The number of concurrent scrapes is bounded by the browser pool and the search fan-out, not by this executor.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService flightExecutor() {
+        return ScrapeContext.propagating(executor("scrape-flight-", () -> {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "scrape-flight-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }));
+    }
+
+    /**
+     * Threads refreshing the stale search cache entries in the background, apart from the site fan-out so a burst of
+     * stale hits never queues ahead of the scrapes of a search. A refresh beyond the bounded queue is dropped, the
+     * entry is served stale until a later hit refreshes it.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService refreshExecutor(SearchCacheProperties properties) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = virtual ? VirtualThreads.factory("cache-refresh-") : r -> {
+            Thread thread = new Thread(r, "cache-refresh-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        int threads = Math.max(1, properties.getRefreshThreads());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getRefreshQueue())), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return ScrapeContext.propagating(executor);
+    }
+
+    /**
+     * Coalesces identical concurrent scrapes of a site, keyed by site and normalized keyword.
+     */
+    @Bean
+    public SingleFlight<SearchCacheKey, List<ProductData>> scrapeFlights(@Qualifier("flightExecutor") ExecutorService flightExecutor) {
+        return new SingleFlight<>(flightExecutor);
+    }
+
+    /**
+     * Threads loading the result pages of a multi-page crawl, the next page loads while the current one is extracted.
+     * Page loads are bounded by the politeness scheduler and the browser pool, not by this executor.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService pageExecutor() {
+        return ScrapeContext.propagating(executor("page-", () -> {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "page-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }));
+    }
+
+    /**
+     * Threads driving the streamed searches, each one waits on the site scrapes of its search.
+     * There is no queue: beyond {@code scraper.stream-max-concurrent} streams a new one is rejected and answered with
+     * a 429, rather than waiting for a thread until its client gives up.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService searchExecutor(@Value("${scraper.stream-max-concurrent:64}") int maxConcurrent) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = virtual ? VirtualThreads.factory("search-") : r -> {
+            Thread thread = new Thread(r, "search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // virtual threads are not kept around, every stream starts its own
+        return new ThreadPoolExecutor(0, maxConcurrent, virtual ? 0 : 60, TimeUnit.SECONDS, new SynchronousQueue<>(), factory);
+    }
+
+    private ExecutorService executor(String prefix, Supplier<ExecutorService> platform) {
+        return virtual ? VirtualThreads.newThreadPerTaskExecutor(prefix) : platform.get();
+    }
+}
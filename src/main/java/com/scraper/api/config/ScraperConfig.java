@@ -1,22 +1,45 @@
 package com.scraper.api.config;
 import com.scraper.api.untils.WebDriverHelper;
 import io.github.bonigarcia.wdm.WebDriverManager;
+import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.Augmenter;
 import org.openqa.selenium.remote.DesiredCapabilities;
 import org.openqa.selenium.remote.RemoteWebDriver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
 
+@Slf4j
+@Configuration
 public class ScraperConfig {
 
-    private WebDriver setupWebDriverInHost(boolean headlessMode) {
+    /**
+     * Starts the browser sessions of the {@link WebDriverPool}.
+     */
+    @Bean
+    public Supplier<WebDriver> webDriverFactory(@Value("${scraper.pool.headless:true}") boolean headlessMode,
+                                                @Value("${scraper.browser.block-images:false}") boolean blockImages) {
+        // content setting 2 blocks, for browsers the per-site DevTools blocking cannot reach
+        Map<String, Object> prefs = blockImages
+                ? Collections.singletonMap("profile.managed_default_content_settings.images", 2)
+                : Collections.emptyMap();
+        return () -> setupWebDriver(headlessMode, prefs);
+    }
+
+    private WebDriver setupWebDriverInHost(boolean headlessMode, Map<String, Object> prefs) {
         String path = System.getProperty("user.dir");
-        System.out.println(path);
+        log.debug("Looking for the chrome driver under {}", path);
         if (System.getProperty("os.name").toLowerCase().contains("windows"))
             System.setProperty("webdriver.chrome.driver", path + "\\exe\\chromedriver-win64\\chromedriver.exe");
         else if (System.getProperty("os.name").toLowerCase().contains("linux"))
@@ -32,6 +55,7 @@ public class ScraperConfig {
         options.addArguments("--no-sandbox");
         //options.setPageLoadStrategy(PageLoadStrategy.EAGER); // implies that the WebDriver will wait for the entire page to load before moving on to the next step in the code.
         if(headlessMode) options.addArguments("--headless=new");
+        if (!prefs.isEmpty()) options.setExperimentalOption("prefs", prefs);
 
         // Selenium Grid Standalone
         // docker run -d -p 4444:4444 -p 7900:7900 --shm-size="2g" selenium/standalone-chrome:latest
@@ -45,33 +69,51 @@ public class ScraperConfig {
         return new ChromeDriver(options);
     }
 
-    private WebDriver setupWebDriverAuto() {
+    private WebDriver setupWebDriverAuto(Map<String, Object> prefs) {
         WebDriverManager.chromedriver().setup();
-        return WebDriverManager.chromedriver().create();
+        return WebDriverManager.chromedriver().capabilities(preferences(prefs)).create();
     }
 
-    private WebDriver setupWebDriverDocker() {
+    private WebDriver setupWebDriverDocker(Map<String, Object> prefs) {
         WebDriverManager wdm =  WebDriverManager.chromedriver().browserInDocker()
                 .dockerDefaultArgs("--disable-gpu,--no-sandbox")
+                .capabilities(preferences(prefs))
                 .browserVersion("latest");
-        return wdm.create();
+        // remote sessions only expose the DevTools commands once augmented
+        return new Augmenter().augment(wdm.create());
+    }
+
+    private static ChromeOptions preferences(Map<String, Object> prefs) {
+        ChromeOptions options = new ChromeOptions();
+        if (!prefs.isEmpty()) options.setExperimentalOption("prefs", prefs);
+        return options;
     }
 
     public WebDriver setupWebDriver(boolean headlessMode)  {
+        return setupWebDriver(headlessMode, Collections.emptyMap());
+    }
+
+    /**
+     * Starts a browser session.
+     *
+     * @param headlessMode Whether the browser runs without a window.
+     * @param prefs        Chrome preferences of the session, like content settings blocking images.
+     */
+    public WebDriver setupWebDriver(boolean headlessMode, Map<String, Object> prefs)  {
         int opt = 3;
         WebDriver driver = null;
         switch (opt) {
             case 1:
-                driver = setupWebDriverInHost(headlessMode);
+                driver = setupWebDriverInHost(headlessMode, prefs);
                 break;
             case 2:
-                driver = setupWebDriverAuto();
+                driver = setupWebDriverAuto(prefs);
                 break;
             case 3:
-                driver = setupWebDriverDocker();
+                driver = setupWebDriverDocker(prefs);
                 break;
             default:
-                driver = setupWebDriverAuto();
+                driver = setupWebDriverAuto(prefs);
                 break;
         }
         return driver;
@@ -0,0 +1,41 @@
+package com.scraper.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scraper.cache")
+public class SearchCacheProperties {
+    private boolean enabled = true;
+
+    // results younger than the TTL are served as is
+    private Duration ttl = Duration.ofMinutes(10);
+
+    // results older than the TTL are still served for this long while a background refresh runs
+    private Duration maxStale = Duration.ofMinutes(30);
+
+    private long maxEntries = 10_000;
+
+    private DataSize maxMemory = DataSize.ofMegabytes(64);
+
+    // background refreshes of stale entries running at the same time, and waiting; the ones beyond are dropped
+    private int refreshThreads = 2;
+
+    private int refreshQueue = 16;
+
+    // TTL overrides keyed by site name
+    private Map<String, Duration> siteTtl = new HashMap<>();
+
+    public Duration ttlFor(String site) {
+        return siteTtl.getOrDefault(site, ttl);
+    }
+}
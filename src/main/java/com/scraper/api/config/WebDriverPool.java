@@ -0,0 +1,300 @@
+package com.scraper.api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of browser sessions shared by all scrapes.
+ * Sessions are created lazily up to {@code scraper.pool.max-size}, warmed up once the application is ready,
+ * validated before being handed out and recycled after {@code max-age} or {@code max-uses}.
+ */
+@Slf4j
+@Component
+public class WebDriverPool {
+
+    private final Supplier<WebDriver> driverFactory;
+    private final int maxSize;
+    private final int warmUp;
+    private final Duration borrowTimeout;
+    private final Duration maxAge;
+    private final int maxUses;
+    private final Duration idleValidation;
+
+    // one permit per session that may be checked out at the same time
+    private final Semaphore permits;
+    // idle sessions, most recently returned first so the cold ones age out
+    private final BlockingDeque<PooledWebDriver> idle = new LinkedBlockingDeque<>();
+    // sessions alive, idle or checked out
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "webdriver-pool-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean closed;
+
+    /**
+     * @param driverFactory Starts a browser session, see {@link ScraperConfig#webDriverFactory}.
+     */
+    public WebDriverPool(Supplier<WebDriver> driverFactory,
+                         @Value("${scraper.pool.max-size:2}") int maxSize,
+                         @Value("${scraper.pool.warm-up:1}") int warmUp,
+                         @Value("${scraper.pool.borrow-timeout:60s}") Duration borrowTimeout,
+                         @Value("${scraper.pool.max-age:30m}") Duration maxAge,
+                         @Value("${scraper.pool.max-uses:50}") int maxUses,
+                         @Value("${scraper.pool.idle-validation:30s}") Duration idleValidation) {
+        if (maxSize < 1) throw new IllegalArgumentException("scraper.pool.max-size must be at least 1");
+        this.driverFactory = driverFactory;
+        this.maxSize = maxSize;
+        this.warmUp = Math.min(Math.max(warmUp, 0), maxSize);
+        this.borrowTimeout = borrowTimeout;
+        this.maxAge = maxAge;
+        this.maxUses = maxUses;
+        this.idleValidation = idleValidation;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Starts the browsers of the warm-up set in the background and schedules the idle session recycling.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        maintenance.execute(this::replenish);
+        maintenance.scheduleWithFixedDelay(this::evictExpired, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Checks out a session, waiting up to the configured {@code scraper.pool.borrow-timeout}.
+     *
+     * @return The checked-out session, to be closed once the scrape is done.
+     */
+    public PooledWebDriver borrow() {
+        return borrow(borrowTimeout);
+    }
+
+    /**
+     * Checks out a session, creating a new browser if none is idle and the pool is not full.
+     *
+     * @param timeout Maximum time to wait for a free session.
+     * @return The checked-out session, to be closed once the scrape is done.
+     */
+    public PooledWebDriver borrow(Duration timeout) {
+        if (closed) throw new WebDriverPoolException("WebDriver pool is closed");
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            if (!permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                exhausted.incrementAndGet();
+                throw new WebDriverPoolException("No browser session available within " + timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverPoolException("Interrupted while waiting for a browser session", e);
+        }
+
+        try {
+            while (true) {
+                PooledWebDriver session = idle.pollFirst();
+                if (session == null) {
+                    if (reserveSlot()) {
+                        session = create();
+                    } else {
+                        // the pool is full but some sessions are still starting up or being recycled
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            exhausted.incrementAndGet();
+                            throw new WebDriverPoolException("No browser session available within " + timeout);
+                        }
+                        session = idle.pollFirst(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)), TimeUnit.NANOSECONDS);
+                        if (session == null) continue;
+                    }
+                }
+                if (!isUsable(session)) {
+                    destroy(session);
+                    continue;
+                }
+                session.markCheckedOut();
+                borrowed.incrementAndGet();
+                return session;
+            }
+        } catch (InterruptedException e) {
+            permits.release();
+            Thread.currentThread().interrupt();
+            throw new WebDriverPoolException("Interrupted while waiting for a browser session", e);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a session to the pool. Invalidated or expired sessions are quit instead.
+     */
+    void release(PooledWebDriver session) {
+        if (!session.markReturned()) return;
+        try {
+            if (closed) {
+                destroy(session);
+            } else if (session.isInvalid() || isExpired(session)) {
+                maintenance.execute(() -> {
+                    destroy(session);
+                    replenish();
+                });
+            } else {
+                idle.offerFirst(session);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getSize() {
+        return size.get();
+    }
+
+    public int getIdle() {
+        return idle.size();
+    }
+
+    public int getActive() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    public long getDestroyedCount() {
+        return destroyed.get();
+    }
+
+    public long getBorrowedCount() {
+        return borrowed.get();
+    }
+
+    public long getExhaustedCount() {
+        return exhausted.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        maintenance.shutdownNow();
+        PooledWebDriver session;
+        while ((session = idle.pollFirst()) != null) {
+            destroy(session);
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxSize) return false;
+            if (size.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    private PooledWebDriver create() {
+        try {
+            WebDriver driver = driverFactory.get();
+            // pages are awaited with explicit readiness checks, a lookup for a missing element must fail fast
+            driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+            created.incrementAndGet();
+            return new PooledWebDriver(this, driver);
+        } catch (RuntimeException e) {
+            size.decrementAndGet();
+            throw new WebDriverPoolException("Unable to start a browser session", e);
+        }
+    }
+
+    private void destroy(PooledWebDriver session) {
+        size.decrementAndGet();
+        destroyed.incrementAndGet();
+        try {
+            session.getDriver().quit();
+        } catch (RuntimeException e) {
+            log.warn("Unable to quit browser session: {}", e.getMessage());
+        }
+    }
+
+    private boolean isExpired(PooledWebDriver session) {
+        return session.getUses() >= maxUses
+                || System.currentTimeMillis() - session.getCreatedAt() >= maxAge.toMillis();
+    }
+
+    private boolean isUsable(PooledWebDriver session) {
+        if (session.isInvalid() || isExpired(session)) return false;
+        if (System.currentTimeMillis() - session.getLastUsedAt() < idleValidation.toMillis()) return true;
+        try {
+            // cheap round trip to detect browsers that crashed or were reaped while idle
+            session.getDriver().getWindowHandle();
+            return true;
+        } catch (RuntimeException e) {
+            log.info("Dropping unhealthy browser session: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void replenish() {
+        while (!closed && size.get() < warmUp && reserveSlot()) {
+            try {
+                idle.offerLast(create());
+            } catch (RuntimeException e) {
+                log.warn("Browser session warm-up failed: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void evictExpired() {
+        for (PooledWebDriver session : idle) {
+            if (isExpired(session) && idle.remove(session)) {
+                destroy(session);
+            }
+        }
+        replenish();
+    }
+
+    /**
+     * Raised when no browser session can be checked out.
+     */
+    public static class WebDriverPoolException extends RuntimeException {
+        public WebDriverPoolException(String message) {
+            super(message);
+        }
+
+        public WebDriverPoolException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
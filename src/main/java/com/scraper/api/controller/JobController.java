@@ -0,0 +1,131 @@
+package com.scraper.api.controller;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ScrapeJob;
+import com.scraper.api.model.SearchEvent;
+import com.scraper.api.model.SiteResult;
+import com.scraper.api.service.JobQueueFullException;
+import com.scraper.api.service.ScrapeJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@RestController
+@RequestMapping(path = "/api/jobs")
+public class JobController {
+    @Autowired
+    private ScrapeJobService scrapeJobService;
+
+    @Value("${scraper.jobs.retry-after:5s}")
+    private Duration retryAfter;
+
+    @Value("${scraper.stream-timeout:60s}")
+    private Duration streamTimeout;
+
+    /**
+     * Queues a search and answers right away with the job, whose URL is in the {@code Location} header.
+     */
+    @PostMapping
+    public ResponseEntity<ScrapeJob> submit(@RequestParam("q") String searchKeyword,
+                                            @RequestParam(value = "priority", defaultValue = "0") int priority) {
+        ScrapeJob job = scrapeJobService.submit(searchKeyword, priority);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().replaceQuery(null)
+                        .path("/{id}").buildAndExpand(job.getId()).toUri())
+                .body(job);
+    }
+
+    @GetMapping(path = "/{id}")
+    public ScrapeJob get(@PathVariable("id") String id) {
+        ScrapeJob job = scrapeJobService.get(id);
+        if (job == null) throw notFound(id);
+        return job;
+    }
+
+    /**
+     * Streams the progress of a job as Server-Sent Events: its products and sites as they complete,
+     * and a status event on every status change. The stream ends with the job.
+     */
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable("id") String id) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        if (!scrapeJobService.subscribe(id, new JobEventStream(emitter))) throw notFound(id);
+        return emitter;
+    }
+
+    @DeleteMapping(path = "/{id}")
+    public ScrapeJob cancel(@PathVariable("id") String id) {
+        ScrapeJob job = scrapeJobService.cancel(id);
+        if (job == null) throw notFound(id);
+        return job;
+    }
+
+    @ExceptionHandler(JobQueueFullException.class)
+    public ResponseEntity<Map<String, String>> queueFull(JobQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.getSeconds())))
+                .body(Collections.singletonMap("error", e.getMessage()));
+    }
+
+    private static ResponseStatusException notFound(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "No job " + id);
+    }
+
+    private static class JobEventStream implements ScrapeJobService.JobListener {
+        private final SseEmitter emitter;
+        // a lock rather than a monitor, a virtual thread blocked writing to the client then frees its carrier
+        private final ReentrantLock sending = new ReentrantLock();
+        private volatile boolean disconnected;
+
+        private JobEventStream(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onProduct(String site, ProductData product) {
+            send(SearchEvent.PRODUCT, SearchEvent.product(site, product));
+        }
+
+        @Override
+        public void onSiteComplete(SiteResult result) {
+            send(SearchEvent.SITE, SearchEvent.site(result));
+        }
+
+        @Override
+        public void onStatus(ScrapeJob job) {
+            send("status", job);
+            if (job.getStatus().isFinished()) emitter.complete();
+        }
+
+        private void send(String name, Object data) {
+            if (disconnected) return;
+            try {
+                // events come from several scrape workers and the job worker, they must not interleave
+                sending.lock();
+                try {
+                    emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+                } finally {
+                    sending.unlock();
+                }
+            } catch (IOException | IllegalStateException e) {
+                disconnected = true;
+                log.debug("Job stream closed by the client: {}", e.getMessage());
+            }
+        }
+    }
+}
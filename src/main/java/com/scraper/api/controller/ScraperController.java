@@ -1,18 +1,100 @@
 package com.scraper.api.controller;
 
+import com.scraper.api.model.BulkSearchRequest;
+import com.scraper.api.model.BulkSearchResult;
+import com.scraper.api.model.KeywordResult;
+import com.scraper.api.model.PriceHistory;
+import com.scraper.api.model.PriceSummary;
 import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ProductDelta;
+import com.scraper.api.model.ProductPage;
+import com.scraper.api.model.ProductQuery;
+import com.scraper.api.model.ProductSort;
+import com.scraper.api.model.SearchEvent;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.model.SiteResult;
+import com.scraper.api.service.BulkSearchService;
+import com.scraper.api.service.BulkSearchesFullException;
 import com.scraper.api.service.ProductService;
+import com.scraper.api.service.ResponsePayloadCache;
+import com.scraper.api.service.SearchListener;
+import com.scraper.api.store.PriceHistoryStore;
+import com.scraper.api.store.ProductIndex;
+import com.scraper.api.store.ProductStore;
+import com.scraper.api.untils.ProductScraperParameters;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
 
+@Slf4j
 @RestController
 @RequestMapping(path = "/api")
 public class ScraperController {
+    private static final int MAX_CHANGES = 10000;
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private BulkSearchService bulkSearchService;
+
+    @Autowired
+    private ProductStore productStore;
+
+    @Autowired
+    private ProductIndex productIndex;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private ResponsePayloadCache payloadCache;
+
+    @Autowired
+    @Qualifier("searchExecutor")
+    private ExecutorService searchExecutor;
+
+    @Value("${scraper.stream-timeout:60s}")
+    private Duration streamTimeout;
+
+    @Value("${scraper.stream-retry-after:5s}")
+    private Duration streamRetryAfter;
+
+    @Value("${scraper.bulk.stream-timeout:30m}")
+    private Duration bulkStreamTimeout;
+
+    @Value("${scraper.bulk.retry-after:30s}")
+    private Duration bulkRetryAfter;
+
+    @Value("${scraper.history.summary-window:30d}")
+    private Duration summaryWindow;
+
     @GetMapping
     @ResponseBody
     public String index() {
@@ -21,13 +103,355 @@ public class ScraperController {
                 + "<body><h1 id=\"h1-hello\">Hello world!</h1></body></html>";
     }
 
+    /**
+     * Searches every site. {@code limit} is the number of products wanted from each site, further result pages are
+     * crawled until it is reached, and {@code sort} the sort order passed to the sites able to sort.
+     * The products are ordered by store key and the response carries an ETag: the same products answer a 304 to
+     * {@code If-None-Match}, and the serialized and gzipped body is reused as long as they do not change.
+     */
     @GetMapping(path = "/products/search")
-    public Set<ProductData> getProductsByKeyword(@RequestParam("q") String searchKeyword) {
-        return productService.getProductsByKeyword(searchKeyword);
+    public ResponseEntity<byte[]> getProductsByKeyword(@RequestParam("q") String searchKeyword,
+                                                       @RequestParam(value = "limit", required = false) Long limit,
+                                                       @RequestParam(value = "sort", required = false) String sortBy,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        List<ProductData> products = sorted(productService.searchProducts(parameters(searchKeyword, limit, sortBy), SearchListener.NONE).getProducts());
+        String key = "search|" + searchKeyword.trim().toLowerCase(Locale.ROOT) + "|" + limit + "|" + sortBy;
+        return respond(payloadCache.get(key, contentVersion(products), () -> products), ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * Searches every site like {@code /products/search} and tells how every site did. With {@code trace=true} the
+     * result lists the timed phases of the search: site scrapes, page loads, waits, extraction and store writes.
+     */
+    @GetMapping(path = "/products/search/detail")
+    public SearchResult searchProducts(@RequestParam("q") String searchKeyword,
+                                       @RequestParam(value = "limit", required = false) Long limit,
+                                       @RequestParam(value = "sort", required = false) String sortBy,
+                                       @RequestParam(value = "trace", defaultValue = "false") boolean trace) {
+        ProductScraperParameters parameters = parameters(searchKeyword, limit, sortBy);
+        parameters.setTrace(trace);
+        return productService.searchProducts(parameters, SearchListener.NONE);
+    }
+
+    /**
+     * Streams the products of a search as they are extracted, followed by one event per completed site
+     * and a final done event. Served as NDJSON by default, as Server-Sent Events with {@code format=sse}
+     * or {@code Accept: text/event-stream}. The done event carries the trace of the search with {@code trace=true}.
+     */
+    @GetMapping(path = "/products/search/stream")
+    public ResponseEntity<ResponseBodyEmitter> streamProductsByKeyword(@RequestParam("q") String searchKeyword,
+                                                                       @RequestParam(value = "limit", required = false) Long limit,
+                                                                       @RequestParam(value = "sort", required = false) String sortBy,
+                                                                       @RequestParam(value = "format", required = false) String format,
+                                                                       @RequestParam(value = "trace", defaultValue = "false") boolean trace,
+                                                                       @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean sse = format != null
+                ? "sse".equalsIgnoreCase(format)
+                : accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+        ResponseBodyEmitter emitter = sse ? new SseEmitter(streamTimeout.toMillis()) : new ResponseBodyEmitter(streamTimeout.toMillis());
+        EventStream stream = new EventStream(emitter, sse);
+        ProductScraperParameters parameters = parameters(searchKeyword, limit, sortBy);
+        parameters.setTrace(trace);
+
+        searchExecutor.execute(() -> {
+            try {
+                SearchResult result = productService.searchProducts(parameters, stream);
+                stream.send(SearchEvent.done(result));
+                emitter.complete();
+            } catch (RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(sse ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                .body(emitter);
     }
 
+    /**
+     * Searches every keyword of the body, {@code {"keywords": [...], "limit": 48, "sort": "price_asc"}}, spread over the
+     * pooled browser sessions. Answers the products and the status of every keyword, in the order of the request.
+     * The request thread waits for the whole batch, so beyond {@code scraper.bulk.max-concurrent} bulk searches
+     * the request is answered with a 429.
+     */
+    @PostMapping(path = "/products/search/bulk")
+    public BulkSearchResult bulkSearch(@RequestBody BulkSearchRequest request) {
+        try {
+            return bulkSearchService.search(request, BulkSearchService.Listener.NONE);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Bulk search streamed as NDJSON, one line per keyword as soon as the keyword is done, in completion order.
+     */
+    @PostMapping(path = "/products/search/bulk/stream")
+    public ResponseEntity<ResponseBodyEmitter> streamBulkSearch(@RequestBody BulkSearchRequest request) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(bulkStreamTimeout.toMillis());
+        KeywordStream stream = new KeywordStream(emitter);
+        BulkSearchService.Run run;
+        try {
+            run = bulkSearchService.start(request, stream);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        // the keywords left are given up once the client is gone or the stream timed out
+        emitter.onCompletion(run::cancel);
+        emitter.onTimeout(run::cancel);
+        emitter.onError(e -> run.cancel());
+
+        try {
+            searchExecutor.execute(() -> {
+                try {
+                    run.await();
+                    emitter.complete();
+                } catch (RuntimeException e) {
+                    emitter.completeWithError(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            run.cancel();
+            throw e;
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    /**
+     * Every stored product, ordered by store key. The body is serialized once per version of the store,
+     * a client polling with {@code If-None-Match} gets a 304 until a product changes.
+     */
     @GetMapping(path = "/products/")
-    public Set<ProductData> getProducts() {
-        return productService.getProducts();
+    public ResponseEntity<byte[]> getProducts(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // read before the scan, a write landing during it only makes the next request build the body again
+        long version = productStore.getCommitted();
+        return respond(payloadCache.get("products", version, () -> sorted(productService.getProducts())),
+                ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * Products written or removed since a version, or since a time with {@code sinceTime} as an ISO-8601 instant.
+     * A consumer in sync asks again from the {@code version} answered.
+     */
+    @GetMapping(path = "/products/changes")
+    public ProductDelta getProductChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                          @RequestParam(value = "sinceTime", required = false) Instant sinceTime,
+                                          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        int pageLimit = Math.max(1, Math.min(limit, MAX_CHANGES));
+        return sinceTime != null
+                ? productStore.changesSince(sinceTime, pageLimit)
+                : productStore.changesSince(since, pageLimit);
+    }
+
+    /**
+     * Unit price changes of a product, by store key (the product URL), from {@code from} to {@code to}.
+     * The whole history by default.
+     */
+    @GetMapping(path = "/products/history")
+    public PriceHistory getPriceHistory(@RequestParam("key") String key,
+                                        @RequestParam(value = "from", required = false) Instant from,
+                                        @RequestParam(value = "to", required = false) Instant to) {
+        PriceHistory history = priceHistoryStore.history(key, from != null ? from : Instant.EPOCH, to != null ? to : Instant.now());
+        if (history == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No price history for " + key);
+        return history;
+    }
+
+    /**
+     * Min, max, time-weighted average and last change of the unit price of a product over a window,
+     * the last {@code scraper.history.summary-window} by default.
+     */
+    @GetMapping(path = "/products/history/summary")
+    public PriceSummary getPriceSummary(@RequestParam("key") String key,
+                                        @RequestParam(value = "from", required = false) Instant from,
+                                        @RequestParam(value = "to", required = false) Instant to) {
+        Instant end = to != null ? to : Instant.now();
+        PriceSummary summary = priceHistoryStore.summary(key, from != null ? from : end.minus(summaryWindow), end);
+        if (summary == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No price history for " + key);
+        return summary;
+    }
+
+    /**
+     * Queries the stored products through the in-memory index, without scraping. Every {@code q} token must appear
+     * in the name or brand, {@code minPrice} and {@code maxPrice} bound the unit price and {@code sort} is one of
+     * {@code price_asc}, {@code price_desc} or {@code name}. The K cheapest products are {@code size=K}.
+     */
+    @GetMapping(path = "/products/query")
+    public ProductPage queryProducts(@RequestParam(value = "q", required = false) String keyword,
+                                     @RequestParam(value = "brand", required = false) String brand,
+                                     @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+                                     @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+                                     @RequestParam(value = "sort", defaultValue = "price_asc") String sort,
+                                     @RequestParam(value = "page", defaultValue = "0") int page,
+                                     @RequestParam(value = "size", defaultValue = "20") int size) {
+        ProductSort productSort;
+        try {
+            productSort = ProductSort.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort " + sort);
+        }
+        return productIndex.query(ProductQuery.builder()
+                .keyword(keyword)
+                .brand(brand)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .sort(productSort)
+                .page(page)
+                .size(size)
+                .build());
+    }
+
+    /**
+     * Every thread of the streamed searches is busy.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> streamsFull(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, streamRetryAfter.getSeconds())))
+                .body(Collections.singletonMap("error", "Too many streamed searches running, try again later"));
+    }
+
+    @ExceptionHandler(BulkSearchesFullException.class)
+    public ResponseEntity<Map<String, String>> bulkSearchesFull(BulkSearchesFullException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, bulkRetryAfter.getSeconds())))
+                .body(Collections.singletonMap("error", e.getMessage()));
+    }
+
+    private ResponseEntity<byte[]> respond(ResponsePayloadCache.Payload payload, String ifNoneMatch, String acceptEncoding) {
+        boolean gzip = payload.getGzip() != null && acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(payload.getEtag(gzip));
+        // clients may keep the body but have to revalidate it, which costs a 304
+        headers.setCacheControl(CacheControl.noCache());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (payload.matches(ifNoneMatch)) {
+            payloadCache.countNotModified();
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        // a response with a Content-Encoding is left alone by the server compression
+        if (gzip) headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return ResponseEntity.ok().headers(headers).body(gzip ? payload.getGzip() : payload.getJson());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) continue;
+            boolean refused = parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            if (!refused) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Products in a stable order, so the same products always serialize to the same bytes and ETag.
+     */
+    private static List<ProductData> sorted(Collection<ProductData> products) {
+        List<ProductData> sorted = new ArrayList<>(products);
+        sorted.sort(Comparator.comparing(ProductStore::keyOf).thenComparingLong(ProductStore::fingerprintOf));
+        return sorted;
+    }
+
+    /**
+     * Hash of the sorted products, their unit price included since it is serialized too.
+     */
+    private static long contentVersion(List<ProductData> products) {
+        long version = products.size();
+        for (ProductData product : products) {
+            version = version * 31 + ProductStore.fingerprintOf(product);
+            version = version * 31 + (product.getUnitPrice() == null ? 0 : product.getUnitPrice().hashCode());
+        }
+        return version;
+    }
+
+    private static ProductScraperParameters parameters(String searchKeyword, Long limit, String sortBy) {
+        ProductScraperParameters parameters = new ProductScraperParameters();
+        parameters.setKeywords(searchKeyword);
+        parameters.setTotalProductsToFetch(limit);
+        parameters.setSortBy(sortBy);
+        return parameters;
+    }
+
+    /**
+     * Writes search events to the response as NDJSON lines or SSE events.
+     * Once the client is gone the events are dropped, the search itself still completes and fills the cache.
+     */
+    private static class EventStream implements SearchListener {
+        private final ResponseBodyEmitter emitter;
+        private final boolean sse;
+        // a lock rather than a monitor, a virtual thread blocked writing to the client then frees its carrier
+        private final ReentrantLock sending = new ReentrantLock();
+        private volatile boolean disconnected;
+
+        private EventStream(ResponseBodyEmitter emitter, boolean sse) {
+            this.emitter = emitter;
+            this.sse = sse;
+        }
+
+        @Override
+        public void onProduct(String site, ProductData product) {
+            send(SearchEvent.product(site, product));
+        }
+
+        @Override
+        public void onSiteComplete(SiteResult result) {
+            send(SearchEvent.site(result));
+        }
+
+        private void send(SearchEvent event) {
+            if (disconnected) return;
+            try {
+                // events come from several scrape workers, a line or an event must not interleave with another
+                sending.lock();
+                try {
+                    if (sse) {
+                        ((SseEmitter) emitter).send(SseEmitter.event().name(event.getType()).data(event, MediaType.APPLICATION_JSON));
+                    } else {
+                        emitter.send(event, MediaType.APPLICATION_JSON);
+                        emitter.send("\n", MediaType.TEXT_PLAIN);
+                    }
+                } finally {
+                    sending.unlock();
+                }
+            } catch (IOException | IllegalStateException e) {
+                disconnected = true;
+                log.debug("Search stream closed by the client: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the keyword results of a bulk search to the response as NDJSON lines, dropped once the client is gone.
+     */
+    private static class KeywordStream implements BulkSearchService.Listener {
+        private final ResponseBodyEmitter emitter;
+        private final ReentrantLock sending = new ReentrantLock();
+        private volatile boolean disconnected;
+
+        private KeywordStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void onKeyword(KeywordResult result) {
+            if (disconnected) return;
+            try {
+                // keywords complete on several bulk workers, a line must not interleave with another
+                sending.lock();
+                try {
+                    emitter.send(result, MediaType.APPLICATION_JSON);
+                    emitter.send("\n", MediaType.TEXT_PLAIN);
+                } finally {
+                    sending.unlock();
+                }
+            } catch (IOException | IllegalStateException e) {
+                disconnected = true;
+                log.debug("Bulk search stream closed by the client: {}", e.getMessage());
+            }
+        }
     }
 }
@@ -0,0 +1,232 @@
+package com.scraper.api.controller;
+
+import com.scraper.api.config.WebDriverPool;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchCacheKey;
+import com.scraper.api.service.BulkSearchService;
+import com.scraper.api.service.ListingTracker;
+import com.scraper.api.service.PageReadiness;
+import com.scraper.api.service.PolitenessScheduler;
+import com.scraper.api.service.ResourceBlocker;
+import com.scraper.api.service.ResponsePayloadCache;
+import com.scraper.api.service.ResultCrawler;
+import com.scraper.api.service.ScrapeJobService;
+import com.scraper.api.service.SearchPrewarmer;
+import com.scraper.api.service.SearchResultCache;
+import com.scraper.api.site.SiteAdapter;
+import com.scraper.api.site.SiteAdapterRegistry;
+import com.scraper.api.store.PriceHistoryStore;
+import com.scraper.api.store.ProductIndex;
+import com.scraper.api.store.ProductStore;
+import com.scraper.api.untils.SingleFlight;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.Map;
+
+@RestController
+@RequestMapping(path = "/api/stats")
+public class StatsController {
+    @Autowired
+    private WebDriverPool webDriverPool;
+
+    @Autowired
+    private PageReadiness pageReadiness;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private ProductStore productStore;
+
+    @Autowired
+    private ProductIndex productIndex;
+
+    @Autowired
+    private PriceHistoryStore priceHistoryStore;
+
+    @Autowired
+    private SearchPrewarmer searchPrewarmer;
+
+    @Autowired
+    private ListingTracker listingTracker;
+
+    @Autowired
+    private ScrapeJobService scrapeJobService;
+
+    @Autowired
+    private BulkSearchService bulkSearchService;
+
+    @Autowired
+    private ResponsePayloadCache payloadCache;
+
+    @Autowired
+    private SiteAdapterRegistry siteAdapters;
+
+    @Autowired
+    private PolitenessScheduler politenessScheduler;
+
+    @Autowired
+    private ResultCrawler resultCrawler;
+
+    @Autowired
+    private ResourceBlocker resourceBlocker;
+
+    @Autowired
+    private SingleFlight<SearchCacheKey, List<ProductData>> scrapeFlights;
+
+    @GetMapping(path = "/pool")
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxSize", webDriverPool.getMaxSize());
+        stats.put("size", webDriverPool.getSize());
+        stats.put("active", webDriverPool.getActive());
+        stats.put("idle", webDriverPool.getIdle());
+        stats.put("waiting", webDriverPool.getWaiting());
+        stats.put("created", webDriverPool.getCreatedCount());
+        stats.put("destroyed", webDriverPool.getDestroyedCount());
+        stats.put("borrowed", webDriverPool.getBorrowedCount());
+        stats.put("exhausted", webDriverPool.getExhaustedCount());
+        return stats;
+    }
+
+    @GetMapping(path = "/readiness")
+    public Map<String, Object> getReadinessStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pages", pageReadiness.getPages());
+        stats.put("timeouts", pageReadiness.getTimeouts());
+        stats.put("blocked", pageReadiness.getBlocked());
+        stats.put("averageWaitMillis", pageReadiness.getAverageWaitMillis());
+        stats.put("maxWaitMillis", pageReadiness.getMaxWaitMillis());
+        return stats;
+    }
+
+    @GetMapping(path = "/cache")
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", searchResultCache.getSize());
+        stats.put("weightedBytes", searchResultCache.getWeightedBytes());
+        stats.put("hits", searchResultCache.getHits());
+        stats.put("staleHits", searchResultCache.getStaleHits());
+        stats.put("misses", searchResultCache.getMisses());
+        stats.put("hitRate", searchResultCache.getHitRate());
+        stats.put("evictions", searchResultCache.getEvictions());
+        stats.put("refreshes", searchResultCache.getRefreshes());
+        stats.put("refreshFailures", searchResultCache.getRefreshFailures());
+        stats.put("refreshesDropped", searchResultCache.getRefreshesDropped());
+        return stats;
+    }
+
+    @GetMapping(path = "/flights")
+    public Map<String, Object> getFlightStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", scrapeFlights.getInFlight());
+        stats.put("executions", scrapeFlights.getExecutions());
+        stats.put("coalesced", scrapeFlights.getCoalesced());
+        stats.put("abandoned", scrapeFlights.getAbandoned());
+        return stats;
+    }
+
+    @GetMapping(path = "/store")
+    public Map<String, Object> getStoreStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", productStore.size());
+        stats.put("sequence", productStore.getSequence());
+        stats.put("segments", productStore.getSegmentCount());
+        stats.put("liveBytes", productStore.getLiveBytes());
+        stats.put("totalBytes", productStore.getTotalBytes());
+        stats.put("compactions", productStore.getCompactionCount());
+        stats.put("added", productStore.getAddedCount());
+        stats.put("changed", productStore.getChangedCount());
+        stats.put("unchanged", productStore.getUnchangedCount());
+        stats.put("tombstones", productStore.getTombstoneCount());
+        stats.put("tombstoneHorizon", productStore.getTombstoneHorizon());
+        stats.put("trackedSearches", listingTracker.getSearches());
+        stats.put("trackedProducts", listingTracker.getProducts());
+        return stats;
+    }
+
+    @GetMapping(path = "/index")
+    public Map<String, Object> getIndexStats() {
+        return productIndex.getStats();
+    }
+
+    @GetMapping(path = "/prewarm")
+    public Map<String, Object> getPrewarmStats() {
+        return searchPrewarmer.getStats();
+    }
+
+    @GetMapping(path = "/history")
+    public Map<String, Object> getHistoryStats() {
+        return priceHistoryStore.getStats();
+    }
+
+    @GetMapping(path = "/jobs")
+    public Map<String, Object> getJobStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", scrapeJobService.getWorkers());
+        stats.put("capacity", scrapeJobService.getCapacity());
+        stats.put("queued", scrapeJobService.getQueued());
+        stats.put("running", scrapeJobService.getRunning());
+        stats.put("retained", scrapeJobService.getRetained());
+        stats.put("submitted", scrapeJobService.getSubmitted());
+        stats.put("rejected", scrapeJobService.getRejected());
+        return stats;
+    }
+
+    @GetMapping(path = "/payloads")
+    public Map<String, Object> getPayloadStats() {
+        return payloadCache.getStats();
+    }
+
+    @GetMapping(path = "/bulk")
+    public Map<String, Object> getBulkStats() {
+        return bulkSearchService.getStats();
+    }
+
+    @GetMapping(path = "/politeness")
+    public Map<String, Object> getPolitenessStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxInFlight", politenessScheduler.getMaxInFlight());
+        stats.put("inFlight", politenessScheduler.getInFlight());
+        stats.put("timeouts", politenessScheduler.getTimeouts());
+        stats.put("hosts", politenessScheduler.getHostStats());
+        return stats;
+    }
+
+    @GetMapping(path = "/blocking")
+    public Map<String, Object> getBlockingStats() {
+        return resourceBlocker.getStats();
+    }
+
+    @GetMapping(path = "/crawl")
+    public Map<String, Object> getCrawlStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pages", resultCrawler.getPages());
+        stats.put("prefetched", resultCrawler.getPrefetched());
+        stats.put("discarded", resultCrawler.getDiscarded());
+        return stats;
+    }
+
+    @GetMapping(path = "/sites")
+    public List<Map<String, Object>> getSites() {
+        return siteAdapters.getAll().stream().map(this::describe).collect(Collectors.toList());
+    }
+
+    private Map<String, Object> describe(SiteAdapter site) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", site.getName());
+        stats.put("enabled", site.isEnabled());
+        stats.put("host", site.getHost());
+        stats.put("engine", site.getEngine());
+        stats.put("maxPages", site.getPagination().getMaxPages());
+        stats.put("requestsPerSecond", site.getRateLimit().getRequestsPerSecond());
+        stats.put("maxConcurrentPages", site.getRateLimit().getMaxConcurrentPages());
+        return stats;
+    }
+}
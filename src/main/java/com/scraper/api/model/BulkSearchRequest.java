@@ -0,0 +1,16 @@
+package com.scraper.api.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keywords of a bulk search, with the product limit per site and the sort order applied to every keyword.
+ */
+@Data
+public class BulkSearchRequest {
+    private List<String> keywords = new ArrayList<>();
+    private Long limit;
+    private String sort;
+}
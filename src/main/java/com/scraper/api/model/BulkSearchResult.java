@@ -0,0 +1,31 @@
+package com.scraper.api.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Results of a bulk search grouped by keyword, in the order of the request.
+ */
+@Data
+public class BulkSearchResult {
+    private List<KeywordResult> results = new ArrayList<>();
+    private long elapsedMillis;
+
+    public long getOk() {
+        return count(KeywordStatus.OK);
+    }
+
+    public long getPartial() {
+        return count(KeywordStatus.PARTIAL);
+    }
+
+    public long getFailed() {
+        return count(KeywordStatus.FAILED);
+    }
+
+    private long count(KeywordStatus status) {
+        return results.stream().filter(result -> result.getStatus() == status).count();
+    }
+}
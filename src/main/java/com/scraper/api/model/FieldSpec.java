@@ -0,0 +1,33 @@
+package com.scraper.api.model;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Declarative description of one product field inside a tile.
+ * The selectors are tried in order, the first one matching a non-empty value wins.
+ */
+@Getter
+public class FieldSpec {
+    private final List<String> selectors;
+
+    // attribute to read, the element text is used when null
+    private final String attribute;
+
+    private FieldSpec(String attribute, String... selectors) {
+        if (selectors.length == 0) throw new IllegalArgumentException("A field needs at least one selector");
+        this.attribute = attribute;
+        this.selectors = Collections.unmodifiableList(Arrays.asList(selectors));
+    }
+
+    public static FieldSpec text(String... selectors) {
+        return new FieldSpec(null, selectors);
+    }
+
+    public static FieldSpec attribute(String attribute, String... selectors) {
+        return new FieldSpec(attribute, selectors);
+    }
+}
@@ -0,0 +1,23 @@
+package com.scraper.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Products and outcome of one keyword of a bulk search.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class KeywordResult {
+    private String keyword;
+    private KeywordStatus status;
+    private long elapsedMillis;
+    private String error;
+    private Set<ProductData> products = new HashSet<>();
+    private List<SiteResult> sites = new ArrayList<>();
+}
@@ -0,0 +1,11 @@
+package com.scraper.api.model;
+
+/**
+ * Outcome of one keyword of a bulk search.
+ */
+public enum KeywordStatus {
+    OK,
+    // at least one site timed out or failed
+    PARTIAL,
+    FAILED
+}
@@ -0,0 +1,30 @@
+package com.scraper.api.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * How the results of a search continue past the first page: a page number in the query string,
+ * or a "load more" button appending the next batch of tiles to the same page.
+ */
+@Getter
+@Builder
+public class PaginationSpec {
+    public static final PaginationSpec NONE = PaginationSpec.builder().maxPages(1).build();
+
+    // query parameter carrying the page number, optional
+    private final String pageParameter;
+
+    @Builder.Default
+    private final int firstPage = 1;
+
+    // products listed on a full page, a shorter page is the last one
+    @Builder.Default
+    private final int pageSize = 0;
+
+    @Builder.Default
+    private final int maxPages = 1;
+
+    // button loading the next batch in place, optional
+    private final String loadMoreSelector;
+}
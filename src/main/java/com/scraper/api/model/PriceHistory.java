@@ -0,0 +1,22 @@
+package com.scraper.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit price changes of a product over a window. {@code initial} is the price in effect when the window starts,
+ * null when the product was first seen inside the window.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PriceHistory {
+    private String key;
+    private Instant from;
+    private Instant to;
+    private PricePoint initial;
+    private List<PricePoint> points = new ArrayList<>();
+}
@@ -0,0 +1,19 @@
+package com.scraper.api.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Unit price of a product from a point in time until the next point.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PricePoint {
+    private Instant timestamp;
+    private BigDecimal price;
+}
@@ -0,0 +1,27 @@
+package com.scraper.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Aggregates of the unit price of a product over a window. The average is weighted by how long every price lasted,
+ * and the last change is the latest point of the window with the price it replaced.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PriceSummary {
+    private String key;
+    private Instant from;
+    private Instant to;
+    private int points;
+    private BigDecimal min;
+    private BigDecimal max;
+    private BigDecimal average;
+    private BigDecimal current;
+    private Instant lastChangeAt;
+    private BigDecimal lastChangeFrom;
+    private BigDecimal lastChangeTo;
+}
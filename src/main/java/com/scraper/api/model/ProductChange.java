@@ -0,0 +1,22 @@
+package com.scraper.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * Latest write of one product key: the product as stored, or a tombstone once the product is gone.
+ * {@code version} is the store sequence number of the write.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChange {
+    public static final String PUT = "put";
+    public static final String DELETE = "delete";
+
+    private String type;
+    private String key;
+    private long version;
+    private long timestamp;
+    // null for tombstones
+    private ProductData product;
+}
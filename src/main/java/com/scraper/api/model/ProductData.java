@@ -1,6 +1,9 @@
 package com.scraper.api.model;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 public class ProductData {
     private String name;
@@ -8,6 +11,9 @@ public class ProductData {
     private String price;
     private String image;
     private String url;
+    // price of one unit parsed from the displayed price when extracted or stored, not persisted
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private BigDecimal unitPrice;
 
     @Override
     public String toString() {
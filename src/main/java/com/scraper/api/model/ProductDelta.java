@@ -0,0 +1,21 @@
+package com.scraper.api.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Products written or removed after a version, oldest first, each key once with its latest write.
+ * A consumer applies the changes and asks again from {@code version}, until {@code hasMore} is false.
+ * {@code resync} is set when tombstones the consumer may have missed were already compacted away,
+ * the consumer then reloads every product and follows the changes from {@code version}.
+ */
+@Data
+public class ProductDelta {
+    private long since;
+    private long version;
+    private boolean hasMore;
+    private boolean resync;
+    private List<ProductChange> changes = new ArrayList<>();
+}
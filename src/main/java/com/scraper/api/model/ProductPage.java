@@ -0,0 +1,18 @@
+package com.scraper.api.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the products matching a {@link ProductQuery}, with the number of matches over all pages.
+ */
+@Data
+public class ProductPage {
+    private long total;
+    private int page;
+    private int size;
+    private long tookMicros;
+    private List<ProductData> products = new ArrayList<>();
+}
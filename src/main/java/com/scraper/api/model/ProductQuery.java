@@ -0,0 +1,28 @@
+package com.scraper.api.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Query over the stored products: every keyword token must appear in the name or brand, and the brand and unit price
+ * filters apply when set. A top-K query is the first page of {@code size} K in a price order.
+ */
+@Getter
+@Builder
+public class ProductQuery {
+    private final String keyword;
+    private final String brand;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+
+    @Builder.Default
+    private final ProductSort sort = ProductSort.PRICE_ASC;
+
+    @Builder.Default
+    private final int page = 0;
+
+    @Builder.Default
+    private final int size = 20;
+}
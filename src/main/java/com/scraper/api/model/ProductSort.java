@@ -0,0 +1,10 @@
+package com.scraper.api.model;
+
+/**
+ * Order of the products answered by a catalog query. Products without a known price come last in price orders.
+ */
+public enum ProductSort {
+    PRICE_ASC,
+    PRICE_DESC,
+    NAME
+}
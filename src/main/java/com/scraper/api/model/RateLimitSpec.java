@@ -0,0 +1,21 @@
+package com.scraper.api.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Load a site accepts from the scraper: page loads per second, the burst allowed on top of the rate
+ * and the pages loading at the same time.
+ */
+@Getter
+@Builder
+public class RateLimitSpec {
+    @Builder.Default
+    private final double requestsPerSecond = 1;
+
+    @Builder.Default
+    private final int burst = 1;
+
+    @Builder.Default
+    private final int maxConcurrentPages = 1;
+}
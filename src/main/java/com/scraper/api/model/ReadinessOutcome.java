@@ -0,0 +1,16 @@
+package com.scraper.api.model;
+
+import lombok.Data;
+
+@Data
+public class ReadinessOutcome {
+    // false when the upper bound was hit before every condition was met
+    private boolean ready;
+    // a captcha or bot challenge was served instead of the page
+    private boolean blocked;
+    // the empty results element matched, the search has no results
+    private boolean empty;
+    private long waitedMillis;
+    // condition still pending when the wait gave up
+    private String pendingCondition;
+}
@@ -0,0 +1,34 @@
+package com.scraper.api.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Conditions telling that a search result page is rendered.
+ * The page is ready once the ready selector matches, no resource finished loading for {@code networkIdle}
+ * and the DOM did not change for {@code domQuiet}, or when {@code timeout} is over.
+ */
+@Getter
+@Builder
+public class ReadinessSpec {
+    // first element proving results are rendered, typically the first product tile
+    private final String readySelector;
+
+    // element shown instead of the results when nothing matches the search, optional
+    private final String emptySelector;
+
+    // element of a captcha or bot challenge served instead of the page, the site wants the scraper to slow down
+    @Builder.Default
+    private final String blockedSelector = "iframe[src*='captcha'], .g-recaptcha, #px-captcha, #challenge-form";
+
+    @Builder.Default
+    private final Duration networkIdle = Duration.ofMillis(500);
+
+    @Builder.Default
+    private final Duration domQuiet = Duration.ofMillis(300);
+
+    @Builder.Default
+    private final Duration timeout = Duration.ofSeconds(10);
+}
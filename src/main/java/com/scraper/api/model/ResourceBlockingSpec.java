@@ -0,0 +1,59 @@
+package com.scraper.api.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Subresources a browser does not load while scraping a site: whole resource types and URL patterns.
+ * Scrapes only need the DOM, image URLs are read from the attributes, so the images themselves, fonts, media
+ * and trackers are wasted bandwidth and page-load time.
+ */
+@Getter
+@Builder
+public class ResourceBlockingSpec {
+    public static final ResourceBlockingSpec NONE = ResourceBlockingSpec.builder().build();
+
+    public static final String IMAGE = "image";
+    public static final String FONT = "font";
+    public static final String MEDIA = "media";
+    public static final String STYLESHEET = "stylesheet";
+
+    // URL patterns of each resource type, by file extension
+    private static final Map<String, List<String>> TYPE_PATTERNS = Map.of(
+            IMAGE, Arrays.asList("*.png*", "*.jpg*", "*.jpeg*", "*.gif*", "*.webp*", "*.avif*", "*.svg*", "*.ico*"),
+            FONT, Arrays.asList("*.woff*", "*.ttf*", "*.otf*", "*.eot*"),
+            MEDIA, Arrays.asList("*.mp4*", "*.webm*", "*.m3u8*", "*.mp3*", "*.ogg*"),
+            STYLESHEET, Collections.singletonList("*.css*"));
+
+    public static final Set<String> RESOURCE_TYPES = TYPE_PATTERNS.keySet();
+
+    // image, font, media or stylesheet, one of RESOURCE_TYPES
+    @Singular
+    private final Set<String> resourceTypes;
+
+    // wildcard patterns as understood by the DevTools Network.setBlockedURLs command, like *google-analytics.com*
+    @Singular
+    private final List<String> urlPatterns;
+
+    public boolean isEmpty() {
+        return resourceTypes.isEmpty() && urlPatterns.isEmpty();
+    }
+
+    /**
+     * Every blocked URL pattern, the ones of the resource types followed by the explicit ones.
+     */
+    public List<String> blockedUrlPatterns() {
+        List<String> patterns = new ArrayList<>();
+        resourceTypes.forEach(type -> patterns.addAll(TYPE_PATTERNS.getOrDefault(type, Collections.emptyList())));
+        patterns.addAll(urlPatterns);
+        return patterns;
+    }
+}
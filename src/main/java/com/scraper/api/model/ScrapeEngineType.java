@@ -0,0 +1,10 @@
+package com.scraper.api.model;
+
+/**
+ * How a site is fetched: through a real browser for pages rendered by JavaScript,
+ * or through plain HTTP and an HTML parser for server-rendered pages.
+ */
+public enum ScrapeEngineType {
+    BROWSER,
+    HTTP
+}
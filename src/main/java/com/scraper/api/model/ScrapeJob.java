@@ -0,0 +1,30 @@
+package com.scraper.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A search submitted to the job queue. Fields are written by the worker running it and read by the pollers.
+ */
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScrapeJob {
+    private final String id;
+    private final String keyword;
+    private final int priority;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile JobStatus status = JobStatus.QUEUED;
+    private volatile Long startedAt;
+    private volatile Long finishedAt;
+    private volatile SearchResult result;
+    private volatile String error;
+
+    public ScrapeJob(String id, String keyword, int priority) {
+        this.id = id;
+        this.keyword = keyword;
+        this.priority = priority;
+    }
+}
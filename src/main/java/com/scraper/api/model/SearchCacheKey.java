@@ -0,0 +1,41 @@
+package com.scraper.api.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * Cache key of the products of one site for one search keyword, crawled up to a number of products in a sort order.
+ * Keywords differing only by case or spacing share the same entry.
+ */
+@Getter
+@EqualsAndHashCode
+public class SearchCacheKey {
+    private final String site;
+    private final String keyword;
+    // 0 when the site default
+    private final int limit;
+    // null when the site default
+    private final String sortBy;
+
+    public SearchCacheKey(String site, String keyword) {
+        this(site, keyword, 0, null);
+    }
+
+    public SearchCacheKey(String site, String keyword, int limit, String sortBy) {
+        this.site = site;
+        this.keyword = normalize(keyword);
+        this.limit = limit;
+        this.sortBy = sortBy;
+    }
+
+    public static String normalize(String keyword) {
+        return keyword == null ? "" : keyword.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String toString() {
+        return site + ":" + keyword + (limit > 0 ? ":" + limit : "") + (sortBy != null ? ":" + sortBy : "");
+    }
+}
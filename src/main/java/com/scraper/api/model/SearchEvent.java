@@ -0,0 +1,46 @@
+package com.scraper.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * One event of a streamed search: a product, the completion of a site, or the end of the search.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchEvent {
+    public static final String PRODUCT = "product";
+    public static final String SITE = "site";
+    public static final String DONE = "done";
+
+    private String type;
+    private String site;
+    private ProductData product;
+    private SiteResult result;
+    private Integer productCount;
+    private Boolean partial;
+
+    public static SearchEvent product(String site, ProductData product) {
+        SearchEvent event = new SearchEvent();
+        event.setType(PRODUCT);
+        event.setSite(site);
+        event.setProduct(product);
+        return event;
+    }
+
+    public static SearchEvent site(SiteResult result) {
+        SearchEvent event = new SearchEvent();
+        event.setType(SITE);
+        event.setSite(result.getSite());
+        event.setResult(result);
+        return event;
+    }
+
+    public static SearchEvent done(SearchResult searchResult) {
+        SearchEvent event = new SearchEvent();
+        event.setType(DONE);
+        event.setProductCount(searchResult.getProducts().size());
+        event.setPartial(searchResult.isPartial());
+        return event;
+    }
+}
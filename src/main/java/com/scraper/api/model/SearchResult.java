@@ -0,0 +1,27 @@
+package com.scraper.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Merged products of a search together with the outcome of every site.
+ * The result is partial when at least one site timed out or failed.
+ */
+@Data
+public class SearchResult {
+    private String keyword;
+    private Set<ProductData> products = new HashSet<>();
+    private List<SiteResult> sites = new ArrayList<>();
+    // spans of the search phases, only when the search was traced
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<TraceSpan> trace;
+
+    public boolean isPartial() {
+        return sites.stream().anyMatch(site -> site.getStatus() != SiteStatus.OK);
+    }
+}
@@ -0,0 +1,12 @@
+package com.scraper.api.model;
+
+import lombok.Data;
+
+@Data
+public class SiteResult {
+    private String site;
+    private SiteStatus status;
+    private int productCount;
+    private long elapsedMillis;
+    private String error;
+}
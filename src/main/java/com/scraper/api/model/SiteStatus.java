@@ -0,0 +1,10 @@
+package com.scraper.api.model;
+
+/**
+ * Outcome of scraping one configured site for a search.
+ */
+public enum SiteStatus {
+    OK,
+    TIMEOUT,
+    FAILED
+}
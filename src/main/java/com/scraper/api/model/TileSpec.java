@@ -0,0 +1,18 @@
+package com.scraper.api.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * CSS selectors locating the product tiles of a search result page and the {@link ProductData} fields inside them.
+ */
+@Getter
+@Builder
+public class TileSpec {
+    private final String tileSelector;
+    private final FieldSpec name;
+    private final FieldSpec brand;
+    private final FieldSpec price;
+    private final FieldSpec image;
+    private final FieldSpec url;
+}
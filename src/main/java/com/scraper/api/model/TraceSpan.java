@@ -0,0 +1,20 @@
+package com.scraper.api.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * One timed phase of a traced search, like a page load or the store write of a site.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TraceSpan {
+    private String name;
+    // null for the phases of the whole search
+    private String site;
+    // from the start of the search
+    private long startMicros;
+    private long durationMicros;
+    // exception type when the phase failed
+    private String error;
+}
@@ -0,0 +1,231 @@
+package com.scraper.api.service;
+
+import com.scraper.api.config.PooledWebDriver;
+import com.scraper.api.config.WebDriverPool;
+import com.scraper.api.model.FieldSpec;
+import com.scraper.api.model.PaginationSpec;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ReadinessOutcome;
+import com.scraper.api.model.ReadinessSpec;
+import com.scraper.api.model.ScrapeEngineType;
+import com.scraper.api.model.TileSpec;
+import com.scraper.api.untils.SelectorFallbacks;
+import com.scraper.api.untils.TileScriptExtractor;
+import com.scraper.api.untils.WebDriverHelper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Scrapes pages that need JavaScript through a browser session checked out from the {@link WebDriverPool}.
+ */
+@Slf4j
+@Component
+public class BrowserScrapeEngine implements ScrapeEngine {
+
+    @Autowired
+    private WebDriverPool webDriverPool;
+
+    @Autowired
+    private PageReadiness pageReadiness;
+
+    @Autowired
+    private PolitenessScheduler politenessScheduler;
+
+    @Autowired
+    private ResourceBlocker resourceBlocker;
+
+    @Autowired
+    private ScrapeMetrics scrapeMetrics;
+
+    // clicks the "load more" button unless it is missing or disabled
+    private static final String LOAD_MORE_SCRIPT = ""
+            + "var button = document.querySelector(arguments[0]);"
+            + "if (!button || button.disabled) return false;"
+            + "button.click();"
+            + "return true;";
+
+    // script pulls all tiles in one round trip, element walks them with one WebDriver call per field
+    @Value("${scraper.browser.extraction:script}")
+    private String extractionMode;
+
+    @Value("${scraper.readiness.poll-interval:50ms}")
+    private Duration pollInterval;
+
+    @Override
+    public ScrapeEngineType getType() {
+        return ScrapeEngineType.BROWSER;
+    }
+
+    @Override
+    public List<ProductData> scrape(String url, TileSpec spec, ReadinessSpec readiness, int limit, Consumer<ProductData> sink) {
+        return scrapePage(url, spec, readiness, limit, sink).getProducts();
+    }
+
+    @Override
+    public Page scrapePage(String url, TileSpec spec, ReadinessSpec readiness, int limit, Consumer<ProductData> sink) {
+        return load(url, spec, readiness, PaginationSpec.NONE, limit, sink);
+    }
+
+    @Override
+    public List<ProductData> scrapeBatches(String url, TileSpec spec, ReadinessSpec readiness, PaginationSpec pagination,
+                                           int limit, Consumer<ProductData> sink) {
+        return load(url, spec, readiness, pagination, limit, sink).getProducts();
+    }
+
+    private Page load(String url, TileSpec spec, ReadinessSpec readiness, PaginationSpec pagination,
+                      int limit, Consumer<ProductData> sink) {
+        // the site slot is taken first, a fetch waiting for its turn must not hold a browser
+        try (PolitenessScheduler.Permit permit = scrapeMetrics.time("politeness.wait", () -> politenessScheduler.acquire(url));
+             PooledWebDriver session = scrapeMetrics.time("session.acquire", () -> webDriverPool.borrow())) {
+            // check out a warm browser session, it goes back to the pool once the page is done
+            WebDriver driver = session.getDriver();
+            WebDriverHelper.init(driver);
+            try {
+                boolean blocking = resourceBlocker.apply(driver, url);
+                long start = System.nanoTime();
+                scrapeMetrics.run("page.load", () -> driver.get(url));
+                // returns as soon as the results are rendered, no implicit wait is set on pooled sessions
+                ReadinessOutcome outcome = scrapeMetrics.time("page.readiness", () -> pageReadiness.await(driver, readiness));
+                resourceBlocker.record(driver, blocking, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                if (outcome.isBlocked()) {
+                    permit.throttled(null);
+                    throw new ScrapeException("Bot challenge served instead of " + url, HttpStatus.TOO_MANY_REQUESTS.value());
+                }
+                permit.succeeded();
+                // a page showing no results may never settle, the empty results element is enough
+                boolean settled = outcome.isReady() || outcome.isEmpty();
+                if (pagination.getLoadMoreSelector() != null && pagination.getMaxPages() > 1) {
+                    return new Page(extractBatches(driver, permit, spec, readiness, pagination, limit, sink), settled);
+                }
+                SelectorFallbacks fallbacks = new SelectorFallbacks();
+                List<ProductData> products = scrapeMetrics.time("tiles.extract", () -> extract(driver, spec, limit, sink, fallbacks));
+                scrapeMetrics.extracted(getType(), products.size(), fallbacks);
+                return new Page(products, settled);
+            } catch (RuntimeException e) {
+                // the browser may be left in an unknown state, do not hand it out again
+                session.invalidate();
+                throw e;
+            } finally {
+                WebDriverHelper.release();
+            }
+        }
+    }
+
+    private List<ProductData> extract(WebDriver driver, TileSpec spec, int limit, Consumer<ProductData> sink,
+                                      SelectorFallbacks fallbacks) {
+        if ("script".equalsIgnoreCase(extractionMode)) {
+            try {
+                // the whole page comes back in one round trip, so it is handed over in one go
+                List<ProductData> products = TileScriptExtractor.extract(driver, spec, 0, null, limit, fallbacks);
+                products.forEach(sink);
+                return products;
+            } catch (JavascriptException e) {
+                log.warn("Tile script failed, falling back to element extraction: {}", e.getMessage());
+            }
+        }
+        return extractTiles(driver, spec, limit, sink, fallbacks);
+    }
+
+    // batches need the tile script, the element walk cannot tell the tiles of one batch from the next
+    private List<ProductData> extractBatches(WebDriver driver, PolitenessScheduler.Permit permit, TileSpec spec, ReadinessSpec readiness,
+                                             PaginationSpec pagination, int limit, Consumer<ProductData> sink) {
+        List<ProductData> products = new ArrayList<>();
+        int from = 0;
+        for (int batch = 1; ; batch++) {
+            int tiles = TileScriptExtractor.countTiles(driver, spec);
+            // the next batch loads while this one is extracted, unless the tiles already there cover the limit
+            boolean more = batch < pagination.getMaxPages()
+                    && products.size() + tiles - from < limit
+                    && clickLoadMore(driver, permit, pagination.getLoadMoreSelector());
+
+            int start = from;
+            int remaining = limit - products.size();
+            SelectorFallbacks fallbacks = new SelectorFallbacks();
+            List<ProductData> batchProducts = scrapeMetrics.time("tiles.extract",
+                    () -> TileScriptExtractor.extract(driver, spec, start, tiles, remaining, fallbacks));
+            scrapeMetrics.extracted(getType(), batchProducts.size(), fallbacks);
+            batchProducts.forEach(sink);
+            products.addAll(batchProducts);
+            from = tiles;
+            if (!more || products.size() >= limit || !awaitMoreTiles(driver, spec, tiles, readiness.getTimeout())) break;
+        }
+        return products;
+    }
+
+    private static boolean clickLoadMore(WebDriver driver, PolitenessScheduler.Permit permit, String selector) {
+        // the batch is one more request to the site, it is paced like a page
+        permit.awaitToken();
+        Object clicked = ((JavascriptExecutor) driver).executeScript(LOAD_MORE_SCRIPT, selector);
+        return Boolean.TRUE.equals(clicked);
+    }
+
+    private boolean awaitMoreTiles(WebDriver driver, TileSpec spec, int tiles, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (System.nanoTime() < deadline) {
+                if (TileScriptExtractor.countTiles(driver, spec) > tiles) return true;
+                Thread.sleep(pollInterval.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("No new tiles within {} after loading more", timeout);
+        return false;
+    }
+
+    private List<ProductData> extractTiles(WebDriver driver, TileSpec spec, int limit, Consumer<ProductData> sink,
+                                           SelectorFallbacks fallbacks) {
+        List<ProductData> products = new ArrayList<>();
+        for (WebElement tile : driver.findElements(By.cssSelector(spec.getTileSelector()))) {
+            ProductData product = new ProductData();
+            try {
+                product.setName(extractField(tile, "name", spec.getName(), fallbacks));
+                product.setBrand(extractField(tile, "brand", spec.getBrand(), fallbacks));
+                product.setPrice(extractField(tile, "price", spec.getPrice(), fallbacks));
+                product.setImage(extractField(tile, "image", spec.getImage(), fallbacks));
+                product.setUrl(extractField(tile, "url", spec.getUrl(), fallbacks));
+            } catch (RuntimeException e) {
+                log.warn("Unable to extract product tile: {}", e.getMessage());
+            }
+
+            if (product.getName() != null) {
+                products.add(product);
+                sink.accept(product);
+                if (products.size() >= limit) break;
+            }
+        }
+        return products;
+    }
+
+    private static String extractField(WebElement tile, String name, FieldSpec field, SelectorFallbacks fallbacks) {
+        if (field == null) return null;
+        List<String> selectors = field.getSelectors();
+        for (int i = 0; i < selectors.size(); i++) {
+            // findElements returns an empty list instead of throwing for the fallback selectors
+            List<WebElement> elements = tile.findElements(By.cssSelector(selectors.get(i)));
+            if (elements.isEmpty()) continue;
+            WebElement element = elements.get(0);
+            String value = field.getAttribute() == null ? element.getText() : element.getAttribute(field.getAttribute());
+            if (!StringUtils.isEmpty(value)) {
+                if (i > 0) fallbacks.record(name);
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,251 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.BulkSearchRequest;
+import com.scraper.api.model.BulkSearchResult;
+import com.scraper.api.model.KeywordResult;
+import com.scraper.api.model.KeywordStatus;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.untils.ProductScraperParameters;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Searches many keywords in one request, for catalog-wide price refreshes.
+ * The keywords of every bulk search share a fixed number of workers sized to the browser pool, so a bulk search keeps
+ * the pooled sessions busy, each one with its site and cookies already loaded, without queueing more searches on the
+ * pool than it has sessions. Every keyword goes through the regular search: result cache, coalescing and store writes,
+ * but it is not counted in the keyword popularity. At most {@code scraper.bulk.max-concurrent} bulk searches run at the
+ * same time, the next ones are rejected instead of queueing their keywords behind them.
+ */
+@Slf4j
+@Service
+public class BulkSearchService {
+
+    private final ProductService productService;
+    private final int maxKeywords;
+    private final int maxConcurrent;
+    private final ExecutorService workers;
+    // one permit per bulk search allowed to run
+    private final Semaphore slots;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder keywords = new LongAdder();
+    private final LongAdder failedKeywords = new LongAdder();
+
+    public BulkSearchService(ProductService productService,
+                             @Value("${scraper.bulk.concurrency:${scraper.pool.max-size:2}}") int concurrency,
+                             @Value("${scraper.bulk.max-keywords:500}") int maxKeywords,
+                             @Value("${scraper.bulk.max-concurrent:2}") int maxConcurrent) {
+        this.productService = productService;
+        this.maxKeywords = maxKeywords;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.slots = new Semaphore(this.maxConcurrent);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "bulk-search-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Searches every keyword of the request, blank and repeated keywords are searched once.
+     *
+     * @param listener Receives every keyword result as soon as it is done, from the worker threads.
+     * @return The results grouped by keyword, in the order of the request.
+     * @throws IllegalArgumentException When the request has no keyword or more than {@code scraper.bulk.max-keywords}.
+     * @throws BulkSearchesFullException When {@code scraper.bulk.max-concurrent} bulk searches are running.
+     */
+    public BulkSearchResult search(BulkSearchRequest request, Listener listener) {
+        return start(request, listener).await();
+    }
+
+    /**
+     * Hands the keywords of the request to the workers and returns at once, like {@link #search} otherwise.
+     * The caller must {@link Run#await() await} or {@link Run#cancel() cancel} the run, either one frees its slot.
+     */
+    public Run start(BulkSearchRequest request, Listener listener) {
+        List<String> keywordList = keywords(request.getKeywords());
+        if (!slots.tryAcquire()) {
+            rejected.increment();
+            throw new BulkSearchesFullException(maxConcurrent + " bulk searches running, try again later");
+        }
+        running.incrementAndGet();
+        searches.increment();
+        Run run = new Run(keywordList);
+        for (String keyword : keywordList) {
+            run.pending.add(workers.submit(() -> {
+                KeywordResult result = searchKeyword(keyword, request);
+                listener.onKeyword(result);
+                return result;
+            }));
+        }
+        return run;
+    }
+
+    /**
+     * Trimmed keywords of a request without blanks and case-insensitive repeats, in the order of the request.
+     */
+    public List<String> keywords(List<String> requested) {
+        Map<String, String> unique = new LinkedHashMap<>();
+        if (requested != null) {
+            for (String keyword : requested) {
+                if (keyword == null || keyword.trim().isEmpty()) continue;
+                unique.putIfAbsent(keyword.trim().toLowerCase(Locale.ROOT), keyword.trim());
+            }
+        }
+        if (unique.isEmpty()) throw new IllegalArgumentException("No keyword to search");
+        if (unique.size() > maxKeywords) {
+            throw new IllegalArgumentException(unique.size() + " keywords, a bulk search takes at most " + maxKeywords);
+        }
+        return new ArrayList<>(unique.values());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxKeywords", maxKeywords);
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("running", running.get());
+        stats.put("searches", searches.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("keywords", keywords.sum());
+        stats.put("failedKeywords", failedKeywords.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private KeywordResult searchKeyword(String keyword, BulkSearchRequest request) {
+        ProductScraperParameters parameters = new ProductScraperParameters();
+        parameters.setKeywords(keyword);
+        parameters.setTotalProductsToFetch(request.getLimit());
+        parameters.setSortBy(request.getSort());
+        // a catalog refresh is not user demand, it must not steer the prewarm
+        parameters.setRecordPopularity(false);
+
+        long start = System.nanoTime();
+        KeywordResult result = new KeywordResult();
+        result.setKeyword(keyword);
+        try {
+            SearchResult search = productService.searchProducts(parameters, SearchListener.NONE);
+            result.setProducts(search.getProducts());
+            result.setSites(search.getSites());
+            result.setStatus(search.isPartial() ? KeywordStatus.PARTIAL : KeywordStatus.OK);
+        } catch (RuntimeException e) {
+            log.info("Bulk search of {} failed: {}", keyword, e.getMessage());
+            result.setStatus(KeywordStatus.FAILED);
+            result.setError(String.valueOf(e.getMessage()));
+        }
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        keywords.increment();
+        if (result.getStatus() == KeywordStatus.FAILED) failedKeywords.increment();
+        return result;
+    }
+
+    private KeywordResult collect(String keyword, Future<KeywordResult> pending) {
+        String error;
+        if (Thread.currentThread().isInterrupted()) {
+            // the bulk search was interrupted, the keywords not searched yet are given up
+            pending.cancel(true);
+            error = "Interrupted";
+        } else {
+            try {
+                return pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.cancel(true);
+                error = "Interrupted";
+            } catch (CancellationException e) {
+                error = "Cancelled";
+            } catch (ExecutionException e) {
+                error = String.valueOf(e.getCause().getMessage());
+            }
+        }
+        KeywordResult result = new KeywordResult();
+        result.setKeyword(keyword);
+        result.setStatus(KeywordStatus.FAILED);
+        result.setError(error);
+        return result;
+    }
+
+    /**
+     * A bulk search handed to the workers.
+     */
+    public final class Run {
+        private final List<String> keywordList;
+        private final List<Future<KeywordResult>> pending;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private Run(List<String> keywordList) {
+            this.keywordList = keywordList;
+            this.pending = new ArrayList<>(keywordList.size());
+        }
+
+        /**
+         * Waits for every keyword.
+         *
+         * @return The results grouped by keyword, in the order of the request.
+         */
+        public BulkSearchResult await() {
+            try {
+                BulkSearchResult result = new BulkSearchResult();
+                for (int i = 0; i < pending.size(); i++) {
+                    result.getResults().add(collect(keywordList.get(i), pending.get(i)));
+                }
+                result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return result;
+            } finally {
+                finish();
+            }
+        }
+
+        /**
+         * Gives up the keywords not searched yet and interrupts the ones being searched, their results are dropped.
+         */
+        public void cancel() {
+            // the queued keywords first, a worker freed by an interrupt must not pick one of them up
+            for (int i = pending.size() - 1; i >= 0; i--) pending.get(i).cancel(true);
+            finish();
+        }
+
+        private void finish() {
+            if (!finished.compareAndSet(false, true)) return;
+            running.decrementAndGet();
+            slots.release();
+        }
+    }
+
+    /**
+     * Receives the result of every keyword of a bulk search as soon as it is done.
+     */
+    public interface Listener {
+        Listener NONE = result -> {
+        };
+
+        void onKeyword(KeywordResult result);
+    }
+}
@@ -0,0 +1,10 @@
+package com.scraper.api.service;
+
+/**
+ * Raised when a bulk search is started while {@code scraper.bulk.max-concurrent} bulk searches are running.
+ */
+public class BulkSearchesFullException extends RuntimeException {
+    public BulkSearchesFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,95 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ReadinessSpec;
+import com.scraper.api.model.ScrapeEngineType;
+import com.scraper.api.model.TileSpec;
+import com.scraper.api.untils.HtmlTileExtractor;
+import com.scraper.api.untils.SelectorFallbacks;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Scrapes server-rendered pages over plain HTTP, without starting a browser.
+ */
+@Component
+public class HttpScrapeEngine implements ScrapeEngine {
+
+    @Autowired
+    private CloseableHttpClient scraperHttpClient;
+
+    @Autowired
+    private PolitenessScheduler politenessScheduler;
+
+    @Autowired
+    private ScrapeMetrics scrapeMetrics;
+
+    @Override
+    public ScrapeEngineType getType() {
+        return ScrapeEngineType.HTTP;
+    }
+
+    @Override
+    public List<ProductData> scrape(String url, TileSpec spec, ReadinessSpec readiness, int limit, Consumer<ProductData> sink) {
+        try (PolitenessScheduler.Permit permit = scrapeMetrics.time("politeness.wait", () -> politenessScheduler.acquire(url))) {
+            SelectorFallbacks fallbacks = new SelectorFallbacks();
+            // the page is extracted while it streams in, the fetch phase includes the extraction
+            List<ProductData> products = scrapeMetrics.time("page.fetch", () -> fetch(url, permit, spec, limit, sink, fallbacks));
+            scrapeMetrics.extracted(getType(), products.size(), fallbacks);
+            return products;
+        }
+    }
+
+    private List<ProductData> fetch(String url, PolitenessScheduler.Permit permit, TileSpec spec, int limit,
+                                    Consumer<ProductData> sink, SelectorFallbacks fallbacks) {
+        try {
+            return scraperHttpClient.execute(new HttpGet(url), response -> {
+                if (response.getCode() == HttpStatus.SC_TOO_MANY_REQUESTS || response.getCode() == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+                    permit.throttled(retryAfter(response.getFirstHeader(HttpHeaders.RETRY_AFTER)));
+                }
+                if (response.getCode() >= 400) {
+                    throw new ScrapeException("Unexpected HTTP status " + response.getCode() + " from " + url, response.getCode());
+                }
+                permit.succeeded();
+                HttpEntity entity = response.getEntity();
+                if (entity == null) return Collections.emptyList();
+
+                ContentType contentType = ContentType.parseLenient(entity.getContentType());
+                Charset charset = contentType != null && contentType.getCharset() != null
+                        ? contentType.getCharset() : StandardCharsets.UTF_8;
+                try (Reader reader = new InputStreamReader(entity.getContent(), charset)) {
+                    return HtmlTileExtractor.extract(reader, url, spec, limit, sink, fallbacks);
+                }
+            });
+        } catch (IOException e) {
+            throw new ScrapeException("Unable to fetch " + url, e);
+        }
+    }
+
+    // only the delay-seconds form, an HTTP date falls back to the scheduler backoff
+    private static Duration retryAfter(Header header) {
+        if (header == null) return null;
+        try {
+            return Duration.ofSeconds(Long.parseLong(header.getValue().trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.scraper.api.service;
+
+/**
+ * Raised when a job is submitted while the job queue is at capacity.
+ */
+public class JobQueueFullException extends RuntimeException {
+    public JobQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,122 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.SearchCacheKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Popularity of the searched keywords, as search counts decaying by half every {@code scraper.prewarm.half-life}.
+ * At most {@code max-tracked} keywords are kept, the least popular half is dropped when the bound is reached.
+ */
+@Component
+public class KeywordPopularity {
+
+    private final double halfLifeMillis;
+    private final int maxTracked;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, Score> scores = new ConcurrentHashMap<>();
+
+    @Autowired
+    public KeywordPopularity(@Value("${scraper.prewarm.half-life:24h}") Duration halfLife,
+                             @Value("${scraper.prewarm.max-tracked:10000}") int maxTracked) {
+        this(halfLife, maxTracked, System::currentTimeMillis);
+    }
+
+    KeywordPopularity(Duration halfLife, int maxTracked, LongSupplier clock) {
+        this.halfLifeMillis = Math.max(1, halfLife.toMillis());
+        this.maxTracked = Math.max(1, maxTracked);
+        this.clock = clock;
+    }
+
+    /**
+     * Counts one search of the keyword.
+     */
+    public void record(String keyword) {
+        String normalized = SearchCacheKey.normalize(keyword);
+        if (normalized.isEmpty()) return;
+        long now = clock.getAsLong();
+        scores.computeIfAbsent(normalized, k -> new Score(now)).add(now, halfLifeMillis);
+        if (scores.size() > maxTracked) prune(now);
+    }
+
+    /**
+     * The most popular keywords, most popular first.
+     *
+     * @param count     Keywords to answer at most.
+     * @param minScore  Decayed search count a keyword needs to be answered.
+     */
+    public List<String> top(int count, double minScore) {
+        long now = clock.getAsLong();
+        PriorityQueue<Map.Entry<String, Double>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<String, Score> entry : scores.entrySet()) {
+            double score = entry.getValue().valueAt(now, halfLifeMillis);
+            if (score < minScore) continue;
+            heap.offer(Map.entry(entry.getKey(), score));
+            if (heap.size() > count) heap.poll();
+        }
+        List<Map.Entry<String, Double>> top = new ArrayList<>(heap);
+        top.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        List<String> keywords = new ArrayList<>(top.size());
+        for (Map.Entry<String, Double> entry : top) keywords.add(entry.getKey());
+        return keywords;
+    }
+
+    /**
+     * Decayed search counts of the most popular keywords, most popular first.
+     */
+    public Map<String, Double> scores(int count) {
+        long now = clock.getAsLong();
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String keyword : top(count, 0)) {
+            Score score = scores.get(keyword);
+            if (score != null) result.put(keyword, Math.round(score.valueAt(now, halfLifeMillis) * 100) / 100.0);
+        }
+        return result;
+    }
+
+    public int getTracked() {
+        return scores.size();
+    }
+
+    private synchronized void prune(long now) {
+        if (scores.size() <= maxTracked) return;
+        // scores keep changing while the keywords are sorted, they are read once
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(scores.size());
+        for (Map.Entry<String, Score> entry : scores.entrySet()) {
+            entries.add(Map.entry(entry.getKey(), entry.getValue().valueAt(now, halfLifeMillis)));
+        }
+        entries.sort(Map.Entry.comparingByValue());
+        for (int i = 0; i < entries.size() / 2; i++) {
+            scores.remove(entries.get(i).getKey());
+        }
+    }
+
+    private static final class Score {
+        private double value;
+        private long updatedAt;
+
+        private Score(long now) {
+            this.updatedAt = now;
+        }
+
+        private synchronized void add(long now, double halfLifeMillis) {
+            value = valueAt(now, halfLifeMillis) + 1;
+            updatedAt = Math.max(updatedAt, now);
+        }
+
+        private synchronized double valueAt(long now, double halfLifeMillis) {
+            return value * Math.pow(0.5, Math.max(0, now - updatedAt) / halfLifeMillis);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.SearchCacheKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers the product keys listed by the last crawls of every search, to tell which products are gone.
+ * A product is gone once a complete crawl no longer lists it and no other remembered search does.
+ * An incomplete crawl, or one recorded by an interrupted thread, only adds to what its search listed before.
+ * Listings are kept in memory for the {@code scraper.store.tracked-searches} most recent searches, so the first
+ * crawls after a restart find nothing gone.
+ */
+@Component
+public class ListingTracker {
+
+    private final int maxSearches;
+
+    // guards the listings and references, a lock rather than a monitor so a virtual thread waiting for it frees its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // least recently crawled first
+    private final LinkedHashMap<SearchCacheKey, Set<String>> listings = new LinkedHashMap<>(16, 0.75f, true);
+    // remembered searches listing every product key
+    private final Map<String, Integer> references = new HashMap<>();
+
+    public ListingTracker(@Value("${scraper.store.tracked-searches:10000}") int maxSearches) {
+        this.maxSearches = maxSearches;
+    }
+
+    /**
+     * Records the product keys of a crawl.
+     *
+     * @param complete Whether the crawl reached the last result page.
+     * @return The keys no remembered search lists any more.
+     */
+    public List<String> update(SearchCacheKey search, Collection<String> keys, boolean complete) {
+        lock.lock();
+        try {
+            // an abandoned crawl may have stopped anywhere
+            if (Thread.currentThread().isInterrupted()) complete = false;
+            Set<String> current = new HashSet<>(keys);
+            Set<String> previous = listings.remove(search);
+            if (previous != null && !complete) current.addAll(previous);
+            listings.put(search, current);
+
+            for (String key : current) {
+                if (previous == null || !previous.contains(key)) references.merge(key, 1, Integer::sum);
+            }
+            List<String> gone = new ArrayList<>();
+            if (previous != null) {
+                for (String key : previous) {
+                    if (!current.contains(key) && release(key)) gone.add(key);
+                }
+            }
+
+            // forgotten searches only stop protecting their products, nothing is reported gone for them
+            Iterator<Map.Entry<SearchCacheKey, Set<String>>> eldest = listings.entrySet().iterator();
+            while (listings.size() > maxSearches && eldest.hasNext()) {
+                eldest.next().getValue().forEach(this::release);
+                eldest.remove();
+            }
+            return gone;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSearches() {
+        lock.lock();
+        try {
+            return listings.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getProducts() {
+        lock.lock();
+        try {
+            return references.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // true when the key is not listed any more
+    private boolean release(String key) {
+        return references.merge(key, -1, Integer::sum) <= 0 && references.remove(key) != null;
+    }
+}
@@ -0,0 +1,165 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ReadinessOutcome;
+import com.scraper.api.model.ReadinessSpec;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Waits until a loaded page is rendered instead of sleeping for a fixed time.
+ * Every poll is a single script round trip reporting whether the ready selector matches,
+ * how long ago the last resource finished loading and how long ago the DOM last changed.
+ */
+@Slf4j
+@Component
+public class PageReadiness {
+
+    // installs a MutationObserver on first call, then reports
+    // [selector found, ms since network, ms since mutation, blocked, empty results]
+    private static final String PROBE = ""
+            + "var spec = arguments[0], now = performance.now();"
+            + "if (!window.__scraperObserver) {"
+            + "  window.__scraperLastMutation = now;"
+            + "  window.__scraperObserver = new MutationObserver(function () { window.__scraperLastMutation = performance.now(); });"
+            + "  window.__scraperObserver.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});"
+            + "}"
+            + "var empty = !!spec.empty && !!document.querySelector(spec.empty);"
+            + "var found = !spec.ready || !!document.querySelector(spec.ready) || empty;"
+            + "var lastNetwork = 0, resources = performance.getEntriesByType('resource');"
+            + "for (var i = 0; i < resources.length; i++) { if (resources[i].responseEnd > lastNetwork) lastNetwork = resources[i].responseEnd; }"
+            + "var blocked = !!spec.blocked && !!document.querySelector(spec.blocked);"
+            + "return [found, now - lastNetwork, now - window.__scraperLastMutation, blocked, empty];";
+
+    private static final String BLOCKED = "blocked";
+
+    private final Duration maxTimeout;
+    private final Duration pollInterval;
+
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder totalWaitMillis = new LongAdder();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    public PageReadiness(@Value("${scraper.readiness.max-timeout:15s}") Duration maxTimeout,
+                         @Value("${scraper.readiness.poll-interval:50ms}") Duration pollInterval) {
+        this.maxTimeout = maxTimeout;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Blocks until the page in the driver meets every condition of the spec or the timeout is over.
+     * A timeout is not an error, whatever was rendered by then gets extracted.
+     *
+     * @param driver The WebDriver holding the freshly loaded page.
+     * @param spec   The readiness conditions of the site.
+     * @return Whether the page got ready and how long the wait took.
+     */
+    public ReadinessOutcome await(WebDriver driver, ReadinessSpec spec) {
+        long start = System.nanoTime();
+        Duration timeout = spec.getTimeout().compareTo(maxTimeout) < 0 ? spec.getTimeout() : maxTimeout;
+        long deadline = start + timeout.toNanos();
+
+        Map<String, Object> argument = new HashMap<>();
+        argument.put("ready", spec.getReadySelector());
+        argument.put("empty", spec.getEmptySelector());
+        argument.put("blocked", spec.getBlockedSelector());
+
+        String pending = "ready-selector";
+        boolean empty = false;
+        try {
+            while (true) {
+                List<?> values = probe(driver, argument);
+                pending = pendingCondition(values, spec);
+                empty = values != null && Boolean.TRUE.equals(values.get(4));
+                if (pending == null || BLOCKED.equals(pending) || System.nanoTime() >= deadline) break;
+                Thread.sleep(pollInterval.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        ReadinessOutcome outcome = new ReadinessOutcome();
+        outcome.setReady(pending == null);
+        outcome.setBlocked(BLOCKED.equals(pending));
+        outcome.setEmpty(empty);
+        outcome.setPendingCondition(pending);
+        outcome.setWaitedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        record(outcome);
+        return outcome;
+    }
+
+    public long getPages() {
+        return pages.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    public long getAverageWaitMillis() {
+        long count = pages.sum();
+        return count == 0 ? 0 : totalWaitMillis.sum() / count;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis.get();
+    }
+
+    // null when the probe could not run on the document
+    private static List<?> probe(WebDriver driver, Map<String, Object> argument) {
+        Object result;
+        try {
+            result = ((JavascriptExecutor) driver).executeScript(PROBE, argument);
+        } catch (WebDriverException e) {
+            // the document may be swapped while the page is still navigating, try again on the next poll
+            return null;
+        }
+        return result instanceof List && ((List<?>) result).size() == 5 ? (List<?>) result : null;
+    }
+
+    // returns the first condition not met yet, null once the page is ready
+    private static String pendingCondition(List<?> values, ReadinessSpec spec) {
+        if (values == null) return "document";
+        if (Boolean.TRUE.equals(values.get(3))) return BLOCKED;
+        if (!Boolean.TRUE.equals(values.get(0))) return "ready-selector";
+        if (asMillis(values.get(1)) < spec.getNetworkIdle().toMillis()) return "network-idle";
+        if (asMillis(values.get(2)) < spec.getDomQuiet().toMillis()) return "dom-quiet";
+        return null;
+    }
+
+    private static double asMillis(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    private void record(ReadinessOutcome outcome) {
+        pages.increment();
+        totalWaitMillis.add(outcome.getWaitedMillis());
+        maxWaitMillis.accumulateAndGet(outcome.getWaitedMillis(), Math::max);
+        if (outcome.isBlocked()) {
+            blocked.increment();
+            log.warn("Bot challenge served after {} ms", outcome.getWaitedMillis());
+        } else if (!outcome.isReady()) {
+            timeouts.increment();
+            log.info("Page not ready after {} ms, still waiting on {}", outcome.getWaitedMillis(), outcome.getPendingCondition());
+        } else {
+            log.debug("Page ready after {} ms", outcome.getWaitedMillis());
+        }
+    }
+}
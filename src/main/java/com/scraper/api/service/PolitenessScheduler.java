@@ -0,0 +1,390 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.RateLimitSpec;
+import com.scraper.api.site.SiteAdapter;
+import com.scraper.api.site.SiteAdapterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Paces the page fetches of every site so the scraper does not get throttled or blocked.
+ * Each host has a token bucket and a cap on the pages loading at the same time, taken from its {@link SiteAdapter}.
+ * Hosts answering with 429, 503 or a bot challenge are backed off exponentially with jitter and their rate is halved,
+ * the rate recovers step by step with every successful page. Waiting hosts are served round robin, so a site with
+ * a long queue cannot take every slot of {@code scraper.politeness.max-in-flight}.
+ */
+@Slf4j
+@Component
+public class PolitenessScheduler {
+
+    // lowest fraction of its configured rate a throttled host is slowed down to
+    private static final double MIN_RATE_FACTOR = 0.1;
+    // fraction of the configured rate given back by every successful page
+    private static final double RECOVERY_STEP = 0.1;
+
+    private final boolean enabled;
+    private final int maxInFlight;
+    private final Duration acquireTimeout;
+    private final Duration backoffBase;
+    private final Duration backoffMax;
+    private final RateLimitSpec defaultLimit;
+    private final Map<String, RateLimitSpec> limits;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // every host seen so far, guarded by lock
+    private final Map<String, HostState> hosts = new LinkedHashMap<>();
+    // hosts with waiting fetches in serving order, guarded by lock
+    private final Deque<HostState> rotation = new ArrayDeque<>();
+    private int inFlight;
+    private long timeouts;
+
+    @Autowired
+    public PolitenessScheduler(SiteAdapterRegistry siteAdapters,
+                               @Value("${scraper.politeness.enabled:true}") boolean enabled,
+                               @Value("${scraper.politeness.max-in-flight:8}") int maxInFlight,
+                               @Value("${scraper.politeness.acquire-timeout:30s}") Duration acquireTimeout,
+                               @Value("${scraper.politeness.backoff-base:2s}") Duration backoffBase,
+                               @Value("${scraper.politeness.backoff-max:2m}") Duration backoffMax,
+                               @Value("${scraper.politeness.default-requests-per-second:1}") double defaultRequestsPerSecond) {
+        this(hostLimits(siteAdapters), enabled, maxInFlight, acquireTimeout, backoffBase, backoffMax,
+                RateLimitSpec.builder().requestsPerSecond(defaultRequestsPerSecond).build());
+    }
+
+    public PolitenessScheduler(Map<String, RateLimitSpec> limits, boolean enabled, int maxInFlight, Duration acquireTimeout,
+                               Duration backoffBase, Duration backoffMax, RateLimitSpec defaultLimit) {
+        this.limits = limits;
+        this.enabled = enabled;
+        this.maxInFlight = maxInFlight;
+        this.acquireTimeout = acquireTimeout;
+        this.backoffBase = backoffBase;
+        this.backoffMax = backoffMax;
+        this.defaultLimit = defaultLimit;
+    }
+
+    /**
+     * Waits for the host of the URL to accept one more page load, up to {@code scraper.politeness.acquire-timeout}.
+     *
+     * @param url The page about to be fetched.
+     * @return The slot of the fetch, to be closed once the page is loaded.
+     * @throws ScrapeException When no slot frees up in time or the thread is interrupted.
+     */
+    public Permit acquire(String url) {
+        if (!enabled) return new Permit(null);
+        String host = hostOf(url);
+        Waiter waiter = new Waiter(lock.newCondition());
+        long deadline = System.nanoTime() + acquireTimeout.toNanos();
+
+        lock.lock();
+        try {
+            HostState state = hosts.computeIfAbsent(host, h -> new HostState(h, limits.getOrDefault(h, defaultLimit)));
+            state.waiters.addLast(waiter);
+            if (state.waiters.size() == 1) rotation.addLast(state);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    long nextGrant = dispatch(now);
+                    if (waiter.granted) return new Permit(state);
+                    if (now >= deadline) {
+                        withdraw(state, waiter);
+                        timeouts++;
+                        throw new ScrapeException("No fetch slot for " + host + " within " + acquireTimeout, -1);
+                    }
+                    waiter.condition.awaitNanos(Math.min(deadline, nextGrant) - now);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    release(state);
+                } else {
+                    withdraw(state, waiter);
+                }
+                Thread.currentThread().interrupt();
+                throw new ScrapeException("Interrupted while waiting for a fetch slot for " + host, e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTimeouts() {
+        lock.lock();
+        try {
+            return timeouts;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Current rate, bucket, queue and backoff of every host seen so far.
+     */
+    public List<Map<String, Object>> getHostStats() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            List<Map<String, Object>> stats = new ArrayList<>();
+            for (HostState state : hosts.values()) {
+                state.refill(now);
+                Map<String, Object> host = new LinkedHashMap<>();
+                host.put("host", state.host);
+                host.put("requestsPerSecond", state.rate());
+                host.put("tokens", state.tokens);
+                host.put("inFlight", state.inFlight);
+                host.put("maxInFlight", state.limit.getMaxConcurrentPages());
+                host.put("queued", state.waiters.size());
+                host.put("backoffMillis", Math.max(0, TimeUnit.NANOSECONDS.toMillis(state.backoffUntil - now)));
+                host.put("granted", state.granted);
+                host.put("throttled", state.throttled);
+                stats.add(host);
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // grants every fetch that can start now, one per host and pass, and returns when the next one may start
+    private long dispatch(long now) {
+        long nextGrant = Long.MAX_VALUE;
+        boolean granted;
+        do {
+            granted = false;
+            for (int i = rotation.size(); i > 0 && inFlight < maxInFlight; i--) {
+                HostState state = rotation.pollFirst();
+                long eligibleAt = state.eligibleAt(now);
+                if (eligibleAt <= now) {
+                    state.grant();
+                    inFlight++;
+                    granted = true;
+                } else {
+                    nextGrant = Math.min(nextGrant, eligibleAt);
+                }
+                if (!state.waiters.isEmpty()) rotation.addLast(state);
+            }
+        } while (granted && inFlight < maxInFlight);
+        return nextGrant;
+    }
+
+    private void withdraw(HostState state, Waiter waiter) {
+        state.waiters.remove(waiter);
+        if (state.waiters.isEmpty()) rotation.remove(state);
+    }
+
+    private void release(HostState state) {
+        inFlight--;
+        state.inFlight--;
+        dispatch(System.nanoTime());
+    }
+
+    private void throttled(HostState state, Duration retryAfter) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            state.throttled++;
+            state.backoffLevel = Math.min(state.backoffLevel + 1, 16);
+            long delay = Math.min(backoffMax.toNanos(), backoffBase.toNanos() << (state.backoffLevel - 1));
+            // equal jitter, hosts throttled at the same time do not all come back at the same time
+            delay = delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+            if (retryAfter != null) delay = Math.max(delay, retryAfter.toNanos());
+            state.backoffUntil = Math.max(state.backoffUntil, now + delay);
+            state.rateFactor = Math.max(MIN_RATE_FACTOR, state.rateFactor / 2);
+            log.warn("Backing off {} for {} ms, rate down to {}/s",
+                    state.host, TimeUnit.NANOSECONDS.toMillis(delay), String.format("%.2f", state.rate()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // paces a follow-up request of a page already holding its slot, like a "load more" batch
+    private void awaitToken(HostState state) {
+        lock.lock();
+        try {
+            Condition pacing = lock.newCondition();
+            long deadline = System.nanoTime() + acquireTimeout.toNanos();
+            while (true) {
+                long now = System.nanoTime();
+                long tokenAt = state.tokenAt(now);
+                if (tokenAt <= now) {
+                    state.takeToken();
+                    return;
+                }
+                if (now >= deadline) {
+                    timeouts++;
+                    throw new ScrapeException("No request slot for " + state.host + " within " + acquireTimeout, -1);
+                }
+                pacing.awaitNanos(Math.min(deadline, tokenAt) - now);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScrapeException("Interrupted while waiting for a request slot for " + state.host, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void succeeded(HostState state) {
+        lock.lock();
+        try {
+            state.backoffLevel = 0;
+            state.rateFactor = Math.min(1, state.rateFactor + RECOVERY_STEP);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Map<String, RateLimitSpec> hostLimits(SiteAdapterRegistry siteAdapters) {
+        Map<String, RateLimitSpec> limits = new HashMap<>();
+        siteAdapters.getAll().forEach(site -> limits.put(site.getHost(), site.getRateLimit()));
+        return limits;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * One page load allowed to start. Closing it frees the slot of the host.
+     * Reporting how the site answered lets the scheduler back off or speed up again.
+     */
+    public final class Permit implements AutoCloseable {
+        private final HostState state;
+        private boolean closed;
+
+        private Permit(HostState state) {
+            this.state = state;
+        }
+
+        /**
+         * The site asked to slow down with a 429, a 503 or a bot challenge.
+         *
+         * @param retryAfter Delay requested by the site, null when it did not tell.
+         */
+        public void throttled(Duration retryAfter) {
+            if (state != null) PolitenessScheduler.this.throttled(state, retryAfter);
+        }
+
+        public void succeeded() {
+            if (state != null) PolitenessScheduler.this.succeeded(state);
+        }
+
+        /**
+         * Waits for the host bucket before one more request of the same page, such as a "load more" batch.
+         */
+        public void awaitToken() {
+            if (state != null) PolitenessScheduler.this.awaitToken(state);
+        }
+
+        @Override
+        public void close() {
+            if (state == null || closed) return;
+            closed = true;
+            lock.lock();
+            try {
+                release(state);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private boolean granted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    private static final class HostState {
+        private final String host;
+        private final RateLimitSpec limit;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private int inFlight;
+        private long backoffUntil = refilledAt;
+        private int backoffLevel;
+        private double rateFactor = 1;
+        private long granted;
+        private long throttled;
+
+        private HostState(String host, RateLimitSpec limit) {
+            this.host = host;
+            this.limit = limit;
+            this.tokens = Math.max(1, limit.getBurst());
+        }
+
+        private double rate() {
+            return limit.getRequestsPerSecond() * rateFactor;
+        }
+
+        private void refill(long now) {
+            if (now > refilledAt) {
+                tokens = Math.min(Math.max(1, limit.getBurst()), tokens + (now - refilledAt) * rate() / 1e9);
+                refilledAt = now;
+            }
+        }
+
+        // when the next waiter of the host may start, Long.MAX_VALUE when it has to wait for a page to finish
+        private long eligibleAt(long now) {
+            if (inFlight >= limit.getMaxConcurrentPages()) return Long.MAX_VALUE;
+            return tokenAt(now);
+        }
+
+        // when the bucket and the backoff allow the next request
+        private long tokenAt(long now) {
+            if (now < backoffUntil) return backoffUntil;
+            if (rate() <= 0) return now;
+            refill(now);
+            if (tokens >= 1) return now;
+            return now + (long) Math.ceil((1 - tokens) / rate() * 1e9);
+        }
+
+        private void takeToken() {
+            if (rate() > 0) tokens -= 1;
+        }
+
+        private void grant() {
+            takeToken();
+            inFlight++;
+            granted++;
+            Waiter waiter = waiters.pollFirst();
+            waiter.granted = true;
+            waiter.condition.signal();
+        }
+    }
+}
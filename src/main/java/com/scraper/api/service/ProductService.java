@@ -1,10 +1,15 @@
 package com.scraper.api.service;
 
 import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.untils.ProductScraperParameters;
 
 import java.util.Set;
 
 public interface ProductService {
     Set<ProductData> getProducts();
     Set<ProductData> getProductsByKeyword(String keyword);
+    SearchResult searchProducts(String keyword);
+    SearchResult searchProducts(String keyword, SearchListener listener);
+    SearchResult searchProducts(ProductScraperParameters parameters, SearchListener listener);
 }
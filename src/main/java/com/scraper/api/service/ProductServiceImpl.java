@@ -1,174 +1,319 @@
 package com.scraper.api.service;
 
-import com.opencsv.CSVReader;
-import com.opencsv.CSVWriter;
-import com.opencsv.exceptions.CsvException;
-import com.scraper.api.config.ScraperConfig;
-import com.scraper.api.model.MainPage;
 import com.scraper.api.model.ProductData;
-import com.scraper.api.untils.WebDriverHelper;
-import org.springframework.beans.factory.annotation.Value;
+import com.scraper.api.model.SearchCacheKey;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.model.SiteResult;
+import com.scraper.api.model.SiteStatus;
+import com.scraper.api.site.SiteAdapter;
+import com.scraper.api.site.SiteAdapterRegistry;
+import com.scraper.api.store.ProductStore;
+import com.scraper.api.untils.ProductScraperParameters;
+import com.scraper.api.untils.ScrapeContext;
+import com.scraper.api.untils.ScrapeTrace;
+import com.scraper.api.untils.SingleFlight;
 import org.apache.commons.lang3.StringUtils;
-import org.openqa.selenium.By;
-import org.openqa.selenium.NoSuchElementException;
-import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
-public class ProductServiceImpl implements ProductService {
+public class ProductServiceImpl implements ProductService, SearchRefresher {
 
-    private static final ScraperConfig scraperConfig = new ScraperConfig();
-    private static WebDriver driver;
-    private static WebDriverHelper webDriverHelper;
+    // products extracted from every site of a search when the request does not tell
+    private static final int PRODUCT_LIMIT = 10;
 
-    //Reading data from property file to a list
-    @Value("#{'${website.urls}'.split(',')}")
-    List<String> urls;
+    @Autowired
+    @Qualifier("scrapeExecutor")
+    private ExecutorService scrapeExecutor;
 
-    private void webDriverInit() {
-        if (driver == null) {
-            driver = scraperConfig.setupWebDriver(true);
-            WebDriverHelper.init(driver);
-        }
+    @Autowired
+    private SingleFlight<SearchCacheKey, List<ProductData>> scrapeFlights;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private ProductStore productStore;
+
+    @Autowired
+    private SiteAdapterRegistry siteAdapters;
+
+    @Autowired
+    private ResultCrawler resultCrawler;
+
+    @Autowired
+    private ListingTracker listingTracker;
+
+    @Autowired
+    private KeywordPopularity keywordPopularity;
+
+    @Autowired
+    private ScrapeMetrics scrapeMetrics;
+
+    // upper bound of totalProductsToFetch, whatever the request asks for
+    @Value("${scraper.crawl.max-products:500}")
+    private int maxProducts;
+
+    // deadline of the sites without their own timeout, counted from the start of the search
+    @Value("${scraper.site-timeout:45s}")
+    private Duration siteTimeout;
+
+    // whether a search may ask for its trace
+    @Value("${scraper.tracing.enabled:true}")
+    private boolean tracingEnabled;
+
+    @Override
+    public Set<ProductData> getProducts() {
+        return new HashSet<>(productStore.getAll());
     }
 
-    private  void webDriverRelease() {
-        WebDriverHelper.shutDownScraper();
-        driver = null;
+    @Override
+    public Set<ProductData> getProductsByKeyword(String keyword) {
+        return searchProducts(keyword).getProducts();
     }
 
     @Override
-    public Set<ProductData> getProducts() {
-        // init web driver
-        webDriverInit();
-        String filePath = "./data/products.csv";
-
-        Set<ProductData> responseProducts = new HashSet<>();
-            List<ProductData> products = new ArrayList<>();
-            try (CSVReader csvReader = new CSVReader(new FileReader(Paths.get(filePath).toFile()))) {
-                List<String[]> records = csvReader.readAll();
-                records.remove(0); // Remove header row
-
-                for (String[] record : records) {
-                    ProductData responseProduct = new ProductData();
-                    if (record.length == 6) {
-                        responseProduct.setName(record[1]);
-                        responseProduct.setBrand(record[2]);
-                        responseProduct.setPrice(record[3]);
-                        responseProduct.setImage(record[4]);
-                        responseProduct.setUrl(record[5]);
-                        if (responseProduct.getName() != null)
-                            responseProducts.add(responseProduct);
-                    }
-                }
-            } catch (IOException | CsvException e) {
-                e.printStackTrace();
-            }
+    public SearchResult searchProducts(String keyword) {
+        return searchProducts(keyword, SearchListener.NONE);
+    }
 
-        return responseProducts;
+    @Override
+    public SearchResult searchProducts(String keyword, SearchListener listener) {
+        ProductScraperParameters parameters = new ProductScraperParameters();
+        parameters.setKeywords(keyword);
+        return searchProducts(parameters, listener);
     }
 
     @Override
-    public Set<ProductData> getProductsByKeyword(String keyword) {
-        // init web driver
-        webDriverInit();
-
-        Set<ProductData> responseProducts = new HashSet<>();
-        //Traversing through the urls
-        for (String url: urls) {
-            String fullUrl = url + keyword;
-            driver.get(fullUrl);
-            WebDriverHelper.waitInSeconds(10);
-
-            if (url.contains("zehrs")) {
-                extractDataFromZehrs(responseProducts);
+    public List<ProductData> refresh(String siteName, String keyword, Duration ttl) {
+        SiteAdapter site = siteAdapters.get(siteName);
+        SearchQuery query = new SearchQuery(keyword, PRODUCT_LIMIT, null);
+        SearchCacheKey key = query.keyFor(site);
+        return ScrapeContext.callForSite(site.getName(),
+                () -> searchResultCache.refresh(key, () -> scrapeSiteOnce(key, site, query, product -> { }), ttl));
+    }
+
+    @Override
+    public SearchResult searchProducts(ProductScraperParameters parameters, SearchListener listener) {
+        String keyword = parameters.getKeywords();
+        if (parameters.isRecordPopularity()) keywordPopularity.record(keyword);
+        Long requested = parameters.getTotalProductsToFetch();
+        int limit = requested == null || requested <= 0 ? PRODUCT_LIMIT : (int) Math.min(requested, maxProducts);
+        SearchQuery query = new SearchQuery(keyword, limit, StringUtils.trimToNull(parameters.getSortBy()));
+
+        ScrapeTrace trace = tracingEnabled && parameters.isTrace() ? new ScrapeTrace() : null;
+        SearchResult result = ScrapeContext.callTraced(trace, () -> scrapeMetrics.time("search", () -> search(keyword, query, listener)));
+        if (trace != null) result.setTrace(trace.finish());
+        return result;
+    }
+
+    private SearchResult search(String keyword, SearchQuery query, SearchListener listener) {
+        SearchResult result = new SearchResult();
+        result.setKeyword(keyword);
+
+        // fan out, every site is scraped on its own worker and browser session
+        long start = System.nanoTime();
+        CompletionService<List<ProductData>> completion = new ExecutorCompletionService<>(scrapeExecutor);
+        Map<Future<List<ProductData>>, SiteScrape> pending = new LinkedHashMap<>();
+        for (SiteAdapter site : siteAdapters.getEnabled()) {
+            SiteScrape scrape = new SiteScrape(site.getName(), timeoutOf(site), start, listener);
+            pending.put(completion.submit(() -> scrape.run(site, query)), scrape);
+        }
+
+        // every site has its own deadline counted from the fan-out, sites are reported in the order they finish
+        try {
+            while (!pending.isEmpty()) {
+                long remaining = pending.values().stream().mapToLong(scrape -> scrape.deadline).min().getAsLong() - System.nanoTime();
+                Future<List<ProductData>> future = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                if (future == null) {
+                    expire(pending, result, start);
+                    continue;
+                }
+
+                SiteScrape scrape = pending.remove(future);
+                SiteResult siteResult = scrape.newResult(start);
+                try {
+                    List<ProductData> siteProducts = future.get();
+                    result.getProducts().addAll(siteProducts);
+                    siteResult.setStatus(SiteStatus.OK);
+                    siteResult.setProductCount(siteProducts.size());
+                } catch (ExecutionException e) {
+                    siteResult.setStatus(SiteStatus.FAILED);
+                    siteResult.setError(String.valueOf(e.getCause().getMessage()));
+                }
+                scrape.complete(siteResult, result);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // whatever is still running belongs to an interrupted search
+        for (Map.Entry<Future<List<ProductData>>, SiteScrape> entry : pending.entrySet()) {
+            entry.getKey().cancel(true);
+            SiteResult siteResult = entry.getValue().newResult(start);
+            siteResult.setStatus(SiteStatus.FAILED);
+            siteResult.setError("Search interrupted");
+            entry.getValue().complete(siteResult, result);
+        }
+        return result;
+    }
+
+    /**
+     * Cancels the scrapes whose site missed its deadline and reports them as timed out.
+     */
+    private void expire(Map<Future<List<ProductData>>, SiteScrape> pending, SearchResult result, long start) {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Future<List<ProductData>>, SiteScrape>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Future<List<ProductData>>, SiteScrape> entry = it.next();
+            SiteScrape scrape = entry.getValue();
+            if (scrape.deadline - now > 0) continue;
+            it.remove();
+            entry.getKey().cancel(true);
+            SiteResult siteResult = scrape.newResult(start);
+            siteResult.setStatus(SiteStatus.TIMEOUT);
+            siteResult.setError("No result within " + scrape.timeout);
+            scrape.complete(siteResult, result);
         }
-        // release web driver
-        webDriverRelease();
+    }
+
+    private Duration timeoutOf(SiteAdapter site) {
+        return site.getTimeout() != null ? site.getTimeout() : siteTimeout;
+    }
 
-        return responseProducts;
+    private List<ProductData> scrapeSite(SiteAdapter site, SearchQuery query, Consumer<ProductData> sink) {
+        SearchCacheKey key = query.keyFor(site);
+        return searchResultCache.get(key, () -> scrapeSiteOnce(key, site, query, sink));
     }
 
-    private void extractDataFromZehrs(Set<ProductData> responseProducts) {
+    // identical concurrent scrapes of a site share one execution, every caller keeps its own timeout
+    private List<ProductData> scrapeSiteOnce(SearchCacheKey key, SiteAdapter site, SearchQuery query, Consumer<ProductData> sink) {
         try {
-            // Find product elements
-            MainPage mainPage = new MainPage(driver);
+            return scrapeFlights.execute(key, () -> scrapeSiteUncached(key, site, query, sink), timeoutOf(site));
+        } catch (TimeoutException e) {
+            throw new ScrapeException("No result from " + site.getName() + " within " + timeoutOf(site), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScrapeException("Interrupted while waiting for " + site.getName(), e);
+        }
+    }
+
+    private List<ProductData> scrapeSiteUncached(SearchCacheKey key, SiteAdapter site, SearchQuery query, Consumer<ProductData> sink) {
+        ResultCrawler.Listing listing = scrapeMetrics.time("crawl",
+                () -> resultCrawler.crawlListing(site, query.keyword, query.sortBy, query.limit, sink));
+        List<ProductData> products = listing.getProducts();
+        // an abandoned scrape writes nothing, its crawl may be cut short and an interrupted write would close
+        // the store file channel
+        if (Thread.currentThread().isInterrupted()) return products;
+        // only fresh scrapes are persisted, cache hits are already in the store, and only what changed is written
+        scrapeMetrics.run("store.write", () -> {
+            productStore.putAll(products);
+            List<String> keys = products.stream().map(ProductStore::keyOf).collect(Collectors.toList());
+            productStore.deleteAll(listingTracker.update(key, keys, listing.isComplete()));
+        });
+        return products;
+    }
 
-            String csvFile = "data/products.csv";
-            CSVWriter writer = new CSVWriter(new FileWriter(csvFile));
-            String[] header = {"No", "Product Name", "Brand", "Price", "Image URL", "Product URL"};
-            writer.writeNext(header);
+    /**
+     * Keyword, product count and sort order of a search, the same for all its sites.
+     */
+    private static final class SearchQuery {
+        private final String keyword;
+        private final int limit;
+        private final String sortBy;
 
-            int count = 1;
-            int limitCheck = 1;
-            List<WebElement> searchProducts = mainPage.searchProducts;
-            WebDriverHelper.waitInSeconds(10);
-            for (WebElement product: searchProducts) {
-                ProductData responseProduct = new ProductData();
+        private SearchQuery(String keyword, int limit, String sortBy) {
+            this.keyword = keyword;
+            this.limit = limit;
+            this.sortBy = sortBy;
+        }
 
-                try {
-                    WebElement we = product.findElement(By.cssSelector("span.product-name__item--name"));
-                    if (we != null && !StringUtils.isEmpty(we.getText()) ) {
-                        responseProduct.setName(we.getText());
-                    }
-
-                    we = product.findElement(By.cssSelector("span.product-name__item--brand"));
-                    if (we != null && !StringUtils.isEmpty(we.getText()) ) {
-                        responseProduct.setBrand(we.getText());
-                    }
-
-                    try {
-                        we = product.findElement(By.cssSelector("span.selling-price-list__item__price--now-price__value"));
-                    } catch (NoSuchElementException e) {
-                        try {
-                            we = product.findElement(By.cssSelector("span.selling-price-list__item__price--sale__value"));
-                        }  catch (NoSuchElementException e2) {
-                            // do nothing
-                        }
-                    }
-                    assert we != null;
-                    responseProduct.setPrice(we.getText());
-
-                    we = product.findElement(By.className("responsive-image--product-tile-image"));
-                    if (we != null && !StringUtils.isEmpty(we.getAttribute("src"))) {
-                        responseProduct.setImage(we.getAttribute("src"));
-                    }
-
-                    we = product.findElement(By.className("product-tile__details__info__name__link"));
-                    if (we != null && !StringUtils.isEmpty(we.getAttribute("href"))) {
-                        responseProduct.setUrl(we.getAttribute("href"));
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+        private SearchCacheKey keyFor(SiteAdapter site) {
+            // the default search keeps the plain site and keyword entry
+            return limit == PRODUCT_LIMIT && sortBy == null
+                    ? new SearchCacheKey(site.getName(), keyword)
+                    : new SearchCacheKey(site.getName(), keyword, limit, sortBy);
+        }
+    }
 
-                if (responseProduct.getName() != null) {
-                    // && responseProduct.getBrand() != null && responseProduct.getPrice() != null && responseProduct.getImage() != null && responseProduct.getUrl() != null) {
-                    String[] data = { String.valueOf(count++), responseProduct.getName(), responseProduct.getBrand(), responseProduct.getPrice(), responseProduct.getImage(), responseProduct.getUrl() };
-                    writer.writeNext(data);
-                    if (responseProduct.getName() != null) responseProducts.add(responseProduct);
-                    limitCheck++;
-                    if (limitCheck > 10) {
-                        break;
-                    }
-                }
+    /**
+     * Progress of one site of a search. Products reach the listener live when this search runs the scrape itself,
+     * or all at once when they come from the cache or from an identical search already scraping the site.
+     */
+    private final class SiteScrape implements Consumer<ProductData> {
+        private final String site;
+        private final Duration timeout;
+        private final long deadline;
+        private final SearchListener listener;
+        private final Set<ProductData> emitted = Collections.newSetFromMap(new IdentityHashMap<>());
+        // the listener may write to the client, a lock does not pin a virtual thread to its carrier while it blocks
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean closed;
+
+        private SiteScrape(String site, Duration timeout, long start, SearchListener listener) {
+            this.site = site;
+            this.timeout = timeout;
+            this.deadline = start + timeout.toNanos();
+            this.listener = listener;
+        }
+
+        private List<ProductData> run(SiteAdapter site, SearchQuery query) {
+            List<ProductData> products = ScrapeContext.callForSite(site.getName(),
+                    () -> scrapeMetrics.time("site", () -> scrapeSite(site, query, this)));
+            products.forEach(this);
+            return products;
+        }
+
+        @Override
+        public void accept(ProductData product) {
+            lock.lock();
+            try {
+                // products of a site that already completed, or of a background refresh, are not this search's business
+                if (closed || !emitted.add(product)) return;
+                listener.onProduct(site, product);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private SiteResult newResult(long start) {
+            SiteResult siteResult = new SiteResult();
+            siteResult.setSite(site);
+            siteResult.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return siteResult;
+        }
 
+        private void complete(SiteResult siteResult, SearchResult result) {
+            lock.lock();
+            try {
+                closed = true;
+            } finally {
+                lock.unlock();
             }
-            // Close CSV writer and browser
-            writer.close();
-        } catch (IOException ex) {
-            ex.printStackTrace();
+            result.getSites().add(siteResult);
+            scrapeMetrics.siteCompleted(site, siteResult.getStatus());
+            listener.onSiteComplete(siteResult);
         }
     }
 }
@@ -0,0 +1,159 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ResourceBlockingSpec;
+import com.scraper.api.site.SiteAdapter;
+import com.scraper.api.site.SiteAdapterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the browser from loading the subresources a site does not need for a scrape, through the DevTools
+ * {@code Network.setBlockedURLs} command sent before every page load. The profile comes from the {@link SiteAdapter}
+ * of the page host, and a share of the page loads runs without blocking to measure what the blocking saves.
+ */
+@Slf4j
+@Component
+public class ResourceBlocker {
+
+    // [requests, bytes transferred] of the document and every resource it loaded
+    private static final String TRANSFER_SCRIPT = ""
+            + "var entries = performance.getEntriesByType('navigation').concat(performance.getEntriesByType('resource'));"
+            + "var bytes = 0;"
+            + "for (var i = 0; i < entries.length; i++) { bytes += entries[i].transferSize || 0; }"
+            + "return [entries.length, bytes];";
+
+    private final boolean enabled;
+    private final double baselineSampleRate;
+    private final Map<String, ResourceBlockingSpec> profiles = new HashMap<>();
+
+    private final Usage blocked = new Usage();
+    private final Usage baseline = new Usage();
+    private final LongAdder unsupported = new LongAdder();
+
+    public ResourceBlocker(SiteAdapterRegistry siteAdapters,
+                           @Value("${scraper.browser.blocking.enabled:true}") boolean enabled,
+                           @Value("${scraper.browser.blocking.baseline-sample-rate:0.02}") double baselineSampleRate) {
+        this.enabled = enabled;
+        this.baselineSampleRate = baselineSampleRate;
+        siteAdapters.getAll().forEach(site -> profiles.put(site.getHost(), site.getResourceBlocking()));
+    }
+
+    /**
+     * Sets the blocked URLs of the site about to be loaded in the driver, or clears them for a baseline page.
+     * Pooled sessions load pages of every site, so the list is always set, even when empty.
+     *
+     * @return Whether resources are blocked for this page load.
+     */
+    public boolean apply(WebDriver driver, String url) {
+        ResourceBlockingSpec spec = enabled ? profiles.getOrDefault(hostOf(url), ResourceBlockingSpec.NONE) : ResourceBlockingSpec.NONE;
+        boolean blocking = !spec.isEmpty() && ThreadLocalRandom.current().nextDouble() >= baselineSampleRate;
+        if (!(driver instanceof HasCdp)) {
+            if (blocking) unsupported.increment();
+            return false;
+        }
+        try {
+            HasCdp cdp = (HasCdp) driver;
+            cdp.executeCdpCommand("Network.enable", Collections.emptyMap());
+            cdp.executeCdpCommand("Network.setBlockedURLs",
+                    Collections.singletonMap("urls", blocking ? spec.blockedUrlPatterns() : Collections.emptyList()));
+            return blocking;
+        } catch (WebDriverException e) {
+            log.debug("Unable to set the blocked URLs: {}", e.getMessage());
+            if (blocking) unsupported.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Records the requests and bytes of the page loaded in the driver, once it is ready.
+     *
+     * @param blocking   What {@link #apply} answered for this page.
+     * @param loadMillis Time from the start of the page load to readiness.
+     */
+    public void record(WebDriver driver, boolean blocking, long loadMillis) {
+        try {
+            Object result = ((JavascriptExecutor) driver).executeScript(TRANSFER_SCRIPT);
+            if (!(result instanceof List) || ((List<?>) result).size() != 2) return;
+            List<?> values = (List<?>) result;
+            (blocking ? blocked : baseline).add(asLong(values.get(0)), asLong(values.get(1)), loadMillis);
+        } catch (WebDriverException e) {
+            log.debug("Unable to read the page transfer sizes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Page loads with and without blocking, and what the blocked ones saved compared to the baseline average.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("blockedPages", blocked.pages.sum());
+        stats.put("baselinePages", baseline.pages.sum());
+        stats.put("unsupportedPages", unsupported.sum());
+        stats.put("averageRequests", blocked.averageRequests());
+        stats.put("averageBytes", blocked.averageBytes());
+        stats.put("averageLoadMillis", blocked.averageLoadMillis());
+        stats.put("baselineAverageRequests", baseline.averageRequests());
+        stats.put("baselineAverageBytes", baseline.averageBytes());
+        stats.put("baselineAverageLoadMillis", baseline.averageLoadMillis());
+        boolean measured = blocked.pages.sum() > 0 && baseline.pages.sum() > 0;
+        stats.put("requestsSaved", measured ? Math.max(0, (baseline.averageRequests() - blocked.averageRequests()) * blocked.pages.sum()) : null);
+        stats.put("bytesSaved", measured ? Math.max(0, (baseline.averageBytes() - blocked.averageBytes()) * blocked.pages.sum()) : null);
+        return stats;
+    }
+
+    private static long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static final class Usage {
+        private final LongAdder pages = new LongAdder();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder loadMillis = new LongAdder();
+
+        private void add(long pageRequests, long pageBytes, long pageLoadMillis) {
+            pages.increment();
+            requests.add(pageRequests);
+            bytes.add(pageBytes);
+            loadMillis.add(pageLoadMillis);
+        }
+
+        private long averageRequests() {
+            long count = pages.sum();
+            return count == 0 ? 0 : requests.sum() / count;
+        }
+
+        private long averageBytes() {
+            long count = pages.sum();
+            return count == 0 ? 0 : bytes.sum() / count;
+        }
+
+        private long averageLoadMillis() {
+            long count = pages.sum();
+            return count == 0 ? 0 : loadMillis.sum() / count;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.scraper.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON responses serialized once per version of their data, with their gzip form and ETag, so repeated reads of
+ * unchanged data skip Jackson and compression and a client holding the ETag gets a 304.
+ * Payloads are keyed by the endpoint and its parameters and bounded by memory.
+ */
+@Component
+public class ResponsePayloadCache {
+
+    // smaller bodies are not worth the gzip header and the CPU
+    private static final int MIN_GZIP_BYTES = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Payload> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    public ResponsePayloadCache(ObjectMapper objectMapper,
+                                @Value("${scraper.payload-cache.max-memory:32MB}") DataSize maxMemory) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMemory.toBytes())
+                .weigher((String key, Payload payload) -> payload.json.length + (payload.gzip == null ? 0 : payload.gzip.length))
+                .build();
+    }
+
+    /**
+     * Returns the payload cached for the key when it was built for this version of the data, or serializes the body.
+     *
+     * @param version Changes whenever the body would serialize differently, a store sequence or a content hash.
+     * @param body    Builds the object to serialize, only called when the cached payload is missing or outdated.
+     */
+    public Payload get(String key, long version, Supplier<Object> body) {
+        Payload cached = cache.getIfPresent(key);
+        if (cached != null && cached.version == version) {
+            hits.increment();
+            return cached;
+        }
+        Payload payload = build(version, body.get());
+        builds.increment();
+        cache.put(key, payload);
+        return payload;
+    }
+
+    public void countNotModified() {
+        notModified.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.estimatedSize());
+        stats.put("weightedBytes", cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        stats.put("hits", hits.sum());
+        stats.put("builds", builds.sum());
+        stats.put("notModified", notModified.sum());
+        return stats;
+    }
+
+    private Payload build(long version, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new Payload(version, etag(json), json, json.length < MIN_GZIP_BYTES ? null : gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize the response", e);
+        }
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            StringBuilder tag = new StringBuilder(34).append('"');
+            for (int i = 0; i < 16; i++) {
+                tag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return tag.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A serialized response: the JSON, its gzip form when large enough, and the strong ETag of each.
+     */
+    public static final class Payload {
+        private final long version;
+        private final String etag;
+        private final byte[] json;
+        private final byte[] gzip;
+
+        private Payload(long version, String etag, byte[] json, byte[] gzip) {
+            this.version = version;
+            this.etag = etag;
+            this.json = json;
+            this.gzip = gzip;
+        }
+
+        /**
+         * ETag of the representation, the gzip one is another representation and gets its own tag.
+         */
+        public String getEtag(boolean gzipped) {
+            return gzipped ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return The gzipped JSON, null when the JSON is too small to be compressed.
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        /**
+         * Whether an {@code If-None-Match} header names one of the representations of this payload.
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) return false;
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.equals("*")) return true;
+                // weak comparison, as required for If-None-Match
+                if (candidate.startsWith("W/")) candidate = candidate.substring(2);
+                if (candidate.equals(getEtag(false)) || candidate.equals(getEtag(true))) return true;
+            }
+            return false;
+        }
+    }
+}
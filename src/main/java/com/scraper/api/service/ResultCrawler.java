@@ -0,0 +1,207 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.PaginationSpec;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ScrapeEngineType;
+import com.scraper.api.site.SiteAdapter;
+import com.scraper.api.store.ProductStore;
+import com.scraper.api.untils.PriceParser;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Crawls the result pages of a site until the requested number of products is extracted.
+ * The next page loads while the current one is extracted, but only when the pages already loading cannot cover
+ * the target, and the crawl stops at the first short page. A short page only ends the listing when it settled,
+ * a page cut short by its readiness timeout may just be missing tiles. Sites with a "load more" button are crawled in one
+ * browser session by the engine instead.
+ */
+@Slf4j
+@Component
+public class ResultCrawler {
+
+    // pages loading at the same time for one crawl, the current one and the prefetched one
+    private static final int PREFETCH_DEPTH = 2;
+
+    private final Map<ScrapeEngineType, ScrapeEngine> engines = new EnumMap<>(ScrapeEngineType.class);
+
+    @Autowired
+    @Qualifier("pageExecutor")
+    private ExecutorService pageExecutor;
+
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong prefetched = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+
+    @Autowired
+    public void setEngines(List<ScrapeEngine> scrapeEngines) {
+        scrapeEngines.forEach(engine -> engines.put(engine.getType(), engine));
+    }
+
+    /**
+     * Crawls the search results of a site.
+     *
+     * @param site    The site to crawl.
+     * @param keyword The search keyword.
+     * @param sortBy  Sort order, null for the site default.
+     * @param limit   Products to extract at most.
+     * @param sink    Receives every new product as soon as it is extracted.
+     * @return The products, in page order and without the ones listed twice.
+     */
+    public List<ProductData> crawl(SiteAdapter site, String keyword, String sortBy, int limit, Consumer<ProductData> sink) {
+        return crawlListing(site, keyword, sortBy, limit, sink).getProducts();
+    }
+
+    /**
+     * Crawls the search results of a site like {@link #crawl}, and tells whether the crawl reached the end of them.
+     */
+    public Listing crawlListing(SiteAdapter site, String keyword, String sortBy, int limit, Consumer<ProductData> sink) {
+        ScrapeEngine engine = engines.get(site.getEngine());
+        PaginationSpec pagination = site.getPagination();
+        Deduplicator products = new Deduplicator(limit, sink);
+
+        if (pagination.getLoadMoreSelector() != null) {
+            pages.incrementAndGet();
+            String url = site.searchUrl(keyword, sortBy, pagination.getFirstPage());
+            engine.scrapeBatches(url, site.getTileSpec(), site.getReadiness(), pagination, limit, products)
+                    .forEach(products::add);
+            // the engine does not tell why it stopped loading more
+            return new Listing(products.list(), false);
+        }
+
+        // without a known page size a page is assumed to hold the whole target
+        int pageSize = pagination.getPageSize() > 0 ? Math.min(pagination.getPageSize(), limit) : limit;
+        int lastPage = pagination.getFirstPage() + Math.max(1, pagination.getMaxPages()) - 1;
+        int nextPage = pagination.getFirstPage();
+        int crawled = 0;
+        boolean complete = false;
+        Deque<Future<ScrapeEngine.Page>> loading = new ArrayDeque<>();
+        try {
+            while (true) {
+                while (nextPage <= lastPage && loading.size() < PREFETCH_DEPTH
+                        && products.size() + loading.size() * pageSize < limit) {
+                    String url = site.searchUrl(keyword, sortBy, nextPage++);
+                    if (!loading.isEmpty()) prefetched.incrementAndGet();
+                    loading.addLast(pageExecutor.submit(() -> engine.scrapePage(url, site.getTileSpec(), site.getReadiness(), pageSize, products)));
+                }
+                if (loading.isEmpty()) break;
+
+                ScrapeEngine.Page page;
+                try {
+                    page = loading.pollFirst().get();
+                } catch (ExecutionException e) {
+                    // later pages only add to what is already there
+                    if (crawled == 0) throw asScrapeException(e.getCause());
+                    log.warn("Stopping the crawl of {} on a failed page: {}", site.getName(), e.getCause().getMessage());
+                    break;
+                }
+                crawled++;
+                pages.incrementAndGet();
+                page.getProducts().forEach(products::add);
+                // a short page is the last one, unless it did not settle or the crawl is being abandoned
+                boolean shortPage = page.getProducts().size() < pageSize;
+                complete = shortPage && page.isSettled() && !Thread.currentThread().isInterrupted();
+                if (shortPage || products.size() >= limit) break;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScrapeException("Interrupted while crawling " + site.getName(), e);
+        } finally {
+            for (Future<ScrapeEngine.Page> future : loading) {
+                if (future.cancel(true)) discarded.incrementAndGet();
+            }
+        }
+        return new Listing(products.list(), complete);
+    }
+
+    public long getPages() {
+        return pages.get();
+    }
+
+    public long getPrefetched() {
+        return prefetched.get();
+    }
+
+    public long getDiscarded() {
+        return discarded.get();
+    }
+
+    private static RuntimeException asScrapeException(Throwable cause) {
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new ScrapeException("Page scrape failed", cause);
+    }
+
+    /**
+     * Products of a crawl. The listing is complete when the crawl ended on a settled last result page, and not on
+     * the product limit, the page limit, a failed page, a page timeout or an interrupt.
+     */
+    @Getter
+    public static final class Listing {
+        private final List<ProductData> products;
+        private final boolean complete;
+
+        private Listing(List<ProductData> products, boolean complete) {
+            this.products = products;
+            this.complete = complete;
+        }
+    }
+
+    /**
+     * Products of a crawl keyed like the store, so a product listed on two pages is kept and emitted once.
+     * Pages are extracted concurrently, so products go through here from several threads.
+     */
+    private static final class Deduplicator implements Consumer<ProductData> {
+        private final int limit;
+        private final Consumer<ProductData> sink;
+        private final Set<String> emitted = new HashSet<>();
+        private final Map<String, ProductData> products = new LinkedHashMap<>();
+
+        private Deduplicator(int limit, Consumer<ProductData> sink) {
+            this.limit = limit;
+            this.sink = sink;
+        }
+
+        // called live by the engines, the products reach the sink in extraction order
+        @Override
+        public void accept(ProductData product) {
+            // parsed before the sink may hand the product to a stream writer on another thread
+            product.setUnitPrice(PriceParser.unitPrice(product.getPrice()));
+            String key = ProductStore.keyOf(product);
+            boolean emit;
+            synchronized (this) {
+                emit = emitted.size() < limit && emitted.add(key);
+            }
+            if (emit) sink.accept(product);
+        }
+
+        // called with the pages in order once they are done
+        private synchronized void add(ProductData product) {
+            if (products.size() < limit) products.putIfAbsent(ProductStore.keyOf(product), product);
+        }
+
+        private synchronized int size() {
+            return products.size();
+        }
+
+        private synchronized List<ProductData> list() {
+            return new ArrayList<>(products.values());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.PaginationSpec;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ReadinessSpec;
+import com.scraper.api.model.ScrapeEngineType;
+import com.scraper.api.model.TileSpec;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Fetches a search result page and extracts its product tiles.
+ * Every product is handed to the sink as soon as it is extracted, then returned with the others.
+ */
+public interface ScrapeEngine {
+    ScrapeEngineType getType();
+    List<ProductData> scrape(String url, TileSpec spec, ReadinessSpec readiness, int limit, Consumer<ProductData> sink);
+
+    /**
+     * Scrapes a page like {@link #scrape}, and tells whether the page was fully rendered when it was extracted.
+     * A page read to its end is, engines waiting for the page to render tell whether the wait succeeded.
+     */
+    default Page scrapePage(String url, TileSpec spec, ReadinessSpec readiness, int limit, Consumer<ProductData> sink) {
+        return new Page(scrape(url, spec, readiness, limit, sink), true);
+    }
+
+    /**
+     * Scrapes a page listing its results in batches appended by a "load more" button, clicking it until
+     * {@code limit} products are extracted or {@link PaginationSpec#getMaxPages()} batches are loaded.
+     * Engines unable to click only scrape the first batch.
+     */
+    default List<ProductData> scrapeBatches(String url, TileSpec spec, ReadinessSpec readiness, PaginationSpec pagination,
+                                            int limit, Consumer<ProductData> sink) {
+        return scrape(url, spec, readiness, limit, sink);
+    }
+
+    /**
+     * Products of a result page. A settled page met its readiness conditions or showed the empty results element,
+     * so a short page is really the last one and not one cut short by a timeout.
+     */
+    @Getter
+    final class Page {
+        private final List<ProductData> products;
+        private final boolean settled;
+
+        public Page(List<ProductData> products, boolean settled) {
+            this.products = products;
+            this.settled = settled;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.scraper.api.service;
+
+import lombok.Getter;
+
+/**
+ * Raised when a site page cannot be fetched or scraped.
+ */
+@Getter
+public class ScrapeException extends RuntimeException {
+    // HTTP status returned by the site, -1 when the failure happened before a response
+    private final int status;
+
+    public ScrapeException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public ScrapeException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = -1;
+    }
+}
@@ -0,0 +1,258 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.JobStatus;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ScrapeJob;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.model.SiteResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs searches as background jobs so no servlet thread is held during a scrape.
+ * Jobs wait in a bounded priority queue served by a fixed number of workers, sized to the browser capacity.
+ * Submitting to a full queue is rejected instead of piling more load on the browsers.
+ */
+@Slf4j
+@Service
+public class ScrapeJobService {
+
+    private final ProductService productService;
+    private final int capacity;
+    private final Duration retention;
+    private final ThreadPoolExecutor workers;
+
+    private final Map<String, JobTask> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    public ScrapeJobService(ProductService productService,
+                            @Value("${scraper.jobs.workers:${scraper.pool.max-size:2}}") int workerCount,
+                            @Value("${scraper.jobs.queue-capacity:100}") int capacity,
+                            @Value("${scraper.jobs.retention:10m}") Duration retention) {
+        this.productService = productService;
+        this.capacity = capacity;
+        this.retention = retention;
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "scrape-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queues a search.
+     *
+     * @param keyword  The keyword to search.
+     * @param priority Jobs with a higher priority are started first, equal priorities run in submission order.
+     * @return The queued job.
+     * @throws JobQueueFullException When the queue is at capacity.
+     */
+    public ScrapeJob submit(String keyword, int priority) {
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new JobQueueFullException("Job queue is full (" + capacity + " jobs waiting)");
+        }
+        ScrapeJob job = new ScrapeJob(UUID.randomUUID().toString(), keyword, priority);
+        JobTask task = new JobTask(job, submitted.incrementAndGet());
+        jobs.put(job.getId(), task);
+        workers.execute(task);
+        return job;
+    }
+
+    public ScrapeJob get(String id) {
+        JobTask task = jobs.get(id);
+        return task == null ? null : task.job;
+    }
+
+    /**
+     * Cancels a job, removing it from the queue or interrupting its search. Its partial result is dropped.
+     */
+    public ScrapeJob cancel(String id) {
+        JobTask task = jobs.get(id);
+        if (task == null) return null;
+        task.cancel();
+        return task.job;
+    }
+
+    /**
+     * Registers a listener for the progress of a job. A job already finished reports its final status right away.
+     *
+     * @return false when the job does not exist.
+     */
+    public boolean subscribe(String id, JobListener listener) {
+        JobTask task = jobs.get(id);
+        if (task == null) return false;
+        task.listeners.add(listener);
+        if (task.job.getStatus().isFinished()) {
+            task.listeners.remove(listener);
+            listener.onStatus(task.job);
+        }
+        return true;
+    }
+
+    /**
+     * Forgets finished jobs once their retention is over.
+     */
+    @Scheduled(fixedDelayString = "${scraper.jobs.purge-interval:60000}")
+    public void purgeFinishedJobs() {
+        long expiry = System.currentTimeMillis() - retention.toMillis();
+        jobs.values().removeIf(task -> task.job.getFinishedAt() != null && task.job.getFinishedAt() < expiry);
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public int getRunning() {
+        return running.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getWorkers() {
+        return workers.getMaximumPoolSize();
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public int getRetained() {
+        return jobs.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Progress of a job: the search events plus every status change.
+     */
+    public interface JobListener extends SearchListener {
+        void onStatus(ScrapeJob job);
+    }
+
+    private final class JobTask implements Runnable, Comparable<JobTask>, SearchListener {
+        private final ScrapeJob job;
+        private final long sequence;
+        private final List<JobListener> listeners = new CopyOnWriteArrayList<>();
+        // worker running the search, interrupted on cancellation
+        private Thread runner;
+
+        private JobTask(ScrapeJob job, long sequence) {
+            this.job = job;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                // cancelled while it was waiting in the queue
+                if (job.getStatus() != JobStatus.QUEUED) return;
+                queued.decrementAndGet();
+                job.setStatus(JobStatus.RUNNING);
+                job.setStartedAt(System.currentTimeMillis());
+                runner = Thread.currentThread();
+            }
+            running.incrementAndGet();
+            notifyStatus();
+
+            SearchResult result = null;
+            String error = null;
+            try {
+                result = productService.searchProducts(job.getKeyword(), this);
+            } catch (RuntimeException e) {
+                error = String.valueOf(e.getMessage());
+                log.warn("Job {} failed: {}", job.getId(), error);
+            }
+
+            boolean finishedHere;
+            synchronized (this) {
+                runner = null;
+                finishedHere = job.getStatus() == JobStatus.RUNNING;
+                if (finishedHere) {
+                    job.setResult(result);
+                    job.setError(error);
+                    job.setStatus(error == null ? JobStatus.DONE : JobStatus.FAILED);
+                    job.setFinishedAt(System.currentTimeMillis());
+                }
+            }
+            // a cancellation may have interrupted this worker, it must not leak into the next job
+            Thread.interrupted();
+            running.decrementAndGet();
+            if (finishedHere) notifyStatus();
+        }
+
+        private void cancel() {
+            synchronized (this) {
+                if (job.getStatus().isFinished()) return;
+                if (job.getStatus() == JobStatus.QUEUED) {
+                    workers.remove(this);
+                    queued.decrementAndGet();
+                } else if (runner != null) {
+                    runner.interrupt();
+                }
+                job.setStatus(JobStatus.CANCELLED);
+                job.setResult(null);
+                job.setFinishedAt(System.currentTimeMillis());
+            }
+            notifyStatus();
+        }
+
+        @Override
+        public void onProduct(String site, ProductData product) {
+            if (job.getStatus() != JobStatus.RUNNING) return;
+            listeners.forEach(listener -> listener.onProduct(site, product));
+        }
+
+        @Override
+        public void onSiteComplete(SiteResult result) {
+            if (job.getStatus() != JobStatus.RUNNING) return;
+            listeners.forEach(listener -> listener.onSiteComplete(result));
+        }
+
+        private void notifyStatus() {
+            listeners.forEach(listener -> listener.onStatus(job));
+            if (job.getStatus().isFinished()) listeners.clear();
+        }
+
+        @Override
+        public int compareTo(JobTask other) {
+            if (priority() != other.priority()) return Integer.compare(other.priority(), priority());
+            return Long.compare(sequence, other.sequence);
+        }
+
+        private int priority() {
+            return job.getPriority();
+        }
+    }
+}
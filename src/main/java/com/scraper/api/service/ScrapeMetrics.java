@@ -0,0 +1,111 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ScrapeEngineType;
+import com.scraper.api.model.SiteStatus;
+import com.scraper.api.untils.ScrapeContext;
+import com.scraper.api.untils.ScrapeTrace;
+import com.scraper.api.untils.SelectorFallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the scrape phases, tagged with the site of the current {@link ScrapeContext}.
+ * Every phase is a {@value #PHASE_TIMER} timer tagged with its phase, site, outcome and exception, and a span of the
+ * search trace when the search is traced.
+ * Phases: search, site, crawl, politeness.wait, session.acquire, page.load, page.readiness, page.fetch, tiles.extract
+ * and store.write. A page fetched over HTTP is extracted while it streams in, so page.fetch includes the extraction.
+ */
+@Component
+public class ScrapeMetrics {
+
+    public static final String PHASE_TIMER = "scraper.phase";
+
+    // site tag of the phases spanning every site
+    private static final String ALL_SITES = "all";
+
+    private final MeterRegistry registry;
+
+    public ScrapeMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Times the work as a phase of the current scrape.
+     */
+    public <T> T time(String phase, Supplier<T> work) {
+        ScrapeContext context = ScrapeContext.current();
+        long start = System.nanoTime();
+        String exception = null;
+        try {
+            return work.get();
+        } catch (RuntimeException | Error e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long end = System.nanoTime();
+            String site = context.getSite() != null ? context.getSite() : ALL_SITES;
+            Timer.builder(PHASE_TIMER)
+                    .description("Duration of a scrape phase")
+                    .tag("phase", phase)
+                    .tag("site", site)
+                    .tag("outcome", exception == null ? "success" : "error")
+                    .tag("exception", exception == null ? "none" : exception)
+                    .register(registry)
+                    .record(end - start, TimeUnit.NANOSECONDS);
+            ScrapeTrace trace = context.getTrace();
+            if (trace != null) trace.add(phase, context.getSite(), start, end, exception);
+        }
+    }
+
+    public void run(String phase, Runnable work) {
+        time(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Counts the products extracted from a page of the current site, and the fields found by a fallback selector.
+     */
+    public void extracted(ScrapeEngineType engine, int products, SelectorFallbacks fallbacks) {
+        String site = site();
+        Counter.builder("scraper.tiles.extracted")
+                .description("Products extracted from the result tiles")
+                .tag("site", site)
+                .tag("engine", engine.name().toLowerCase(Locale.ROOT))
+                .register(registry)
+                .increment(products);
+        for (Map.Entry<String, Integer> fallback : fallbacks.getCounts().entrySet()) {
+            Counter.builder("scraper.tiles.fallback")
+                    .description("Tile fields found by a fallback selector")
+                    .tag("site", site)
+                    .tag("field", fallback.getKey())
+                    .register(registry)
+                    .increment(fallback.getValue());
+        }
+    }
+
+    /**
+     * Counts the outcome of a site in a search: ok, failed or timed out.
+     */
+    public void siteCompleted(String site, SiteStatus status) {
+        Counter.builder("scraper.site.results")
+                .description("Outcome of the sites of the searches")
+                .tag("site", site)
+                .tag("status", status.name().toLowerCase(Locale.ROOT))
+                .register(registry)
+                .increment();
+    }
+
+    private static String site() {
+        String site = ScrapeContext.current().getSite();
+        return site != null ? site : ALL_SITES;
+    }
+}
@@ -0,0 +1,25 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SiteResult;
+
+/**
+ * Receives the progress of a search while it runs. Callbacks come from the scrape worker threads.
+ */
+public interface SearchListener {
+
+    SearchListener NONE = new SearchListener() {
+    };
+
+    /**
+     * Called for every product as soon as it is extracted, or read from the cache.
+     */
+    default void onProduct(String site, ProductData product) {
+    }
+
+    /**
+     * Called once per site when it finished, failed or ran out of time. No product of the site follows.
+     */
+    default void onSiteComplete(SiteResult result) {
+    }
+}
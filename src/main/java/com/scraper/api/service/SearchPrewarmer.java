@@ -0,0 +1,196 @@
+package com.scraper.api.service;
+
+import com.scraper.api.config.WebDriverPool;
+import com.scraper.api.site.SiteAdapter;
+import com.scraper.api.site.SiteAdapterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scrapes the most popular keywords again at off-peak times, so the searches of the next peak hit the result cache
+ * and the store is current. A run is bounded by a browser budget: site scrapes per run, scrapes at the same time and
+ * run duration. A scrape does not start while user searches wait for a browser session.
+ */
+@Slf4j
+@Component
+public class SearchPrewarmer {
+
+    private final SearchRefresher searchRefresher;
+    private final KeywordPopularity keywordPopularity;
+    private final SiteAdapterRegistry siteAdapters;
+    private final WebDriverPool webDriverPool;
+
+    private final boolean enabled;
+    private final int top;
+    private final double minScore;
+    private final int maxScrapes;
+    private final int concurrency;
+    private final Duration maxDuration;
+    private final Duration ttl;
+
+    // Spring's scheduler has a single thread by default, a run holding it for max-duration would hold back the
+    // other scheduled tasks, the purge of the finished jobs among them
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "prewarm-run");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong scraped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile Instant lastRunAt;
+    private volatile long lastRunMillis;
+
+    public SearchPrewarmer(SearchRefresher searchRefresher,
+                           KeywordPopularity keywordPopularity,
+                           SiteAdapterRegistry siteAdapters,
+                           WebDriverPool webDriverPool,
+                           @Value("${scraper.prewarm.enabled:true}") boolean enabled,
+                           @Value("${scraper.prewarm.top:20}") int top,
+                           @Value("${scraper.prewarm.min-score:1.5}") double minScore,
+                           @Value("${scraper.prewarm.max-scrapes:40}") int maxScrapes,
+                           @Value("${scraper.prewarm.concurrency:1}") int concurrency,
+                           @Value("${scraper.prewarm.max-duration:30m}") Duration maxDuration,
+                           @Value("${scraper.prewarm.ttl:4h}") Duration ttl) {
+        this.searchRefresher = searchRefresher;
+        this.keywordPopularity = keywordPopularity;
+        this.siteAdapters = siteAdapters;
+        this.webDriverPool = webDriverPool;
+        this.enabled = enabled;
+        this.top = top;
+        this.minScore = minScore;
+        this.maxScrapes = maxScrapes;
+        this.concurrency = Math.max(1, concurrency);
+        this.maxDuration = maxDuration;
+        this.ttl = ttl;
+    }
+
+    @Scheduled(cron = "${scraper.prewarm.cron:0 30 5 * * *}")
+    public void scheduledRun() {
+        if (enabled) runner.execute(this::run);
+    }
+
+    /**
+     * Scrapes every enabled site for the hot keywords, most popular first, until the budget is spent.
+     *
+     * @return The site scrapes done, 0 when a run is already going on.
+     */
+    public int run() {
+        if (!running.compareAndSet(false, true)) return 0;
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "prewarm-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore slots = new Semaphore(concurrency);
+        AtomicInteger done = new AtomicInteger();
+        List<Future<?>> scrapes = new ArrayList<>();
+        try {
+            List<String> keywords = keywordPopularity.top(top, minScore);
+            int budget = maxScrapes;
+            for (String keyword : keywords) {
+                for (SiteAdapter site : siteAdapters.getEnabled()) {
+                    if (budget == 0 || System.nanoTime() >= deadline) {
+                        skipped.incrementAndGet();
+                        continue;
+                    }
+                    if (!awaitSlot(slots, deadline)) {
+                        skipped.incrementAndGet();
+                        continue;
+                    }
+                    budget--;
+                    scrapes.add(workers.submit(() -> {
+                        try {
+                            searchRefresher.refresh(site.getName(), keyword, ttl);
+                            scraped.incrementAndGet();
+                            done.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                            log.info("Prewarm of {} on {} failed: {}", keyword, site.getName(), e.getMessage());
+                        } finally {
+                            slots.release();
+                        }
+                    }));
+                }
+            }
+            for (Future<?> scrape : scrapes) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) break;
+                try {
+                    scrape.get(remaining, TimeUnit.NANOSECONDS);
+                } catch (Exception e) {
+                    // failures are counted by the scrape itself, a late one is cut short below
+                }
+            }
+            log.info("Prewarmed {} site scrapes for {} keywords", done.get(), keywords.size());
+            return done.get();
+        } finally {
+            workers.shutdownNow();
+            runs.incrementAndGet();
+            lastRunAt = Instant.now();
+            lastRunMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("running", running.get());
+        stats.put("runs", runs.get());
+        stats.put("scraped", scraped.get());
+        stats.put("failed", failed.get());
+        stats.put("skipped", skipped.get());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("trackedKeywords", keywordPopularity.getTracked());
+        stats.put("hotKeywords", keywordPopularity.scores(top));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    // waits for a free worker, and for the users waiting on a browser session to get one
+    private boolean awaitSlot(Semaphore slots, long deadline) {
+        try {
+            while (System.nanoTime() < deadline) {
+                if (webDriverPool.getWaiting() == 0 && slots.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    if (webDriverPool.getWaiting() == 0) return true;
+                    slots.release();
+                }
+                if (webDriverPool.getWaiting() > 0) Thread.sleep(100);
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
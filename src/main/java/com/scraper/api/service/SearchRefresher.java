@@ -0,0 +1,18 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ProductData;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Scrapes a site again for a keyword ahead of the searches, used by the {@link SearchPrewarmer}.
+ */
+public interface SearchRefresher {
+
+    /**
+     * Scrapes a site for the default search of the keyword, replacing the cached products whatever their age.
+     * The search is not counted in the keyword popularity.
+     */
+    List<ProductData> refresh(String site, String keyword, Duration ttl);
+}
@@ -0,0 +1,215 @@
+package com.scraper.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.scraper.api.config.SearchCacheProperties;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchCacheKey;
+import com.scraper.api.store.ProductCodec;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the products scraped from one site for one keyword.
+ * Entries are fresh for the TTL of their site, then served stale for {@code max-stale} while a single background
+ * refresh runs. Storage is bounded by entry count and estimated memory, eviction is Caffeine's W-TinyLFU
+ * (frequency and recency aware). Entries are held encoded by the {@link ProductCodec}, one byte array per entry,
+ * and decoded on every hit.
+ */
+@Slf4j
+@Component
+public class SearchResultCache {
+
+    // heap cost of an entry besides its encoded products: the entry, its array header and the cache node
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final SearchCacheProperties properties;
+    private final ProductCodec codec;
+    private final ExecutorService refreshExecutor;
+    private final Cache<SearchCacheKey, Entry> cache;
+    private final Set<SearchCacheKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder refreshesDropped = new LongAdder();
+
+    public SearchResultCache(SearchCacheProperties properties, ProductCodec codec,
+                             @Qualifier("refreshExecutor") ExecutorService refreshExecutor) {
+        this.properties = properties;
+        this.codec = codec;
+        this.refreshExecutor = refreshExecutor;
+
+        long maxBytes = properties.getMaxMemory().toBytes();
+        // every entry weighs at least its share of the memory budget, so the weight bound also caps the entry count
+        long minWeight = Math.max(1, maxBytes / Math.max(1, properties.getMaxEntries()));
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((SearchCacheKey key, Entry entry) -> (int) Math.min(Integer.MAX_VALUE, Math.max(minWeight, entry.bytes)))
+                .expireAfter(new Expiry<SearchCacheKey, Entry>() {
+                    @Override
+                    public long expireAfterCreate(SearchCacheKey key, Entry entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(entry.ttlMillis + properties.getMaxStale().toMillis());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(SearchCacheKey key, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(SearchCacheKey key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached products of the site for the keyword, scraping them with the loader on a miss.
+     * A stale entry is returned right away and refreshed in the background.
+     *
+     * @param key    Site and normalized search keyword.
+     * @param loader Scrapes the site, called on the caller thread on a miss.
+     * @return The products of the site.
+     */
+    public List<ProductData> get(SearchCacheKey key, Supplier<List<ProductData>> loader) {
+        if (!properties.isEnabled()) return loader.get();
+
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (!entry.isStale()) {
+                hits.increment();
+            } else {
+                staleHits.increment();
+                refreshInBackground(key, loader);
+            }
+            return entry.products(codec);
+        }
+
+        misses.increment();
+        return put(key, loader.get());
+    }
+
+    /**
+     * Scrapes the site again and replaces the cached entry, fresh for the given TTL instead of the site one.
+     */
+    public List<ProductData> refresh(SearchCacheKey key, Supplier<List<ProductData>> loader, Duration ttl) {
+        List<ProductData> products = loader.get();
+        return properties.isEnabled() ? put(key, products, ttl) : products;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures.sum();
+    }
+
+    public long getRefreshesDropped() {
+        return refreshesDropped.sum();
+    }
+
+    public long getEvictions() {
+        return cache.stats().evictionCount();
+    }
+
+    public long getSize() {
+        return cache.estimatedSize();
+    }
+
+    public long getWeightedBytes() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    public double getHitRate() {
+        long served = hits.sum() + staleHits.sum();
+        long total = served + misses.sum();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    private List<ProductData> put(SearchCacheKey key, List<ProductData> products) {
+        return put(key, products, properties.ttlFor(key.getSite()));
+    }
+
+    private List<ProductData> put(SearchCacheKey key, List<ProductData> products, Duration ttl) {
+        cache.put(key, new Entry(codec.encode(products), ttl.toMillis()));
+        return Collections.unmodifiableList(products);
+    }
+
+    private void refreshInBackground(SearchCacheKey key, Supplier<List<ProductData>> loader) {
+        // only one refresh per key, the other readers keep getting the stale entry meanwhile
+        if (!refreshing.add(key)) return;
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    put(key, loader.get());
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    refreshFailures.increment();
+                    log.warn("Background refresh of {} failed: {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the refresh threads are busy, a later hit of the stale entry tries again
+            refreshesDropped.increment();
+            refreshing.remove(key);
+        }
+    }
+
+    private static class Entry {
+        private final byte[] encoded;
+        private final long writtenAt = System.currentTimeMillis();
+        private final long ttlMillis;
+        private final long bytes;
+
+        private Entry(byte[] encoded, long ttlMillis) {
+            this.encoded = encoded;
+            this.ttlMillis = ttlMillis;
+            this.bytes = ENTRY_OVERHEAD_BYTES + encoded.length;
+        }
+
+        private List<ProductData> products(ProductCodec codec) {
+            return Collections.unmodifiableList(codec.decode(encoded));
+        }
+
+        private boolean isStale() {
+            return System.currentTimeMillis() - writtenAt >= ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.scraper.api.site;
+
+import com.scraper.api.model.PaginationSpec;
+import com.scraper.api.model.RateLimitSpec;
+import com.scraper.api.model.ReadinessSpec;
+import com.scraper.api.model.ResourceBlockingSpec;
+import com.scraper.api.model.ScrapeEngineType;
+import com.scraper.api.model.TileSpec;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * A retailer searched by the scraper and everything needed to scrape it.
+ * Adapters are Spring beans collected by the {@link SiteAdapterRegistry}, so adding a retailer means adding an adapter.
+ */
+public interface SiteAdapter {
+    String KEYWORD_PLACEHOLDER = "{keyword}";
+
+    /**
+     * Short unique name of the site, the key of its results, cache entries and stats.
+     */
+    String getName();
+
+    /**
+     * Search result page URL, with a {@value #KEYWORD_PLACEHOLDER} placeholder for the URL encoded keyword.
+     */
+    String getSearchUrlTemplate();
+
+    ScrapeEngineType getEngine();
+
+    TileSpec getTileSpec();
+
+    ReadinessSpec getReadiness();
+
+    PaginationSpec getPagination();
+
+    RateLimitSpec getRateLimit();
+
+    /**
+     * Subresources the browser does not load for this site. Pages fetched over HTTP never load subresources.
+     */
+    default ResourceBlockingSpec getResourceBlocking() {
+        return ResourceBlockingSpec.NONE;
+    }
+
+    /**
+     * Query parameter selecting the sort order of the results, null when the site cannot sort.
+     */
+    default String getSortParameter() {
+        return null;
+    }
+
+    /**
+     * Time a search gives this site to answer, counted from the fan-out. Null for the {@code scraper.site-timeout} default.
+     */
+    default Duration getTimeout() {
+        return null;
+    }
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    default String searchUrl(String keyword) {
+        return getSearchUrlTemplate().replace(KEYWORD_PLACEHOLDER, URLEncoder.encode(keyword, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * URL of one result page of a search.
+     *
+     * @param keyword The search keyword.
+     * @param sortBy  Sort order, ignored when null or when the site cannot sort.
+     * @param page    Page number, counted from {@link PaginationSpec#getFirstPage()}.
+     */
+    default String searchUrl(String keyword, String sortBy, int page) {
+        StringBuilder url = new StringBuilder(searchUrl(keyword));
+        if (sortBy != null && getSortParameter() != null) {
+            appendParameter(url, getSortParameter(), sortBy);
+        }
+        PaginationSpec pagination = getPagination();
+        if (pagination.getPageParameter() != null && page != pagination.getFirstPage()) {
+            appendParameter(url, pagination.getPageParameter(), String.valueOf(page));
+        }
+        return url.toString();
+    }
+
+    default String getHost() {
+        return URI.create(searchUrl("")).getHost();
+    }
+
+    private static void appendParameter(StringBuilder url, String name, String value) {
+        url.append(url.indexOf("?") < 0 ? '?' : '&').append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+    }
+}
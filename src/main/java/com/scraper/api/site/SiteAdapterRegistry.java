@@ -0,0 +1,50 @@
+package com.scraper.api.site;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The site adapters found at startup, by name. Searches run against the enabled ones.
+ */
+@Slf4j
+@Component
+public class SiteAdapterRegistry {
+
+    private final Map<String, SiteAdapter> adapters = new LinkedHashMap<>();
+    private final List<SiteAdapter> enabled;
+
+    public SiteAdapterRegistry(ObjectProvider<SiteAdapter> siteAdapters) {
+        siteAdapters.orderedStream().forEach(adapter -> {
+            SiteAdapter previous = adapters.putIfAbsent(adapter.getName(), adapter);
+            if (previous != null) {
+                throw new IllegalStateException("Site " + adapter.getName() + " is declared by both "
+                        + previous.getClass().getName() + " and " + adapter.getClass().getName());
+            }
+        });
+        this.enabled = adapters.values().stream()
+                .filter(SiteAdapter::isEnabled)
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        enabled.forEach(adapter -> log.info("Site {} scraped with {} from {}",
+                adapter.getName(), adapter.getEngine(), adapter.getSearchUrlTemplate()));
+    }
+
+    public List<SiteAdapter> getEnabled() {
+        return enabled;
+    }
+
+    public Collection<SiteAdapter> getAll() {
+        return Collections.unmodifiableCollection(adapters.values());
+    }
+
+    public SiteAdapter get(String name) {
+        return adapters.get(name);
+    }
+}
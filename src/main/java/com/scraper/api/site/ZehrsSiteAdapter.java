@@ -0,0 +1,102 @@
+package com.scraper.api.site;
+
+import com.scraper.api.model.FieldSpec;
+import com.scraper.api.model.PaginationSpec;
+import com.scraper.api.model.RateLimitSpec;
+import com.scraper.api.model.ReadinessSpec;
+import com.scraper.api.model.ResourceBlockingSpec;
+import com.scraper.api.model.ScrapeEngineType;
+import com.scraper.api.model.TileSpec;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Zehrs search results, rendered client side and scraped with a browser.
+ * Page URL: https://www.zehrs.ca/search?search-bar=
+ */
+@Getter
+@Component
+public class ZehrsSiteAdapter implements SiteAdapter {
+
+    /**
+     * Selectors of the fields inside a search product tile
+     */
+    public static final TileSpec SEARCH_PRODUCT_TILE = TileSpec.builder()
+            .tileSelector("div.product-tile")
+            .name(FieldSpec.text("span.product-name__item--name"))
+            .brand(FieldSpec.text("span.product-name__item--brand"))
+            .price(FieldSpec.text("span.selling-price-list__item__price--now-price__value",
+                    "span.selling-price-list__item__price--sale__value"))
+            .image(FieldSpec.attribute("src", ".responsive-image--product-tile-image"))
+            .url(FieldSpec.attribute("href", ".product-tile__details__info__name__link"))
+            .build();
+
+    /**
+     * Search results are rendered once the first product tile is there and the page went quiet
+     */
+    public static final ReadinessSpec SEARCH_READINESS = ReadinessSpec.builder()
+            .readySelector("div.product-tile")
+            .networkIdle(Duration.ofMillis(500))
+            .domQuiet(Duration.ofMillis(300))
+            .timeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String name = "zehrs";
+    private final boolean enabled;
+    private final String searchUrlTemplate;
+    private final ScrapeEngineType engine;
+    private final TileSpec tileSpec = SEARCH_PRODUCT_TILE;
+    private final ReadinessSpec readiness = SEARCH_READINESS;
+    private final PaginationSpec pagination;
+    private final RateLimitSpec rateLimit;
+    private final String sortParameter;
+    private final ResourceBlockingSpec resourceBlocking;
+    private final Duration timeout;
+
+    public ZehrsSiteAdapter(@Value("${scraper.sites.zehrs.enabled:true}") boolean enabled,
+                            @Value("${scraper.sites.zehrs.search-url:https://www.zehrs.ca/search?search-bar={keyword}}") String searchUrlTemplate,
+                            @Value("${scraper.sites.zehrs.engine:browser}") ScrapeEngineType engine,
+                            @Value("${scraper.sites.zehrs.max-pages:5}") int maxPages,
+                            @Value("${scraper.sites.zehrs.page-size:48}") int pageSize,
+                            @Value("${scraper.sites.zehrs.sort-parameter:}") String sortParameter,
+                            @Value("${scraper.sites.zehrs.requests-per-second:1}") double requestsPerSecond,
+                            @Value("${scraper.sites.zehrs.burst:2}") int burst,
+                            @Value("${scraper.sites.zehrs.max-concurrent-pages:2}") int maxConcurrentPages,
+                            @Value("${scraper.sites.zehrs.blocked-resources:image,font,media}") List<String> blockedResources,
+                            @Value("${scraper.sites.zehrs.blocked-urls:}") List<String> blockedUrls,
+                            @Value("${scraper.sites.zehrs.timeout:}") Duration timeout) {
+        this.enabled = enabled;
+        this.searchUrlTemplate = searchUrlTemplate;
+        this.engine = engine;
+        this.pagination = PaginationSpec.builder()
+                .pageParameter("page")
+                .pageSize(pageSize)
+                .maxPages(maxPages)
+                .build();
+        this.sortParameter = sortParameter.isBlank() ? null : sortParameter;
+        this.rateLimit = RateLimitSpec.builder()
+                .requestsPerSecond(requestsPerSecond)
+                .burst(burst)
+                .maxConcurrentPages(maxConcurrentPages)
+                .build();
+        Set<String> resourceTypes = blockedResources.stream().filter(type -> !type.isBlank()).map(String::trim).collect(Collectors.toSet());
+        for (String type : resourceTypes) {
+            if (!ResourceBlockingSpec.RESOURCE_TYPES.contains(type)) {
+                throw new IllegalArgumentException("Unknown resource type " + type + " in scraper.sites.zehrs.blocked-resources, "
+                        + "expected " + String.join(", ", new TreeSet<>(ResourceBlockingSpec.RESOURCE_TYPES)));
+            }
+        }
+        this.resourceBlocking = ResourceBlockingSpec.builder()
+                .resourceTypes(resourceTypes)
+                .urlPatterns(blockedUrls.stream().filter(pattern -> !pattern.isBlank()).map(String::trim).collect(Collectors.toList()))
+                .build();
+        this.timeout = timeout;
+    }
+}
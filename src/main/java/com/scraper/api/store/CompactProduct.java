@@ -0,0 +1,42 @@
+package com.scraper.api.store;
+
+/**
+ * Product held in memory by the index: the name as is, the unit price in cents and the other fields packed into one
+ * array by the {@link ProductCodec}, brands and displayed prices as dictionary ids, URLs as a shared prefix id plus
+ * their own suffix. Less than half the heap of a {@link com.scraper.api.model.ProductData} with its five strings,
+ * see {@code FootprintBenchmark}.
+ */
+public final class CompactProduct {
+
+    static final long NO_PRICE = -1;
+
+    private final String name;
+    private final long unitPriceCents;
+    // brand, price, url and image, see ProductCodec
+    private final byte[] data;
+
+    CompactProduct(String name, long unitPriceCents, byte[] data) {
+        this.name = name;
+        this.unitPriceCents = unitPriceCents;
+        this.data = data;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean hasUnitPrice() {
+        return unitPriceCents != NO_PRICE;
+    }
+
+    /**
+     * @return The unit price in cents, {@link #NO_PRICE} when the price could not be parsed.
+     */
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    byte[] getData() {
+        return data;
+    }
+}
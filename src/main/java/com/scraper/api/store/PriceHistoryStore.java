@@ -0,0 +1,472 @@
+package com.scraper.api.store;
+
+import com.scraper.api.model.PriceHistory;
+import com.scraper.api.model.PricePoint;
+import com.scraper.api.model.PriceSummary;
+import com.scraper.api.model.ProductData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Local time series of the unit price of every stored product, fed by the {@link ProductStore} writes.
+ * A point is added when the price of a product differs from its last point, so a series is a step function.
+ * Series live in memory as {@link PriceSeries} blocks. New points are appended to a write-ahead log, forced to disk
+ * with the store batch carrying them unless {@code scraper.history.fsync} is off, and a checkpoint writes every series
+ * to a snapshot file and drops the logs it covers.
+ */
+@Slf4j
+@Component
+public class PriceHistoryStore implements ProductStoreListener {
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String LOG_PREFIX = "log-";
+    private static final String LOG_SUFFIX = ".bin";
+    private static final int SNAPSHOT_MAGIC = 0x50485331;
+
+    private final ProductStore productStore;
+    private final Path directory;
+    private final int blockPoints;
+    private final long checkpointBytes;
+    private final boolean fsync;
+
+    // guards the series and the log, a lock rather than a monitor since the store writers force the log holding it
+    private final ReentrantLock lock = new ReentrantLock();
+    // one checkpoint at a time
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final Map<String, PriceSeries> series = new HashMap<>();
+    private FileChannel logChannel;
+    private DataOutputStream pointLog;
+    private int logGeneration;
+    private long logBytes;
+    // points written to the log since it was last forced
+    private boolean unforced;
+
+    private final AtomicLong checkpoints = new AtomicLong();
+    private final AtomicBoolean checkpointScheduled = new AtomicBoolean();
+    private final ExecutorService checkpointer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "price-history-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PriceHistoryStore(ProductStore productStore,
+                             @Value("${scraper.history.path:data/history}") String directory,
+                             @Value("${scraper.history.block-points:128}") int blockPoints,
+                             @Value("${scraper.history.checkpoint-bytes:4194304}") long checkpointBytes,
+                             @Value("${scraper.history.fsync:true}") boolean fsync) {
+        this.productStore = productStore;
+        this.directory = Paths.get(directory);
+        this.blockPoints = Math.max(1, blockPoints);
+        this.checkpointBytes = checkpointBytes;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Loads the snapshot, replays the logs written after it, then follows the store writes. Stored products
+     * without a series yet get their first point now.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        int snapshotGeneration = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) snapshotGeneration = readSnapshot(snapshot);
+
+        int lastGeneration = snapshotGeneration;
+        for (Path file : logFiles()) {
+            int generation = logGeneration(file);
+            if (generation >= snapshotGeneration) replay(file);
+            lastGeneration = Math.max(lastGeneration, generation);
+        }
+        // a new log per start, a torn tail of the previous one is never appended to
+        lock.lock();
+        try {
+            openLog(lastGeneration + 1);
+        } finally {
+            lock.unlock();
+        }
+
+        productStore.addListener(this);
+        long now = System.currentTimeMillis();
+        for (ProductData product : productStore.getAll()) {
+            if (product.getUnitPrice() == null) continue;
+            String key = ProductStore.keyOf(product);
+            lock.lock();
+            try {
+                if (!series.containsKey(key)) record(key, now, product.getUnitPrice());
+            } finally {
+                lock.unlock();
+            }
+        }
+        lock.lock();
+        try {
+            force();
+        } finally {
+            lock.unlock();
+        }
+        log.info("Price history opened with {} series", series.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        checkpointer.shutdownNow();
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            log.warn("Price history checkpoint on close failed, the logs are replayed on the next start: {}", e.getMessage());
+        }
+        lock.lock();
+        try {
+            closeLog();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onPut(String key, ProductData product) {
+        if (product.getUnitPrice() == null) return;
+        boolean full;
+        lock.lock();
+        try {
+            record(key, System.currentTimeMillis(), product.getUnitPrice());
+        } catch (IOException e) {
+            // the point stays in memory and reaches the next snapshot
+            log.warn("Unable to log the price of {}: {}", key, e.getMessage());
+        } finally {
+            // read under the lock, the log size is written by the appends and the checkpoint
+            full = logBytes >= checkpointBytes;
+            lock.unlock();
+        }
+        if (full && checkpointScheduled.compareAndSet(false, true)) {
+            checkpointer.execute(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    log.warn("Price history checkpoint failed: {}", e.getMessage());
+                } finally {
+                    checkpointScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onDelete(String key) {
+        // the history of a product outlives it
+    }
+
+    @Override
+    public void onCommit() {
+        lock.lock();
+        try {
+            force();
+        } catch (IOException e) {
+            log.warn("Unable to force the price history log: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The price changes of a product between two times.
+     *
+     * @return The history, null when the product has no price recorded.
+     */
+    public PriceHistory history(String key, Instant from, Instant to) {
+        PriceSeries.Window window = window(key, from, to);
+        if (window == null) return null;
+        PriceHistory history = new PriceHistory();
+        history.setKey(key);
+        history.setFrom(from);
+        history.setTo(to);
+        if (window.before != null) history.setInitial(point(window.before));
+        for (long[] point : window.points) {
+            history.getPoints().add(point(point));
+        }
+        return history;
+    }
+
+    /**
+     * The min, max, time-weighted average and last change of the price of a product between two times.
+     *
+     * @return The summary, null when the product has no price recorded.
+     */
+    public PriceSummary summary(String key, Instant from, Instant to) {
+        PriceSeries.Window window = window(key, from, to);
+        if (window == null) return null;
+        long start = from.getEpochSecond();
+        long end = Math.max(start, Math.min(to.getEpochSecond(), Instant.now().getEpochSecond()));
+
+        PriceSummary summary = new PriceSummary();
+        summary.setKey(key);
+        summary.setFrom(from);
+        summary.setTo(to);
+        summary.setPoints(window.points.size());
+
+        long[] previous = window.before;
+        long cursor = start;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        BigDecimal weighted = BigDecimal.ZERO;
+        long duration = 0;
+        if (previous != null) {
+            min = max = previous[1];
+        }
+        for (long[] point : window.points) {
+            if (previous != null) {
+                long seconds = point[0] - cursor;
+                weighted = weighted.add(BigDecimal.valueOf(previous[1]).multiply(BigDecimal.valueOf(seconds)));
+                duration += seconds;
+                summary.setLastChangeAt(Instant.ofEpochSecond(point[0]));
+                summary.setLastChangeFrom(price(previous[1]));
+                summary.setLastChangeTo(price(point[1]));
+            }
+            min = Math.min(min, point[1]);
+            max = Math.max(max, point[1]);
+            cursor = point[0];
+            previous = point;
+        }
+        if (previous == null) return summary;
+        if (end > cursor) {
+            weighted = weighted.add(BigDecimal.valueOf(previous[1]).multiply(BigDecimal.valueOf(end - cursor)));
+            duration += end - cursor;
+        }
+        summary.setMin(price(min));
+        summary.setMax(price(max));
+        summary.setCurrent(price(previous[1]));
+        summary.setAverage(duration == 0
+                ? price(previous[1])
+                : weighted.divide(BigDecimal.valueOf(duration * 100), 2, RoundingMode.HALF_UP));
+        return summary;
+    }
+
+    /**
+     * Writes every series to a new snapshot and deletes the logs it covers. Points keep being recorded meanwhile,
+     * to a log the snapshot does not cover.
+     */
+    public void checkpoint() throws IOException {
+        checkpointLock.lock();
+        try {
+            Map<String, PriceSeries> copies = new HashMap<>();
+            int generation;
+            lock.lock();
+            try {
+                closeLog();
+                openLog(logGeneration + 1);
+                generation = logGeneration;
+                // only copied under the lock, the store writes feeding the series do not wait for the encoding
+                series.forEach((key, entry) -> copies.put(key, entry.copy()));
+            } finally {
+                lock.unlock();
+            }
+            byte[] snapshot = encodeSnapshot(generation, copies);
+            Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            Files.write(temp, snapshot);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            for (Path file : logFiles()) {
+                if (logGeneration(file) < generation) Files.deleteIfExists(file);
+            }
+            checkpoints.incrementAndGet();
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            long points = 0;
+            long blocks = 0;
+            long sealedBytes = 0;
+            long openBytes = 0;
+            for (PriceSeries entry : series.values()) {
+                points += entry.getPoints();
+                blocks += entry.getBlockCount();
+                sealedBytes += entry.getSealedBytes();
+                openBytes += entry.getOpenBytes();
+            }
+            stats.put("series", series.size());
+            stats.put("points", points);
+            stats.put("blocks", blocks);
+            stats.put("sealedBytes", sealedBytes);
+            stats.put("openBytes", openBytes);
+            stats.put("bytesPerPoint", points == 0 ? 0 : (double) (sealedBytes + openBytes) / points);
+            stats.put("logBytes", logBytes);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("checkpoints", checkpoints.get());
+        return stats;
+    }
+
+    /**
+     * Adds a point when the price differs from the last one of the series, and logs it.
+     */
+    void record(String key, long timestampMillis, BigDecimal price) throws IOException {
+        long cents = price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+        long seconds = timestampMillis / 1000;
+        if (!append(key, seconds, cents)) return;
+        pointLog.writeUTF(key);
+        pointLog.writeLong(seconds);
+        pointLog.writeLong(cents);
+        pointLog.flush();
+        logBytes = pointLog.size();
+        unforced = true;
+    }
+
+    private void force() throws IOException {
+        if (!fsync || !unforced) return;
+        logChannel.force(false);
+        unforced = false;
+    }
+
+    private boolean append(String key, long seconds, long cents) {
+        PriceSeries entry = series.computeIfAbsent(key, k -> new PriceSeries());
+        if (!entry.isEmpty()) {
+            if (entry.getLastCents() == cents) return false;
+            // a point never goes before the previous one, even when the clock is set back
+            seconds = Math.max(seconds, entry.getLastSeconds());
+        }
+        entry.append(seconds, cents, blockPoints);
+        return true;
+    }
+
+    private PriceSeries.Window window(String key, Instant from, Instant to) {
+        lock.lock();
+        try {
+            PriceSeries entry = series.get(key);
+            return entry == null ? null : entry.window(from.getEpochSecond(), to.getEpochSecond());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] encodeSnapshot(int generation, Map<String, PriceSeries> series) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(generation);
+        out.writeInt(series.size());
+        for (Map.Entry<String, PriceSeries> entry : series.entrySet()) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // the generation of the first log the snapshot does not cover
+    private int readSnapshot(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) throw new IOException("Not a price history snapshot: " + file);
+            int generation = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String key = in.readUTF();
+                series.put(key, PriceSeries.readFrom(in));
+            }
+            return generation;
+        }
+    }
+
+    private void replay(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                String key;
+                long seconds;
+                long cents;
+                try {
+                    key = in.readUTF();
+                    seconds = in.readLong();
+                    cents = in.readLong();
+                } catch (EOFException e) {
+                    // end of the log, or a point torn by a crash
+                    return;
+                }
+                append(key, seconds, cents);
+            }
+        }
+    }
+
+    private void openLog(int generation) throws IOException {
+        Path file = directory.resolve(String.format("%s%06d%s", LOG_PREFIX, generation, LOG_SUFFIX));
+        logChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        pointLog = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(logChannel)));
+        logGeneration = generation;
+        logBytes = 0;
+        unforced = false;
+    }
+
+    private void closeLog() {
+        if (pointLog == null) return;
+        try {
+            pointLog.close();
+        } catch (IOException e) {
+            log.warn("Unable to close the price history log: {}", e.getMessage());
+        }
+    }
+
+    private List<Path> logFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> logGeneration(path) >= 0).forEach(files::add);
+        }
+        files.sort((a, b) -> Integer.compare(logGeneration(a), logGeneration(b)));
+        return files;
+    }
+
+    private static int logGeneration(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(LOG_PREFIX) || !name.endsWith(LOG_SUFFIX)) return -1;
+        try {
+            return Integer.parseInt(name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static PricePoint point(long[] point) {
+        return new PricePoint(Instant.ofEpochSecond(point[0]), price(point[1]));
+    }
+
+    private static BigDecimal price(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
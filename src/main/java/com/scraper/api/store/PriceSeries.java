@@ -0,0 +1,272 @@
+package com.scraper.api.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Price changes of one product, as (epoch second, cents) points in time order.
+ * Points are encoded as varints, the first of a block absolute and the next ones as deltas from their predecessor,
+ * zigzag encoded for the prices. A block is deflated once it holds {@code blockPoints} points, the open block stays
+ * raw. Every block keeps its time range and last price, so a window only inflates the blocks it overlaps.
+ */
+final class PriceSeries {
+
+    private final List<Block> blocks = new ArrayList<>();
+
+    private byte[] open;
+    private int openLength;
+    private int openCount;
+    private long openFirstSeconds;
+
+    private long lastSeconds;
+    private long lastCents;
+    private int points;
+
+    boolean isEmpty() {
+        return points == 0;
+    }
+
+    int getPoints() {
+        return points;
+    }
+
+    long getLastCents() {
+        return lastCents;
+    }
+
+    long getLastSeconds() {
+        return lastSeconds;
+    }
+
+    int getBlockCount() {
+        return blocks.size();
+    }
+
+    long getSealedBytes() {
+        long bytes = 0;
+        for (Block block : blocks) bytes += block.data.length;
+        return bytes;
+    }
+
+    int getOpenBytes() {
+        return openLength;
+    }
+
+    /**
+     * A copy sharing the sealed blocks, they never change once deflated.
+     */
+    PriceSeries copy() {
+        PriceSeries copy = new PriceSeries();
+        copy.blocks.addAll(blocks);
+        copy.open = open == null ? null : Arrays.copyOf(open, openLength);
+        copy.openLength = openLength;
+        copy.openCount = openCount;
+        copy.openFirstSeconds = openFirstSeconds;
+        copy.lastSeconds = lastSeconds;
+        copy.lastCents = lastCents;
+        copy.points = points;
+        return copy;
+    }
+
+    void append(long seconds, long cents, int blockPoints) {
+        if (openCount == 0) {
+            openFirstSeconds = seconds;
+            writeVarLong(seconds);
+            writeVarLong(zigzag(cents));
+        } else {
+            writeVarLong(seconds - lastSeconds);
+            writeVarLong(zigzag(cents - lastCents));
+        }
+        openCount++;
+        points++;
+        lastSeconds = seconds;
+        lastCents = cents;
+        if (openCount >= blockPoints) seal();
+    }
+
+    /**
+     * The points from {@code from} to {@code to} included, and the last point before {@code from}, the price in
+     * effect when the window starts.
+     */
+    Window window(long from, long to) {
+        Window window = new Window();
+        for (Block block : blocks) {
+            if (block.firstSeconds > to) return window;
+            if (block.lastSeconds < from) {
+                window.before = new long[]{block.lastSeconds, block.lastCents};
+                continue;
+            }
+            decode(inflate(block.data), block.count, from, to, window);
+        }
+        if (openCount > 0 && openFirstSeconds <= to) {
+            decode(openLength == open.length ? open : Arrays.copyOf(open, openLength), openCount, from, to, window);
+        }
+        return window;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(points);
+        out.writeInt(blocks.size());
+        for (Block block : blocks) {
+            out.writeLong(block.firstSeconds);
+            out.writeLong(block.lastSeconds);
+            out.writeLong(block.lastCents);
+            out.writeInt(block.count);
+            out.writeInt(block.data.length);
+            out.write(block.data);
+        }
+        out.writeInt(openCount);
+        out.writeLong(openFirstSeconds);
+        out.writeLong(lastSeconds);
+        out.writeLong(lastCents);
+        out.writeInt(openLength);
+        if (openLength > 0) out.write(open, 0, openLength);
+    }
+
+    static PriceSeries readFrom(DataInputStream in) throws IOException {
+        PriceSeries series = new PriceSeries();
+        series.points = in.readInt();
+        int blockCount = in.readInt();
+        for (int i = 0; i < blockCount; i++) {
+            long firstSeconds = in.readLong();
+            long lastSeconds = in.readLong();
+            long lastCents = in.readLong();
+            int count = in.readInt();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            series.blocks.add(new Block(firstSeconds, lastSeconds, lastCents, count, data));
+        }
+        series.openCount = in.readInt();
+        series.openFirstSeconds = in.readLong();
+        series.lastSeconds = in.readLong();
+        series.lastCents = in.readLong();
+        series.openLength = in.readInt();
+        if (series.openLength > 0) {
+            series.open = new byte[series.openLength];
+            in.readFully(series.open);
+        }
+        return series;
+    }
+
+    private void seal() {
+        blocks.add(new Block(openFirstSeconds, lastSeconds, lastCents, openCount, deflate(open, openLength)));
+        open = null;
+        openLength = 0;
+        openCount = 0;
+    }
+
+    private void writeVarLong(long value) {
+        if (open == null) open = new byte[16];
+        while (true) {
+            if (openLength == open.length) open = Arrays.copyOf(open, open.length * 2);
+            if ((value & ~0x7FL) == 0) {
+                open[openLength++] = (byte) value;
+                return;
+            }
+            open[openLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+    }
+
+    private static void decode(byte[] data, int count, long from, long to, Window window) {
+        int[] position = {0};
+        long seconds = 0;
+        long cents = 0;
+        for (int i = 0; i < count; i++) {
+            long secondsValue = readVarLong(data, position);
+            long centsValue = unzigzag(readVarLong(data, position));
+            seconds = i == 0 ? secondsValue : seconds + secondsValue;
+            cents = i == 0 ? centsValue : cents + centsValue;
+            if (seconds > to) return;
+            if (seconds < from) {
+                window.before = new long[]{seconds, cents};
+            } else {
+                window.points.add(new long[]{seconds, cents});
+            }
+        }
+    }
+
+    private static long readVarLong(byte[] data, int[] position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static byte[] deflate(byte[] data, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+            byte[] buffer = new byte[Math.max(64, length)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[Math.max(256, data.length * 4)];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                out.write(buffer, 0, inflated);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted price block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Points of a window as {epoch second, cents} pairs.
+     */
+    static final class Window {
+        long[] before;
+        final List<long[]> points = new ArrayList<>();
+    }
+
+    private static final class Block {
+        private final long firstSeconds;
+        private final long lastSeconds;
+        private final long lastCents;
+        private final int count;
+        private final byte[] data;
+
+        private Block(long firstSeconds, long lastSeconds, long lastCents, int count, byte[] data) {
+            this.firstSeconds = firstSeconds;
+            this.lastSeconds = lastSeconds;
+            this.lastCents = lastCents;
+            this.count = count;
+            this.data = data;
+        }
+    }
+}
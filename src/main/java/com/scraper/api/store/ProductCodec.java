@@ -0,0 +1,242 @@
+package com.scraper.api.store;
+
+import com.scraper.api.model.ProductData;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact forms of the products kept in memory: {@link CompactProduct} for the index and one byte array per list for
+ * the result cache. Brands and displayed prices repeat across the catalog and are dictionary encoded, product and image
+ * URLs keep the id of their shared prefix ({@code https://host/} and the leading all-letter path segments like
+ * {@code products/}) and only their own suffix. Numbers are varints, strings UTF-8.
+ * The dictionaries live as long as the application, the encoded forms are not meant to be persisted.
+ */
+@Component
+public class ProductCodec {
+
+    private static final int MAX_BRANDS = 1 << 16;
+    private static final int MAX_PRICES = 1 << 16;
+    private static final int MAX_PREFIXES = 1 << 12;
+
+    // a dictionary reference is 0 for null, 1 for a value written inline, id + 2 otherwise
+    private static final int NULL = 0;
+    private static final int INLINE = 1;
+
+    private final StringDictionary brands = new StringDictionary(MAX_BRANDS);
+    private final StringDictionary prices = new StringDictionary(MAX_PRICES);
+    private final StringDictionary prefixes = new StringDictionary(MAX_PREFIXES);
+
+    public CompactProduct compact(ProductData product) {
+        Output out = new Output(64);
+        writeFields(out, product);
+        return new CompactProduct(product.getName(), cents(product.getUnitPrice()), out.toByteArray());
+    }
+
+    public ProductData expand(CompactProduct compact) {
+        ProductData product = new ProductData();
+        product.setName(compact.getName());
+        product.setUnitPrice(unitPrice(compact.getUnitPriceCents()));
+        readFields(new Input(compact.getData()), product);
+        return product;
+    }
+
+    /**
+     * @return The brand of the product, the dictionary instance when it has one.
+     */
+    public String brand(CompactProduct compact) {
+        return readReference(new Input(compact.getData()), brands);
+    }
+
+    /**
+     * Encodes a list of products into one array, the form of the cached search results.
+     */
+    public byte[] encode(List<ProductData> products) {
+        Output out = new Output(32 + products.size() * 96);
+        out.writeVarLong(products.size());
+        for (ProductData product : products) {
+            out.writeString(product.getName());
+            out.writeVarLong(cents(product.getUnitPrice()) + 1);
+            writeFields(out, product);
+        }
+        return out.toByteArray();
+    }
+
+    public List<ProductData> decode(byte[] encoded) {
+        Input in = new Input(encoded);
+        int count = (int) in.readVarLong();
+        List<ProductData> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProductData product = new ProductData();
+            product.setName(in.readString());
+            product.setUnitPrice(unitPrice(in.readVarLong() - 1));
+            readFields(in, product);
+            products.add(product);
+        }
+        return products;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("brands", brands.size());
+        stats.put("prices", prices.size());
+        stats.put("urlPrefixes", prefixes.size());
+        return stats;
+    }
+
+    /**
+     * End of the shared prefix of a URL: the origin and the path segments made of letters only, 0 when not absolute.
+     */
+    static int prefixEnd(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme < 0) return 0;
+        int end = url.indexOf('/', scheme + 3);
+        if (end < 0) return 0;
+        end++;
+        int next;
+        while ((next = url.indexOf('/', end)) > end && lettersOnly(url, end, next)) {
+            end = next + 1;
+        }
+        return end;
+    }
+
+    private void writeFields(Output out, ProductData product) {
+        writeReference(out, brands, product.getBrand());
+        writeReference(out, prices, product.getPrice());
+        writeUrl(out, product.getUrl());
+        writeUrl(out, product.getImage());
+    }
+
+    private void readFields(Input in, ProductData product) {
+        product.setBrand(readReference(in, brands));
+        product.setPrice(readReference(in, prices));
+        product.setUrl(readUrl(in));
+        product.setImage(readUrl(in));
+    }
+
+    private void writeUrl(Output out, String url) {
+        if (url == null) {
+            out.writeVarLong(NULL);
+            return;
+        }
+        int end = prefixEnd(url);
+        writeReference(out, prefixes, url.substring(0, end));
+        out.writeString(url.substring(end));
+    }
+
+    private String readUrl(Input in) {
+        String prefix = readReference(in, prefixes);
+        if (prefix == null) return null;
+        String suffix = in.readString();
+        return prefix.isEmpty() ? suffix : prefix + suffix;
+    }
+
+    private static void writeReference(Output out, StringDictionary dictionary, String value) {
+        if (value == null) {
+            out.writeVarLong(NULL);
+            return;
+        }
+        int id = dictionary.id(value);
+        if (id == StringDictionary.FULL) {
+            out.writeVarLong(INLINE);
+            out.writeString(value);
+        } else {
+            out.writeVarLong(id + 2L);
+        }
+    }
+
+    private static String readReference(Input in, StringDictionary dictionary) {
+        int reference = (int) in.readVarLong();
+        if (reference == NULL) return null;
+        if (reference == INLINE) return in.readString();
+        return dictionary.get(reference - 2);
+    }
+
+    private static long cents(BigDecimal unitPrice) {
+        if (unitPrice == null) return CompactProduct.NO_PRICE;
+        return unitPrice.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal unitPrice(long cents) {
+        return cents == CompactProduct.NO_PRICE ? null : BigDecimal.valueOf(cents, 2);
+    }
+
+    private static boolean lettersOnly(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isLetter(value.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        private Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        // length + 1 first, 0 for null
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void ensure(int bytes) {
+            if (size + bytes > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes));
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] buffer;
+        private int position;
+
+        private Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+
+        private String readString() {
+            int length = (int) readVarLong() - 1;
+            if (length < 0) return null;
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
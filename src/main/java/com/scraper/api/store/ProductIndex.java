@@ -0,0 +1,310 @@
+package com.scraper.api.store;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ProductPage;
+import com.scraper.api.model.ProductQuery;
+import com.scraper.api.model.ProductSort;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory secondary index of the {@link ProductStore} answering catalog queries without reading the segments:
+ * an inverted index of the name and brand tokens, the products by brand and the products by unit price.
+ * It holds every live product, as a {@link CompactProduct}, and follows the store writes as a {@link ProductStoreListener}.
+ */
+@Slf4j
+@Component
+public class ProductIndex implements ProductStoreListener {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private final ProductStore productStore;
+    private final ProductCodec codec;
+
+    // guards every map below, queries share the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Entry>> postings = new HashMap<>();
+    private final Map<String, Set<Entry>> brands = new HashMap<>();
+    // products with a known unit price, by unit price in cents
+    private final NavigableMap<Long, Set<Entry>> prices = new TreeMap<>();
+    private long nextId;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryMicros = new LongAdder();
+    private final AtomicLong maxQueryMicros = new AtomicLong();
+
+    public ProductIndex(ProductStore productStore, ProductCodec codec) {
+        this.productStore = productStore;
+        this.codec = codec;
+    }
+
+    /**
+     * Indexes the stored products and follows the writes from then on.
+     * Nothing writes to the store before the application is started, so no write falls between the two.
+     */
+    @PostConstruct
+    public void load() {
+        productStore.addListener(this);
+        for (ProductData product : productStore.getAll()) {
+            onPut(ProductStore.keyOf(product), product);
+        }
+        log.info("Product index loaded with {} products and {} tokens", entries.size(), postings.size());
+    }
+
+    @Override
+    public void onPut(String key, ProductData product) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(key);
+            if (previous != null) unindex(previous);
+            Entry entry = new Entry(nextId++, codec.compact(product));
+            entries.put(key, entry);
+            String brand = normalizeBrand(product.getBrand());
+            for (String token : tokens(product.getName(), brand)) {
+                postings.computeIfAbsent(token, t -> new HashSet<>()).add(entry);
+            }
+            if (brand != null) brands.computeIfAbsent(brand, b -> new HashSet<>()).add(entry);
+            if (entry.product.hasUnitPrice()) {
+                prices.computeIfAbsent(entry.product.getUnitPriceCents(), p -> new HashSet<>()).add(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDelete(String key) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(key);
+            if (previous != null) unindex(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Answers one page of the products matching the query. The candidates come from the most selective structure
+     * available: the shortest posting list of the keyword tokens, the brand, or the unit price range.
+     * Only the products up to the end of the page are ordered.
+     */
+    public ProductPage query(ProductQuery query) {
+        long start = System.nanoTime();
+        int size = Math.max(1, Math.min(query.getSize(), MAX_PAGE_SIZE));
+        int page = Math.max(0, query.getPage());
+
+        List<Entry> matches;
+        lock.readLock().lock();
+        try {
+            matches = match(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int end = (int) Math.min(matches.size(), (long) (page + 1) * size);
+        List<Entry> top = top(matches, comparator(query.getSort()), end);
+
+        ProductPage result = new ProductPage();
+        result.setTotal(matches.size());
+        result.setPage(page);
+        result.setSize(size);
+        for (int i = Math.min(page * size, end); i < end; i++) {
+            result.getProducts().add(codec.expand(top.get(i).product));
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        result.setTookMicros(micros);
+        queries.increment();
+        queryMicros.add(micros);
+        maxQueryMicros.accumulateAndGet(micros, Math::max);
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("products", entries.size());
+            stats.put("tokens", postings.size());
+            stats.put("brands", brands.size());
+            stats.put("pricedProducts", prices.values().stream().mapToInt(Set::size).sum());
+            stats.put("dictionaries", codec.getStats());
+        } finally {
+            lock.readLock().unlock();
+        }
+        long count = queries.sum();
+        stats.put("queries", count);
+        stats.put("averageQueryMicros", count == 0 ? 0 : queryMicros.sum() / count);
+        stats.put("maxQueryMicros", maxQueryMicros.get());
+        return stats;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) return Collections.emptyList();
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty() && !tokens.contains(token)) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private List<Entry> match(ProductQuery query) {
+        List<String> tokens = tokenize(query.getKeyword());
+        String brand = normalizeBrand(query.getBrand());
+        boolean priced = query.getMinPrice() != null || query.getMaxPrice() != null;
+        // a unit price has two decimals, the bounds are rounded inwards to whole cents
+        long minCents = query.getMinPrice() == null ? Long.MIN_VALUE : cents(query.getMinPrice(), RoundingMode.CEILING);
+        long maxCents = query.getMaxPrice() == null ? Long.MAX_VALUE : cents(query.getMaxPrice(), RoundingMode.FLOOR);
+        Set<Entry> brandEntries = brand == null ? null : brands.getOrDefault(brand, Collections.emptySet());
+
+        Collection<Entry> candidates;
+        List<Set<Entry>> required = new ArrayList<>();
+        if (!tokens.isEmpty()) {
+            for (String token : tokens) {
+                Set<Entry> posting = postings.get(token);
+                if (posting == null) return new ArrayList<>();
+                required.add(posting);
+            }
+            required.sort(Comparator.comparingInt(Set::size));
+            candidates = required.remove(0);
+        } else if (brandEntries != null) {
+            candidates = brandEntries;
+        } else if (priced) {
+            candidates = new ArrayList<>();
+            for (Set<Entry> entriesAtPrice : priceRange(minCents, maxCents).values()) {
+                candidates.addAll(entriesAtPrice);
+            }
+        } else {
+            candidates = entries.values();
+        }
+
+        List<Entry> matches = new ArrayList<>();
+        for (Entry entry : candidates) {
+            if (brandEntries != null && !brandEntries.contains(entry)) continue;
+            if (priced && !inRange(entry.product, minCents, maxCents)) continue;
+            if (!containsAll(required, entry)) continue;
+            matches.add(entry);
+        }
+        return matches;
+    }
+
+    private NavigableMap<Long, Set<Entry>> priceRange(long minCents, long maxCents) {
+        return minCents > maxCents ? Collections.emptyNavigableMap() : prices.subMap(minCents, true, maxCents, true);
+    }
+
+    private void unindex(Entry entry) {
+        // the tokens are derived again rather than kept with every entry
+        String brand = normalizeBrand(codec.brand(entry.product));
+        for (String token : tokens(entry.product.getName(), brand)) {
+            removeFrom(postings, token, entry);
+        }
+        if (brand != null) removeFrom(brands, brand, entry);
+        if (entry.product.hasUnitPrice()) removeFrom(prices, entry.product.getUnitPriceCents(), entry);
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Entry>> map, K key, Entry entry) {
+        Set<Entry> set = map.get(key);
+        if (set == null) return;
+        set.remove(entry);
+        if (set.isEmpty()) map.remove(key);
+    }
+
+    private static boolean containsAll(List<Set<Entry>> sets, Entry entry) {
+        for (Set<Entry> set : sets) {
+            if (!set.contains(entry)) return false;
+        }
+        return true;
+    }
+
+    private static boolean inRange(CompactProduct product, long minCents, long maxCents) {
+        if (!product.hasUnitPrice()) return false;
+        return product.getUnitPriceCents() >= minCents && product.getUnitPriceCents() <= maxCents;
+    }
+
+    private static long cents(BigDecimal price, RoundingMode rounding) {
+        BigDecimal cents = price.movePointRight(2).setScale(0, rounding);
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) return Long.MAX_VALUE;
+        if (cents.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0) return Long.MIN_VALUE;
+        return cents.longValue();
+    }
+
+    /**
+     * The first {@code count} matches in order, through a bounded heap when they are a small share of the matches.
+     */
+    private static List<Entry> top(List<Entry> matches, Comparator<Entry> order, int count) {
+        if (count == 0) return Collections.emptyList();
+        if (count > matches.size() / 4) {
+            matches.sort(order);
+            return matches;
+        }
+        PriorityQueue<Entry> heap = new PriorityQueue<>(count + 1, order.reversed());
+        for (Entry entry : matches) {
+            heap.offer(entry);
+            if (heap.size() > count) heap.poll();
+        }
+        List<Entry> top = new ArrayList<>(heap);
+        top.sort(order);
+        return top;
+    }
+
+    private static Comparator<Entry> comparator(ProductSort sort) {
+        Comparator<Entry> byName = Comparator.comparing((Entry entry) -> entry.name(), String.CASE_INSENSITIVE_ORDER)
+                .thenComparingLong(entry -> entry.id);
+        if (sort == ProductSort.NAME) return byName;
+        boolean descending = sort == ProductSort.PRICE_DESC;
+        Comparator<Entry> byPrice = (left, right) -> {
+            // products without a unit price come last in both orders
+            if (left.product.hasUnitPrice() != right.product.hasUnitPrice()) return left.product.hasUnitPrice() ? -1 : 1;
+            int order = Long.compare(left.product.getUnitPriceCents(), right.product.getUnitPriceCents());
+            return descending ? -order : order;
+        };
+        return byPrice.thenComparing(byName);
+    }
+
+    private static String normalizeBrand(String brand) {
+        if (brand == null || brand.isBlank()) return null;
+        return brand.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> tokens(String name, String normalizedBrand) {
+        return tokenize((name == null ? "" : name) + " " + (normalizedBrand == null ? "" : normalizedBrand));
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final CompactProduct product;
+
+        private Entry(long id, CompactProduct product) {
+            this.id = id;
+            this.product = product;
+        }
+
+        private String name() {
+            return product.getName() == null ? "" : product.getName();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.scraper.api.store;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.untils.PriceParser;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * One entry of a store segment, either a product version or the tombstone of a removed product.
+ * On disk a record is framed as {@code [int payload length][int crc32 of payload][payload]},
+ * so a torn write at the end of a segment is detected and dropped on recovery.
+ */
+@Getter
+public class ProductRecord {
+
+    static final int HEADER_BYTES = 8;
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final byte type;
+    private final long sequence;
+    private final long timestamp;
+    private final String key;
+    // null for tombstones
+    private final ProductData product;
+
+    ProductRecord(byte type, long sequence, long timestamp, String key, ProductData product) {
+        this.type = type;
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.key = key;
+        this.product = product;
+    }
+
+    public boolean isDelete() {
+        return type == DELETE;
+    }
+
+    /**
+     * Serializes the record with its frame header.
+     */
+    byte[] encode() {
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(payload);
+            out.writeByte(type);
+            out.writeLong(sequence);
+            out.writeLong(timestamp);
+            out.writeUTF(key);
+            if (type == PUT) {
+                writeNullable(out, product.getName());
+                writeNullable(out, product.getBrand());
+                writeNullable(out, product.getPrice());
+                writeNullable(out, product.getImage());
+                writeNullable(out, product.getUrl());
+            }
+            out.flush();
+
+            byte[] body = payload.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + body.length);
+            frame.putInt(body.length).putInt((int) crc.getValue()).put(body);
+            return frame.array();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode record " + key, e);
+        }
+    }
+
+    /**
+     * Deserializes a record payload, the frame header being already checked.
+     */
+    static ProductRecord decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        byte type = in.readByte();
+        long sequence = in.readLong();
+        long timestamp = in.readLong();
+        String key = in.readUTF();
+        ProductData product = null;
+        if (type == PUT) {
+            product = new ProductData();
+            product.setName(readNullable(in));
+            product.setBrand(readNullable(in));
+            product.setPrice(readNullable(in));
+            product.setImage(readNullable(in));
+            product.setUrl(readNullable(in));
+            product.setUnitPrice(PriceParser.unitPrice(product.getPrice()));
+        } else if (type != DELETE) {
+            throw new IOException("Unknown record type " + type);
+        }
+        return new ProductRecord(type, sequence, timestamp, key, product);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the stored fields of a product, equal for two versions that would be stored identically.
+     */
+    static long fingerprint(ProductData product) {
+        long hash = FNV_OFFSET;
+        for (String field : new String[]{product.getName(), product.getBrand(), product.getPrice(), product.getImage(), product.getUrl()}) {
+            if (field == null) {
+                hash = (hash ^ 0xFFFF) * FNV_PRIME;
+            } else {
+                for (int i = 0; i < field.length(); i++) {
+                    hash = (hash ^ field.charAt(i)) * FNV_PRIME;
+                }
+            }
+            // field separator, "ab" + "c" must not hash like "a" + "bc"
+            hash = (hash ^ 0xFFFE) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static boolean checksumMatches(byte[] body, int expected) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue() == expected;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
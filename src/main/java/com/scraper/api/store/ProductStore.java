@@ -0,0 +1,714 @@
+package com.scraper.api.store;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+import com.scraper.api.model.ProductChange;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ProductDelta;
+import com.scraper.api.untils.PriceParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Local persistent store of the scraped products, keyed by product URL.
+ * Writes are appended to segment files and never rewritten in place. An in-memory index maps every key to the
+ * position of its latest record, so a lookup is one positional read and a scan never parses text.
+ * Superseded records are reclaimed by compaction, which copies the live records to new segments.
+ * A product is only written when its fingerprint differs from the stored version, and the latest write of every key,
+ * tombstones included, is kept ordered by sequence number to answer the changes since a version.
+ */
+@Slf4j
+@Component
+public class ProductStore {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String HORIZON_FILE = "tombstone-horizon";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final double compactionRatio;
+    private final long compactionMinBytes;
+    private final Path legacyCsv;
+    private final Duration tombstoneRetention;
+
+    private final ConcurrentHashMap<String, Location> index = new ConcurrentHashMap<>();
+    // removed keys, until compaction drops the tombstones older than tombstone-retention
+    private final ConcurrentHashMap<String, Location> tombstones = new ConcurrentHashMap<>();
+    // sequence number of the latest record of every key, live or tombstone
+    private final ConcurrentSkipListMap<Long, String> changes = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    // readers hold the read lock while they use a segment, compaction takes the write lock to drop segments
+    private final ReentrantReadWriteLock segmentsLock = new ReentrantReadWriteLock();
+    // serializes appends, deletes and compaction, a lock rather than a monitor so a virtual thread waiting for it
+    // or forcing a segment frees its carrier
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final List<ProductStoreListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong liveBytes = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final LongAdder added = new LongAdder();
+    private final LongAdder changed = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "product-store-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Segment active;
+    private volatile long sequence;
+    // every record up to this sequence number is applied
+    private volatile long committed;
+    // tombstones up to this sequence number were dropped by compaction
+    private volatile long tombstoneHorizon;
+
+    public ProductStore(@Value("${scraper.store.path:data/store}") String directory,
+                        @Value("${scraper.store.segment-bytes:16777216}") long segmentBytes,
+                        @Value("${scraper.store.fsync:true}") boolean fsync,
+                        @Value("${scraper.store.compaction-ratio:0.5}") double compactionRatio,
+                        @Value("${scraper.store.compaction-min-bytes:1048576}") long compactionMinBytes,
+                        @Value("${scraper.store.legacy-csv:data/products.csv}") String legacyCsv,
+                        @Value("${scraper.store.tombstone-retention:7d}") Duration tombstoneRetention) {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.compactionRatio = compactionRatio;
+        this.compactionMinBytes = compactionMinBytes;
+        this.legacyCsv = legacyCsv.isBlank() ? null : Paths.get(legacyCsv);
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * Opens the segments and rebuilds the index, dropping a torn record left at the end of a segment by a crash.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = new ArrayList<>();
+            listing.filter(path -> segmentId(path) > 0).forEach(files::add);
+        }
+        files.sort((a, b) -> Integer.compare(segmentId(a), segmentId(b)));
+        for (Path file : files) {
+            Segment segment = new Segment(segmentId(file), file);
+            segments.put(segment.id, segment);
+            recover(segment);
+        }
+        active = segments.isEmpty() ? newSegment(1) : segments.lastEntry().getValue();
+        committed = sequence;
+        Path horizon = directory.resolve(HORIZON_FILE);
+        if (Files.exists(horizon)) tombstoneHorizon = Long.parseLong(Files.readString(horizon).trim());
+        log.info("Product store opened with {} products in {} segments", index.size(), segments.size());
+
+        if (index.isEmpty() && legacyCsv != null && Files.exists(legacyCsv)) {
+            importCsv(legacyCsv);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        compactor.shutdownNow();
+        appendLock.lock();
+        try {
+            segmentsLock.writeLock().lock();
+            try {
+                for (Segment segment : segments.values()) segment.close();
+                segments.clear();
+            } finally {
+                segmentsLock.writeLock().unlock();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Registers a listener of the writes to come, the products already stored are read with {@link #getAll()}.
+     */
+    public void addListener(ProductStoreListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Appends the new and changed products as one batch, flushed to disk before the index exposes them.
+     * A product with the fingerprint of its stored version is skipped and its listeners are not told.
+     * A product without its unit price is stored as a copy with the price parsed, the products of the caller may be
+     * serialized by another thread meanwhile and are never changed.
+     *
+     * @return The number of products written.
+     */
+    public int putAll(Collection<ProductData> products) {
+        if (products.isEmpty()) return 0;
+        List<ProductData> priced = new ArrayList<>(products.size());
+        for (ProductData product : products) priced.add(withUnitPrice(product));
+        List<ProductRecord> records = new ArrayList<>(products.size());
+        appendLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            Map<String, Long> batch = new HashMap<>();
+            for (ProductData product : priced) {
+                String key = keyOf(product);
+                long fingerprint = ProductRecord.fingerprint(product);
+                Long previous = batch.containsKey(key) ? batch.get(key) : fingerprintOf(index.get(key));
+                if (previous != null && previous == fingerprint) {
+                    unchanged.increment();
+                    continue;
+                }
+                (previous == null ? added : changed).increment();
+                batch.put(key, fingerprint);
+                records.add(new ProductRecord(ProductRecord.PUT, ++sequence, now, key, product));
+            }
+            if (records.isEmpty()) return 0;
+            append(records);
+            for (ProductRecord record : records) {
+                listeners.forEach(listener -> listener.onPut(record.getKey(), record.getProduct()));
+            }
+            listeners.forEach(ProductStoreListener::onCommit);
+        } finally {
+            appendLock.unlock();
+        }
+        maybeCompact();
+        return records.size();
+    }
+
+    /**
+     * Appends a tombstone for the key, the product disappears from lookups and scans.
+     */
+    public boolean delete(String key) {
+        return deleteAll(Collections.singletonList(key)) > 0;
+    }
+
+    /**
+     * Appends a tombstone for every stored key as one batch.
+     *
+     * @return The number of products removed.
+     */
+    public int deleteAll(Collection<String> keys) {
+        List<ProductRecord> records = new ArrayList<>(keys.size());
+        appendLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            for (String key : new LinkedHashSet<>(keys)) {
+                if (index.containsKey(key)) records.add(new ProductRecord(ProductRecord.DELETE, ++sequence, now, key, null));
+            }
+            if (records.isEmpty()) return 0;
+            append(records);
+            for (ProductRecord record : records) {
+                listeners.forEach(listener -> listener.onDelete(record.getKey()));
+            }
+            listeners.forEach(ProductStoreListener::onCommit);
+        } finally {
+            appendLock.unlock();
+        }
+        maybeCompact();
+        return records.size();
+    }
+
+    /**
+     * The latest write of every key changed after the version, oldest first.
+     *
+     * @param since Sequence number the consumer is up to date with, 0 for everything.
+     * @param limit Changes to answer at most, the consumer asks again from the version answered.
+     */
+    public ProductDelta changesSince(long since, int limit) {
+        ProductDelta delta = new ProductDelta();
+        delta.setSince(since);
+        delta.setResync(since < tombstoneHorizon);
+        segmentsLock.readLock().lock();
+        try {
+            long version = committed;
+            long last = since;
+            for (Map.Entry<Long, String> entry : changes.subMap(since, false, version, true).entrySet()) {
+                if (delta.getChanges().size() >= limit) {
+                    delta.setHasMore(true);
+                    break;
+                }
+                ProductChange change = changeOf(entry.getValue(), entry.getKey());
+                // superseded while reading, the newer write comes after the version answered
+                if (change == null) continue;
+                delta.getChanges().add(change);
+                last = entry.getKey();
+            }
+            delta.setVersion(delta.isHasMore() ? last : version);
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+        return delta;
+    }
+
+    /**
+     * The changes written at or after the time, for consumers that did not keep a version.
+     */
+    public ProductDelta changesSince(Instant time, int limit) {
+        long since = committed;
+        long millis = time.toEpochMilli();
+        // timestamps grow with the sequence numbers, the first change at or after the time bounds the others
+        for (Map.Entry<Long, String> entry : changes.entrySet()) {
+            Location location = locationOf(entry.getValue(), entry.getKey());
+            if (location != null && location.timestamp >= millis) {
+                since = entry.getKey() - 1;
+                break;
+            }
+        }
+        return changesSince(since, limit);
+    }
+
+    /**
+     * Point lookup by key, usually the product URL.
+     */
+    public ProductData get(String key) {
+        segmentsLock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            return location == null ? null : read(location).getProduct();
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Full scan of the live products.
+     */
+    public List<ProductData> getAll() {
+        segmentsLock.readLock().lock();
+        try {
+            List<ProductData> products = new ArrayList<>(index.size());
+            for (Location location : index.values()) {
+                products.add(read(location).getProduct());
+            }
+            return products;
+        } finally {
+            segmentsLock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sequence number up to which every write is visible to {@link #get} and {@link #getAll}. Read it before a scan
+     * to version what the scan returns, a write still being appended has its sequence number but is not applied yet.
+     */
+    public long getCommitted() {
+        return committed;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    public long getTotalBytes() {
+        return segments.values().stream().mapToLong(segment -> segment.size).sum();
+    }
+
+    public long getCompactionCount() {
+        return compactions.get();
+    }
+
+    public long getAddedCount() {
+        return added.sum();
+    }
+
+    public long getChangedCount() {
+        return changed.sum();
+    }
+
+    public long getUnchangedCount() {
+        return unchanged.sum();
+    }
+
+    public int getTombstoneCount() {
+        return tombstones.size();
+    }
+
+    public long getTombstoneHorizon() {
+        return tombstoneHorizon;
+    }
+
+    public static String keyOf(ProductData product) {
+        if (product.getUrl() != null) return product.getUrl();
+        // products without a link are still kept, keyed by what identifies them on the tile
+        return "name:" + product.getName() + "|" + product.getBrand();
+    }
+
+    private static ProductData withUnitPrice(ProductData product) {
+        if (product.getUnitPrice() != null) return product;
+        BigDecimal unitPrice = PriceParser.unitPrice(product.getPrice());
+        if (unitPrice == null) return product;
+        ProductData copy = new ProductData();
+        copy.setName(product.getName());
+        copy.setBrand(product.getBrand());
+        copy.setPrice(product.getPrice());
+        copy.setImage(product.getImage());
+        copy.setUrl(product.getUrl());
+        copy.setUnitPrice(unitPrice);
+        return copy;
+    }
+
+    /**
+     * Hash of the stored fields of a product, equal for two versions that would be stored identically.
+     */
+    public static long fingerprintOf(ProductData product) {
+        return ProductRecord.fingerprint(product);
+    }
+
+    /**
+     * Copies the live records and the recent tombstones to new segments and deletes the old ones.
+     * A crash half way is harmless: the new segments hold copies with the same sequence numbers and sort after
+     * the old ones, and old segments are deleted oldest first so a tombstone never outlives what it deletes.
+     * The horizon of the dropped tombstones is saved before any of them is deleted.
+     */
+    public void compact() {
+        appendLock.lock();
+        try {
+            List<Segment> previous = new ArrayList<>(segments.values());
+            Map<String, Location> moved = new HashMap<>();
+            Map<String, Location> movedTombstones = new HashMap<>();
+            List<String> expired = new ArrayList<>();
+            long cutoff = System.currentTimeMillis() - tombstoneRetention.toMillis();
+            long horizon = tombstoneHorizon;
+            Segment target = newSegment(active.id + 1);
+            try {
+                for (boolean tombstone : new boolean[]{false, true}) {
+                    for (Map.Entry<String, Location> entry : (tombstone ? tombstones : index).entrySet()) {
+                        Location location = entry.getValue();
+                        if (tombstone && location.timestamp < cutoff) {
+                            horizon = Math.max(horizon, location.sequence);
+                            expired.add(entry.getKey());
+                            continue;
+                        }
+                        byte[] frame = readFrame(location);
+                        if (target.size > 0 && target.size + frame.length > segmentBytes) {
+                            target.force();
+                            target = newSegment(target.id + 1);
+                        }
+                        long offset = target.append(frame);
+                        (tombstone ? movedTombstones : moved).put(entry.getKey(), location.movedTo(target.id, offset));
+                    }
+                }
+                target.force();
+                if (horizon != tombstoneHorizon) writeHorizon(horizon);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Compaction of " + directory + " failed", e);
+            }
+
+            segmentsLock.writeLock().lock();
+            try {
+                index.putAll(moved);
+                tombstones.putAll(movedTombstones);
+                for (String key : expired) {
+                    Location location = tombstones.remove(key);
+                    changes.remove(location.sequence, key);
+                }
+                tombstoneHorizon = horizon;
+                for (Segment segment : previous) {
+                    segments.remove(segment.id);
+                    segment.close();
+                    Files.deleteIfExists(segment.path);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to delete compacted segment", e);
+            } finally {
+                segmentsLock.writeLock().unlock();
+            }
+            active = target;
+            liveBytes.set(moved.values().stream().mapToLong(location -> location.length).sum()
+                    + movedTombstones.values().stream().mapToLong(location -> location.length).sum());
+            compactions.incrementAndGet();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void append(List<ProductRecord> records) {
+        try {
+            List<Location> locations = new ArrayList<>(records.size());
+            for (ProductRecord record : records) {
+                byte[] frame = record.encode();
+                if (active.size > 0 && active.size + frame.length > segmentBytes) {
+                    if (fsync) active.force();
+                    active = newSegment(active.id + 1);
+                }
+                long offset = active.append(frame);
+                locations.add(Location.of(record, active.id, offset, frame.length));
+            }
+            if (fsync) active.force();
+            for (int i = 0; i < records.size(); i++) {
+                apply(records.get(i), locations.get(i));
+            }
+            committed = sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to append to " + directory, e);
+        }
+    }
+
+    // tombstones count as live bytes until compaction drops them
+    private void apply(ProductRecord record, Location location) {
+        String key = record.getKey();
+        Location previous = record.isDelete() ? index.remove(key) : index.put(key, location);
+        Location previousTombstone = record.isDelete() ? tombstones.put(key, location) : tombstones.remove(key);
+        liveBytes.addAndGet(location.length);
+        for (Location superseded : new Location[]{previous, previousTombstone}) {
+            if (superseded == null) continue;
+            liveBytes.addAndGet(-superseded.length);
+            changes.remove(superseded.sequence, key);
+        }
+        changes.put(location.sequence, key);
+        if (record.getSequence() > sequence) sequence = record.getSequence();
+    }
+
+    private Location locationOf(String key, long sequence) {
+        Location location = index.get(key);
+        if (location == null || location.sequence != sequence) location = tombstones.get(key);
+        return location != null && location.sequence == sequence ? location : null;
+    }
+
+    private ProductChange changeOf(String key, long sequence) {
+        Location location = locationOf(key, sequence);
+        if (location == null) return null;
+        ProductChange change = new ProductChange();
+        change.setKey(key);
+        change.setVersion(location.sequence);
+        change.setTimestamp(location.timestamp);
+        if (location == index.get(key)) {
+            change.setType(ProductChange.PUT);
+            change.setProduct(read(location).getProduct());
+        } else {
+            change.setType(ProductChange.DELETE);
+        }
+        return change;
+    }
+
+    private void writeHorizon(long horizon) throws IOException {
+        Path temp = directory.resolve(HORIZON_FILE + ".tmp");
+        Files.writeString(temp, Long.toString(horizon));
+        Files.move(temp, directory.resolve(HORIZON_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Long fingerprintOf(Location location) {
+        return location == null ? null : location.fingerprint;
+    }
+
+    private void maybeCompact() {
+        long total = getTotalBytes();
+        if (total < compactionMinBytes || total - liveBytes.get() < total * compactionRatio) return;
+        if (!compactionScheduled.compareAndSet(false, true)) return;
+        compactor.execute(() -> {
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                log.warn("Product store compaction failed: {}", e.getMessage());
+            } finally {
+                compactionScheduled.set(false);
+            }
+        });
+    }
+
+    private ProductRecord read(Location location) {
+        try {
+            byte[] frame = readFrame(location);
+            byte[] body = new byte[frame.length - ProductRecord.HEADER_BYTES];
+            System.arraycopy(frame, ProductRecord.HEADER_BYTES, body, 0, body.length);
+            return ProductRecord.decode(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read record of segment " + location.segmentId, e);
+        }
+    }
+
+    private byte[] readFrame(Location location) throws IOException {
+        Segment segment = segments.get(location.segmentId);
+        if (segment == null) throw new IOException("Segment " + location.segmentId + " is gone");
+        ByteBuffer buffer = ByteBuffer.allocate(location.length);
+        long position = location.offset;
+        while (buffer.hasRemaining()) {
+            int read = segment.channel.read(buffer, position);
+            if (read < 0) throw new EOFException("Record beyond the end of segment " + segment.id);
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    private void recover(Segment segment) throws IOException {
+        long offset = 0;
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(segment.path), 1 << 16)) {
+            DataInputStream in = new DataInputStream(stream);
+            while (offset + ProductRecord.HEADER_BYTES <= segment.size) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || offset + ProductRecord.HEADER_BYTES + length > segment.size) break;
+                byte[] body = new byte[length];
+                in.readFully(body);
+                if (!ProductRecord.checksumMatches(body, checksum)) break;
+                int frameLength = ProductRecord.HEADER_BYTES + length;
+                ProductRecord record = ProductRecord.decode(body);
+                apply(record, Location.of(record, segment.id, offset, frameLength));
+                offset += frameLength;
+            }
+        }
+        if (offset < segment.size) {
+            log.warn("Truncating torn tail of {} at byte {} of {}", segment.path, offset, segment.size);
+            segment.channel.truncate(offset);
+            segment.size = offset;
+        }
+    }
+
+    private void importCsv(Path csv) {
+        List<ProductData> products = new ArrayList<>();
+        try (CSVReader csvReader = new CSVReader(new FileReader(csv.toFile()))) {
+            List<String[]> records = csvReader.readAll();
+            if (!records.isEmpty()) records.remove(0); // Remove header row
+            for (String[] record : records) {
+                if (record.length != 6) continue;
+                ProductData product = new ProductData();
+                product.setName(record[1]);
+                product.setBrand(record[2]);
+                product.setPrice(record[3]);
+                product.setImage(record[4]);
+                product.setUrl(record[5]);
+                products.add(product);
+            }
+        } catch (IOException | CsvException e) {
+            log.warn("Unable to import {}: {}", csv, e.getMessage());
+            return;
+        }
+        putAll(products);
+        log.info("Imported {} products from {}", products.size(), csv);
+    }
+
+    private Segment newSegment(int id) {
+        try {
+            Segment segment = new Segment(id, directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)));
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create segment " + id, e);
+        }
+    }
+
+    private static int segmentId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) return -1;
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Location {
+        private final int segmentId;
+        private final long offset;
+        private final int length;
+        private final long sequence;
+        private final long timestamp;
+        // 0 for tombstones
+        private final long fingerprint;
+
+        private Location(int segmentId, long offset, int length, long sequence, long timestamp, long fingerprint) {
+            this.segmentId = segmentId;
+            this.offset = offset;
+            this.length = length;
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.fingerprint = fingerprint;
+        }
+
+        private static Location of(ProductRecord record, int segmentId, long offset, int length) {
+            return new Location(segmentId, offset, length, record.getSequence(), record.getTimestamp(),
+                    record.isDelete() ? 0 : ProductRecord.fingerprint(record.getProduct()));
+        }
+
+        private Location movedTo(int segmentId, long offset) {
+            return new Location(segmentId, offset, length, sequence, timestamp, fingerprint);
+        }
+    }
+
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private volatile long size;
+
+        private Segment(int id, Path path) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+
+        private long append(byte[] frame) throws IOException {
+            long offset = size;
+            ByteBuffer buffer = ByteBuffer.wrap(frame);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            size = position;
+            return offset;
+        }
+
+        private void force() throws IOException {
+            channel.force(false);
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing left to flush, the records were forced on append
+            }
+        }
+    }
+}
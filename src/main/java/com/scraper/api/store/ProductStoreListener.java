@@ -0,0 +1,20 @@
+package com.scraper.api.store;
+
+import com.scraper.api.model.ProductData;
+
+/**
+ * Told about every write to the {@link ProductStore}, in append order, once the write is durable.
+ * Called while the store holds its append lock, so a listener must be quick and must not write to the store.
+ */
+public interface ProductStoreListener {
+
+    void onPut(String key, ProductData product);
+
+    void onDelete(String key);
+
+    /**
+     * Called once the writes of a batch were all told, still under the append lock.
+     */
+    default void onCommit() {
+    }
+}
@@ -0,0 +1,54 @@
+package com.scraper.api.store;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers the distinct values of a repetitive field, brands or URL prefixes, so a product keeps an int instead of its
+ * own copy of the string. Ids are stable for the life of the process and the dictionary never shrinks; once it holds
+ * {@code maxSize} values new ones are refused and the caller stores them inline.
+ */
+public final class StringDictionary {
+
+    public static final int FULL = -1;
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    // replaced on growth, readers see either the old or the new array, both hold every id they can be asked for
+    private volatile String[] values = new String[16];
+    private int size;
+
+    public StringDictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return The id of the value, added when new, {@link #FULL} when the dictionary is full.
+     */
+    public int id(String value) {
+        Integer id = ids.get(value);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(value);
+            if (id != null) return id;
+            if (size == maxSize) return FULL;
+            String[] current = values;
+            if (size == current.length) current = Arrays.copyOf(current, Math.min(maxSize, current.length * 2));
+            current[size] = value;
+            values = current;
+            ids.put(value, size);
+            return size++;
+        }
+    }
+
+    /**
+     * @return The value of an id, the same instance for every product sharing it.
+     */
+    public String get(int id) {
+        return values[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+}
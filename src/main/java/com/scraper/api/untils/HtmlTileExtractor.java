@@ -0,0 +1,108 @@
+package com.scraper.api.untils;
+
+import com.scraper.api.model.FieldSpec;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.TileSpec;
+import org.apache.commons.lang3.StringUtils;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Extracts product tiles from raw HTML without a browser.
+ * The document is parsed as a stream: every tile is handed over as soon as its closing tag is read
+ * and dropped from the tree right after, so memory stays flat whatever the page size.
+ */
+public class HtmlTileExtractor {
+
+    private HtmlTileExtractor() {
+    }
+
+    /**
+     * Parses the page until {@code limit} products with a name are found or the input ends.
+     *
+     * @param reader  The HTML page.
+     * @param baseUri URL of the page, used to resolve relative links.
+     * @param spec    Selectors of the tiles and their fields.
+     * @param limit   Maximum number of products to extract.
+     * @return The extracted products, in page order.
+     */
+    public static List<ProductData> extract(Reader reader, String baseUri, TileSpec spec, int limit) throws IOException {
+        return extract(reader, baseUri, spec, limit, product -> { });
+    }
+
+    /**
+     * Same as {@link #extract(Reader, String, TileSpec, int)}, handing every product to the sink as soon as its tile is parsed.
+     */
+    public static List<ProductData> extract(Reader reader, String baseUri, TileSpec spec, int limit,
+                                            Consumer<ProductData> sink) throws IOException {
+        return extract(reader, baseUri, spec, limit, sink, null);
+    }
+
+    /**
+     * Same as {@link #extract(Reader, String, TileSpec, int, Consumer)}, counting the fields found by a fallback selector.
+     *
+     * @param fallbacks Receives the fields filled by a fallback selector, may be null.
+     */
+    public static List<ProductData> extract(Reader reader, String baseUri, TileSpec spec, int limit,
+                                            Consumer<ProductData> sink, SelectorFallbacks fallbacks) throws IOException {
+        List<ProductData> products = new ArrayList<>();
+        // the parser needs mark() to sniff the input, which a raw response stream reader does not support
+        Reader input = reader.markSupported() ? reader : new BufferedReader(reader);
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser()).parse(input, baseUri)) {
+            Element tile;
+            while (products.size() < limit && (tile = streamer.selectNext(spec.getTileSelector())) != null) {
+                ProductData product = extractTile(tile, spec, fallbacks);
+                if (product.getName() != null) {
+                    products.add(product);
+                    sink.accept(product);
+                }
+                tile.remove();
+            }
+        }
+        return products;
+    }
+
+    public static ProductData extractTile(Element tile, TileSpec spec) {
+        return extractTile(tile, spec, null);
+    }
+
+    public static ProductData extractTile(Element tile, TileSpec spec, SelectorFallbacks fallbacks) {
+        ProductData product = new ProductData();
+        product.setName(extractField(tile, "name", spec.getName(), fallbacks));
+        product.setBrand(extractField(tile, "brand", spec.getBrand(), fallbacks));
+        product.setPrice(extractField(tile, "price", spec.getPrice(), fallbacks));
+        product.setImage(extractField(tile, "image", spec.getImage(), fallbacks));
+        product.setUrl(extractField(tile, "url", spec.getUrl(), fallbacks));
+        return product;
+    }
+
+    private static String extractField(Element tile, String name, FieldSpec field, SelectorFallbacks fallbacks) {
+        if (field == null) return null;
+        List<String> selectors = field.getSelectors();
+        for (int i = 0; i < selectors.size(); i++) {
+            Element element = tile.selectFirst(selectors.get(i));
+            if (element == null) continue;
+            String value;
+            if (field.getAttribute() == null) {
+                value = element.text();
+            } else {
+                // resolve relative href/src the same way the browser reports them
+                value = element.absUrl(field.getAttribute());
+                if (StringUtils.isEmpty(value)) value = element.attr(field.getAttribute());
+            }
+            if (!StringUtils.isEmpty(value)) {
+                if (i > 0 && fallbacks != null) fallbacks.record(name);
+                return value;
+            }
+        }
+        return null;
+    }
+}
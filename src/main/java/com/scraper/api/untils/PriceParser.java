@@ -0,0 +1,54 @@
+package com.scraper.api.untils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the price shown on a product tile into the price of one unit.
+ * Handles plain prices ("$4.99", "$4.99 ea", "$1.29/100g"), cents ("99¢"), multi-buy offers ("2 for $7.00", "2/$7")
+ * and ranges ("$3.49 - $4.99", the lowest price is kept). A number without a currency marker is not a price,
+ * "Pack of 12" gives no unit price.
+ */
+public class PriceParser {
+
+    private static final String AMOUNT = "(\\d{1,3}(?:,\\d{3})+|\\d+)(?:\\.(\\d{1,2}))?";
+
+    private static final Pattern MULTI_BUY = Pattern.compile("(\\d+)\\s*(?:for|/)\\s*\\$\\s*" + AMOUNT, Pattern.CASE_INSENSITIVE);
+    private static final Pattern RANGE = Pattern.compile("\\$\\s*" + AMOUNT + "\\s*(?:-|–|to)\\s*\\$\\s*" + AMOUNT, Pattern.CASE_INSENSITIVE);
+    private static final Pattern DOLLARS = Pattern.compile("\\$\\s*" + AMOUNT);
+    private static final Pattern CENTS = Pattern.compile("(\\d+)\\s*(?:¢|c\\b)");
+
+    private PriceParser() {
+    }
+
+    /**
+     * @param price The price as displayed, may be null.
+     * @return The price of one unit in dollars with two decimals, null when no price is found.
+     */
+    public static BigDecimal unitPrice(String price) {
+        if (price == null || price.isBlank()) return null;
+
+        Matcher matcher = MULTI_BUY.matcher(price);
+        if (matcher.find()) {
+            int quantity = Integer.parseInt(matcher.group(1));
+            BigDecimal total = amount(matcher.group(2), matcher.group(3));
+            if (quantity > 0) return total.divide(BigDecimal.valueOf(quantity), 2, RoundingMode.HALF_UP);
+        }
+        matcher = RANGE.matcher(price);
+        if (matcher.find()) return amount(matcher.group(1), matcher.group(2)).min(amount(matcher.group(3), matcher.group(4)));
+
+        matcher = DOLLARS.matcher(price);
+        if (matcher.find()) return amount(matcher.group(1), matcher.group(2));
+
+        matcher = CENTS.matcher(price);
+        if (matcher.find()) return new BigDecimal(matcher.group(1)).movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
+        return null;
+    }
+
+    private static BigDecimal amount(String dollars, String cents) {
+        String value = dollars.replace(",", "") + (cents == null ? "" : "." + cents);
+        return new BigDecimal(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -12,4 +12,10 @@ public class ProductScraperParameters {
     // additional filters
     private String datePosted;
     private String sortBy;
+
+    // answers the timed phases of the search with its result
+    private boolean trace;
+
+    // counts the keyword in the popularity driving the prewarm, off for the searches not asked by a user
+    private boolean recordPopularity = true;
 }
@@ -0,0 +1,131 @@
+package com.scraper.api.untils;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * What the current thread scrapes for: the site, and the trace of the search when it is traced.
+ * Set around a scrape and carried to the threads the scrape hands work to by the {@link #propagating} executors,
+ * like a logging MDC. A scrape shared by identical searches carries the context of the search that started it.
+ */
+public final class ScrapeContext {
+
+    private static final ThreadLocal<ScrapeContext> CURRENT = new ThreadLocal<>();
+    private static final ScrapeContext NONE = new ScrapeContext(null, null);
+
+    private final String site;
+    private final ScrapeTrace trace;
+
+    private ScrapeContext(String site, ScrapeTrace trace) {
+        this.site = site;
+        this.trace = trace;
+    }
+
+    public static ScrapeContext current() {
+        ScrapeContext context = CURRENT.get();
+        return context != null ? context : NONE;
+    }
+
+    /**
+     * @return The site being scraped, null outside of a site scrape.
+     */
+    public String getSite() {
+        return site;
+    }
+
+    /**
+     * @return The trace of the search, null when it is not traced.
+     */
+    public ScrapeTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Runs the work with the context of a search, the site is set by the site scrapes.
+     */
+    public static <T> T callTraced(ScrapeTrace trace, Supplier<T> work) {
+        return call(new ScrapeContext(null, trace), work);
+    }
+
+    /**
+     * Runs the work as part of the scrape of a site, keeping the trace of the current search.
+     */
+    public static <T> T callForSite(String site, Supplier<T> work) {
+        return call(new ScrapeContext(site, current().trace), work);
+    }
+
+    /**
+     * The task running with the context of the calling thread.
+     */
+    public static Runnable wrap(Runnable task) {
+        ScrapeContext captured = CURRENT.get();
+        if (captured == null) return task;
+        return () -> call(captured, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * The executor running every task with the context of the thread that submitted it.
+     */
+    public static ExecutorService propagating(ExecutorService executor) {
+        return new PropagatingExecutorService(executor);
+    }
+
+    private static <T> T call(ScrapeContext context, Supplier<T> work) {
+        ScrapeContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    // submit and invoke go through execute, which is the only place tasks need wrapping
+    private static final class PropagatingExecutorService extends AbstractExecutorService {
+        private final ExecutorService delegate;
+
+        private PropagatingExecutorService(ExecutorService delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+}
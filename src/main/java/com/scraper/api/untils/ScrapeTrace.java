@@ -0,0 +1,54 @@
+package com.scraper.api.untils;
+
+import com.scraper.api.model.TraceSpan;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timed phases of one traced search, as spans starting from the beginning of the search.
+ * Spans ended once the search returned, by a page still loading or a background refresh, are dropped.
+ */
+public class ScrapeTrace {
+
+    // a crawl of many pages stays readable, the search is not slowed down by a runaway trace
+    private static final int MAX_SPANS = 500;
+
+    private final long start = System.nanoTime();
+    private final List<TraceSpan> spans = new ArrayList<>();
+    private boolean finished;
+    private int dropped;
+
+    public synchronized void add(String name, String site, long startNanos, long endNanos, String error) {
+        if (finished) return;
+        if (spans.size() >= MAX_SPANS) {
+            dropped++;
+            return;
+        }
+        TraceSpan span = new TraceSpan();
+        span.setName(name);
+        span.setSite(site);
+        span.setStartMicros(TimeUnit.NANOSECONDS.toMicros(startNanos - start));
+        span.setDurationMicros(TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos));
+        span.setError(error);
+        spans.add(span);
+    }
+
+    /**
+     * Closes the trace.
+     *
+     * @return The spans in start order.
+     */
+    public synchronized List<TraceSpan> finish() {
+        finished = true;
+        List<TraceSpan> ordered = new ArrayList<>(spans);
+        ordered.sort(Comparator.comparingLong(TraceSpan::getStartMicros));
+        return ordered;
+    }
+
+    public synchronized int getDropped() {
+        return dropped;
+    }
+}
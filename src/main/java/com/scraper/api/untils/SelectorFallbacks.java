@@ -0,0 +1,22 @@
+package com.scraper.api.untils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fields of the tiles of one page filled by a fallback selector rather than the first one, per field name.
+ * A growing count tells the first selector of a field stopped matching the markup of the site.
+ */
+public class SelectorFallbacks {
+
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+
+    public synchronized void record(String field) {
+        counts.merge(field, 1, Integer::sum);
+    }
+
+    public synchronized Map<String, Integer> getCounts() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(counts));
+    }
+}
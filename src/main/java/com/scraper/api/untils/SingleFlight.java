@@ -0,0 +1,150 @@
+package com.scraper.api.untils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into a single execution.
+ * The first caller starts the work on the executor, every caller (the first one included) then waits on the
+ * shared result with its own timeout. A caller giving up only detaches itself, the work is cancelled once
+ * the last waiting caller is gone.
+ *
+ * @param <K> Key identifying identical calls.
+ * @param <V> Result of the work.
+ */
+public class SingleFlight<K, V> {
+
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<K, Flight> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    public SingleFlight(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the work for the key, or joins the execution already in flight for it.
+     *
+     * @param key     Key identifying identical calls.
+     * @param work    The work, run on the executor by the first caller only.
+     * @param timeout Maximum time this caller waits for the result.
+     * @return The shared result.
+     * @throws TimeoutException     When the result is not there within the timeout of this caller.
+     * @throws InterruptedException When this caller is interrupted while waiting.
+     */
+    public V execute(K key, Supplier<V> work, Duration timeout) throws TimeoutException, InterruptedException {
+        Flight flight;
+        boolean leader;
+        while (true) {
+            Flight candidate = new Flight();
+            Flight existing = flights.putIfAbsent(key, candidate);
+            flight = existing == null ? candidate : existing;
+            leader = existing == null;
+            if (flight.join()) break;
+            // the flight was abandoned by all its callers, start a new one
+            flights.remove(key, flight);
+        }
+
+        if (leader) {
+            executions.increment();
+            Flight started = flight;
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                try {
+                    started.result.complete(work.get());
+                } catch (Throwable e) {
+                    started.result.completeExceptionally(e);
+                } finally {
+                    flights.remove(key, started);
+                }
+            }, null);
+            // published before it may run, so a flight abandoned right away still gets its task cancelled
+            flight.task = task;
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                flight.result.completeExceptionally(e);
+                flights.remove(key, flight);
+            }
+        } else {
+            coalesced.increment();
+        }
+
+        boolean completed = false;
+        try {
+            V value = flight.result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            completed = true;
+            return value;
+        } catch (ExecutionException e) {
+            completed = true;
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new CompletionException(cause);
+        } finally {
+            if (flight.leave(completed)) {
+                abandoned.increment();
+                flight.cancel();
+                flights.remove(key, flight);
+            }
+        }
+    }
+
+    public int getInFlight() {
+        return flights.size();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    private final class Flight {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private volatile Future<?> task;
+        private int waiters;
+        private boolean closed;
+
+        private synchronized boolean join() {
+            if (closed) return false;
+            waiters++;
+            return true;
+        }
+
+        // true when the caller leaving was the last one waiting on an unfinished result
+        private synchronized boolean leave(boolean completed) {
+            waiters--;
+            if (waiters == 0 && !completed && !result.isDone()) {
+                closed = true;
+                return true;
+            }
+            return false;
+        }
+
+        private void cancel() {
+            Future<?> running = task;
+            if (running != null) running.cancel(true);
+            result.cancel(false);
+        }
+    }
+}
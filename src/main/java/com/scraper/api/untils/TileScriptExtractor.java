@@ -0,0 +1,138 @@
+package com.scraper.api.untils;
+
+import com.scraper.api.model.FieldSpec;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.TileSpec;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts every product tile of the loaded page with a single injected script.
+ * The tile spec is sent as the script argument and the browser answers with one JSON array,
+ * so the cost is one WebDriver round trip per page whatever the number of tiles and fields.
+ */
+public class TileScriptExtractor {
+
+    // arguments[0] is the spec {tile, fields: {name: {selectors, attribute}}}, arguments[1] the product limit,
+    // arguments[2] and arguments[3] the range of tiles to extract, the whole page when missing.
+    // a row lists the fields found by a fallback selector under "fallbacks"
+    private static final String SCRIPT = ""
+            + "var spec = arguments[0], limit = arguments[1], from = arguments[2] || 0, out = [];"
+            + "var tiles = document.querySelectorAll(spec.tile);"
+            + "var to = arguments[3] == null ? tiles.length : Math.min(arguments[3], tiles.length);"
+            + "for (var i = from; i < to && out.length < limit; i++) {"
+            + "  var row = {};"
+            + "  for (var name in spec.fields) {"
+            + "    var field = spec.fields[name];"
+            + "    for (var j = 0; j < field.selectors.length; j++) {"
+            + "      var el = tiles[i].querySelector(field.selectors[j]);"
+            + "      if (!el) continue;"
+            // like WebElement.getAttribute the property wins, so href and src come back absolute
+            + "      var value = field.attribute"
+            + "          ? ((typeof el[field.attribute] === 'string' && el[field.attribute]) || el.getAttribute(field.attribute))"
+            + "          : el.innerText;"
+            + "      if (value && value.trim()) {"
+            + "        row[name] = value.trim();"
+            + "        if (j > 0) (row.fallbacks = row.fallbacks || []).push(name);"
+            + "        break;"
+            + "      }"
+            + "    }"
+            + "  }"
+            + "  if (row.name) out.push(row);"
+            + "}"
+            + "return out;";
+
+    private static final String COUNT_SCRIPT = "return document.querySelectorAll(arguments[0]).length;";
+
+    private TileScriptExtractor() {
+    }
+
+    /**
+     * Extracts up to {@code limit} products with a name from the page currently loaded in the driver.
+     *
+     * @param driver The WebDriver holding the search result page.
+     * @param spec   Selectors of the tiles and their fields.
+     * @param limit  Maximum number of products to extract.
+     * @return The extracted products, in page order.
+     */
+    public static List<ProductData> extract(WebDriver driver, TileSpec spec, int limit) {
+        return extract(driver, spec, 0, null, limit);
+    }
+
+    /**
+     * Extracts up to {@code limit} products with a name from the tiles {@code from} inclusive to {@code to} exclusive,
+     * typically the batch appended by a "load more" button.
+     */
+    public static List<ProductData> extract(WebDriver driver, TileSpec spec, int from, Integer to, int limit) {
+        return extract(driver, spec, from, to, limit, null);
+    }
+
+    /**
+     * Same as {@link #extract(WebDriver, TileSpec, int, Integer, int)}, counting the fields found by a fallback selector.
+     *
+     * @param fallbacks Receives the fields filled by a fallback selector, may be null.
+     */
+    public static List<ProductData> extract(WebDriver driver, TileSpec spec, int from, Integer to, int limit,
+                                            SelectorFallbacks fallbacks) {
+        Object result = ((JavascriptExecutor) driver).executeScript(SCRIPT, toArgument(spec), limit, from, to);
+        if (!(result instanceof List)) return Collections.emptyList();
+
+        List<ProductData> products = new ArrayList<>();
+        for (Object row : (List<?>) result) {
+            if (!(row instanceof Map)) continue;
+            Map<?, ?> fields = (Map<?, ?>) row;
+            ProductData product = new ProductData();
+            product.setName(asString(fields.get("name")));
+            product.setBrand(asString(fields.get("brand")));
+            product.setPrice(asString(fields.get("price")));
+            product.setImage(asString(fields.get("image")));
+            product.setUrl(asString(fields.get("url")));
+            if (fallbacks != null && fields.get("fallbacks") instanceof List) {
+                for (Object field : (List<?>) fields.get("fallbacks")) fallbacks.record(String.valueOf(field));
+            }
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Counts the tiles on the page currently loaded in the driver.
+     */
+    public static int countTiles(WebDriver driver, TileSpec spec) {
+        Object result = ((JavascriptExecutor) driver).executeScript(COUNT_SCRIPT, spec.getTileSelector());
+        return result instanceof Number ? ((Number) result).intValue() : 0;
+    }
+
+    static Map<String, Object> toArgument(TileSpec spec) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        putField(fields, "name", spec.getName());
+        putField(fields, "brand", spec.getBrand());
+        putField(fields, "price", spec.getPrice());
+        putField(fields, "image", spec.getImage());
+        putField(fields, "url", spec.getUrl());
+
+        Map<String, Object> argument = new HashMap<>();
+        argument.put("tile", spec.getTileSelector());
+        argument.put("fields", fields);
+        return argument;
+    }
+
+    private static void putField(Map<String, Object> fields, String name, FieldSpec field) {
+        if (field == null) return;
+        Map<String, Object> value = new HashMap<>();
+        value.put("selectors", field.getSelectors());
+        value.put("attribute", field.getAttribute());
+        fields.put(name, value);
+    }
+
+    private static String asString(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
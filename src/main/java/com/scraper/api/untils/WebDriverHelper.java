@@ -10,31 +10,46 @@ import java.util.List;
 
 public class WebDriverHelper {
 
-    private static WebDriver driver;
-
-    // JavascriptExecutor instance for executing JavaScript commands
-    private static JavascriptExecutor js;
+    // WebDriver bound to the current thread, pooled sessions are used by several threads at once
+    private static final ThreadLocal<WebDriver> DRIVER = new ThreadLocal<>();
 
     public WebDriverHelper(WebDriver webDriver) {
-        driver = webDriver;
-        js = (JavascriptExecutor) driver;
+        init(webDriver);
     }
 
+    /**
+     * Binds the given WebDriver to the calling thread for the static helper methods.
+     *
+     * @param webDriver The WebDriver instance checked out by the calling thread.
+     */
     public static void init(WebDriver webDriver) {
-        driver = webDriver;
-        js = (JavascriptExecutor) driver;
+        DRIVER.set(webDriver);
     }
+
+    /**
+     * Unbinds the WebDriver from the calling thread, to be called before the session goes back to the pool.
+     */
+    public static void release() {
+        DRIVER.remove();
+    }
+
+    private static WebDriver driver() {
+        WebDriver driver = DRIVER.get();
+        if (driver == null) throw new IllegalStateException("No WebDriver bound to the current thread");
+        return driver;
+    }
+
     public static boolean isElementPresent(By locator) {
-        return driver.findElements(locator).size() > 0;
+        return driver().findElements(locator).size() > 0;
     }
 
     public static WebElement getElementIfExist(By locator) {
-        if (isElementPresent(locator)) return driver.findElement(locator);
+        if (isElementPresent(locator)) return driver().findElement(locator);
         return null;
     }
 
     public static List<WebElement> getElementsIfExists(By locator) {
-        if (isElementPresent(locator)) return driver.findElements(locator);
+        if (isElementPresent(locator)) return driver().findElements(locator);
         return null;
     }
 
@@ -47,7 +62,7 @@ public class WebDriverHelper {
     }
 
     public void waitUntilExpectedPageLoaded(String expectedUrl, By elementLocator) throws Exception {
-        Wait<WebDriver> wait = new WebDriverWait(driver, Duration.ofSeconds(30));
+        Wait<WebDriver> wait = new WebDriverWait(driver(), Duration.ofSeconds(30));
         try {
             wait.until(ExpectedConditions.urlContains(expectedUrl));
             if (elementLocator != null) {
@@ -60,21 +75,11 @@ public class WebDriverHelper {
 
     public static void goToPage(String url) {
         if (url.isBlank()) throw new RuntimeException("Can't go to the page, provided url is empty or null");
-        driver.get(url);
+        driver().get(url);
     }
 
     public static String getCurrentPageUrl() {
-        return driver.getCurrentUrl();
-    }
-
-    /**
-     * Method to wait for a specified number of seconds.
-     * Uses implicit wait to pause the test execution.
-     *
-     * @param seconds Number of seconds to wait.
-     */
-    public static void waitInSeconds(int seconds) {
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(seconds));
+        return driver().getCurrentUrl();
     }
 
     /**
@@ -84,14 +89,13 @@ public class WebDriverHelper {
      * @param element The web element to be clicked.
      */
     public static void clickByJs(WebElement element) {
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+        WebDriverWait wait = new WebDriverWait(driver(), Duration.ofSeconds(10));
         wait.until(d -> element.isDisplayed());
-        if (js != null) {
-            js.executeScript("arguments[0].click();", element);
-        }
+        ((JavascriptExecutor) driver()).executeScript("arguments[0].click();", element);
     }
 
     public static void shutDownScraper() {
-        driver.quit();
+        driver().quit();
+        release();
     }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.scraper.api.config;
+
+import com.scraper.api.untils.VirtualThreads;
+import org.apache.coyote.ProtocolHandler;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ScrapeExecutorConfigTests {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void fallsBackToPlatformThreadsWithoutVirtualThreads() throws Exception {
+		assumeFalse(VirtualThreads.isSupported(), "the runtime has virtual threads");
+		ScrapeExecutorConfig config = new ScrapeExecutorConfig(true);
+
+		ExecutorService scrapes = config.scrapeExecutor(2);
+		ExecutorService pages = config.pageExecutor();
+		ExecutorService searches = config.searchExecutor(2);
+		try {
+			for (ExecutorService executor : new ExecutorService[]{scrapes, pages}) {
+				Thread thread = executor.submit((Callable<Thread>) Thread::currentThread).get();
+				// virtual threads are instances of an internal subclass
+				assertEquals(Thread.class, thread.getClass());
+				assertTrue(thread.isDaemon());
+			}
+			assertTrue(pages.submit((Callable<String>) () -> Thread.currentThread().getName()).get().startsWith("page-"));
+			assertEquals(60, ((ThreadPoolExecutor) searches).getKeepAliveTime(TimeUnit.SECONDS));
+
+			ProtocolHandler handler = mock(ProtocolHandler.class);
+			((TomcatProtocolHandlerCustomizer<ProtocolHandler>) config.virtualThreadRequests()).customize(handler);
+			verify(handler, never()).setExecutor(any());
+		} finally {
+			scrapes.shutdownNow();
+			pages.shutdownNow();
+			searches.shutdownNow();
+		}
+	}
+}
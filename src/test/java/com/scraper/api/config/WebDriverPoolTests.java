@@ -0,0 +1,122 @@
+package com.scraper.api.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebDriverPoolTests {
+
+	// every session the pool started, in order
+	private final List<WebDriver> drivers = new ArrayList<>();
+	private final Supplier<WebDriver> factory = () -> {
+		WebDriver driver = mock(WebDriver.class, RETURNS_DEEP_STUBS);
+		drivers.add(driver);
+		return driver;
+	};
+
+	private WebDriverPool pool;
+
+	@AfterEach
+	void close() {
+		if (pool != null) pool.close();
+	}
+
+	@Test
+	void reusesReturnedSessions() {
+		pool = pool(2, Duration.ofMinutes(30), 50, Duration.ofSeconds(30));
+
+		PooledWebDriver first = pool.borrow();
+		first.close();
+		PooledWebDriver second = pool.borrow();
+
+		assertSame(first.getDriver(), second.getDriver());
+		assertEquals(1, pool.getCreatedCount());
+		assertEquals(1, pool.getActive());
+		second.close();
+		assertEquals(0, pool.getActive());
+		assertEquals(1, pool.getIdle());
+	}
+
+	@Test
+	void recyclesSessionsAfterMaxUsesOrMaxAge() throws Exception {
+		pool = pool(2, Duration.ofMinutes(30), 2, Duration.ofSeconds(30));
+		pool.borrow().close();
+		PooledWebDriver used = pool.borrow();
+		used.close();
+		// quit in the background once its last use is returned
+		verify(used.getDriver(), timeout(1000)).quit();
+		assertNotSame(used.getDriver(), borrowAndClose());
+
+		pool.close();
+		pool = pool(2, Duration.ofMillis(50), 50, Duration.ofSeconds(30));
+		WebDriver old = borrowAndClose();
+		Thread.sleep(60);
+		// too old to be handed out again
+		assertNotSame(old, borrowAndClose());
+		verify(old).quit();
+	}
+
+	@Test
+	void failsWhenExhausted() {
+		pool = pool(1, Duration.ofMinutes(30), 50, Duration.ofSeconds(30));
+		PooledWebDriver session = pool.borrow();
+
+		assertThrows(WebDriverPool.WebDriverPoolException.class, () -> pool.borrow(Duration.ofMillis(50)));
+		assertEquals(1, pool.getExhaustedCount());
+		session.close();
+		pool.borrow(Duration.ofMillis(50)).close();
+		assertEquals(1, pool.getCreatedCount());
+	}
+
+	@Test
+	void quitsInvalidatedSessions() {
+		pool = pool(1, Duration.ofMinutes(30), 50, Duration.ofSeconds(30));
+		PooledWebDriver session = pool.borrow();
+		session.invalidate();
+		session.close();
+
+		verify(session.getDriver(), timeout(1000)).quit();
+		assertNotSame(session.getDriver(), borrowAndClose());
+		assertEquals(2, pool.getCreatedCount());
+	}
+
+	@Test
+	void dropsIdleSessionsFailingTheHealthCheck() {
+		pool = pool(1, Duration.ofMinutes(30), 50, Duration.ZERO);
+		WebDriver healthy = borrowAndClose();
+		WebDriver crashed = borrowAndClose();
+		assertSame(healthy, crashed);
+		verify(healthy, never()).quit();
+
+		when(crashed.getWindowHandle()).thenThrow(new WebDriverException("session deleted"));
+		assertNotSame(crashed, borrowAndClose());
+		verify(crashed).quit();
+	}
+
+	private WebDriverPool pool(int maxSize, Duration maxAge, int maxUses, Duration idleValidation) {
+		return new WebDriverPool(factory, maxSize, 0, Duration.ofSeconds(1), maxAge, maxUses, idleValidation);
+	}
+
+	private WebDriver borrowAndClose() {
+		try (PooledWebDriver session = pool.borrow()) {
+			return session.getDriver();
+		}
+	}
+}
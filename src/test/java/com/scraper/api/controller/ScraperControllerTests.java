@@ -0,0 +1,133 @@
+package com.scraper.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.api.config.ScrapeExecutorConfig;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.model.SiteResult;
+import com.scraper.api.model.SiteStatus;
+import com.scraper.api.service.ProductService;
+import com.scraper.api.service.SearchListener;
+import com.scraper.api.untils.ProductScraperParameters;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ScraperControllerTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final ProductService productService = mock(ProductService.class);
+	// the streamed searches executor of the application, two streams at most
+	private final ExecutorService searchExecutor = new ScrapeExecutorConfig(false).searchExecutor(2);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final MockMvc mvc;
+
+	ScraperControllerTests() {
+		ScraperController controller = new ScraperController();
+		ReflectionTestUtils.setField(controller, "productService", productService);
+		ReflectionTestUtils.setField(controller, "searchExecutor", searchExecutor);
+		ReflectionTestUtils.setField(controller, "streamTimeout", Duration.ofSeconds(10));
+		ReflectionTestUtils.setField(controller, "streamRetryAfter", Duration.ofSeconds(5));
+		mvc = MockMvcBuilders.standaloneSetup(controller).build();
+	}
+
+	@AfterEach
+	void shutdown() {
+		release.countDown();
+		searchExecutor.shutdownNow();
+	}
+
+	@Test
+	void streamsOneJsonEventPerLine() throws Exception {
+		when(productService.searchProducts(any(ProductScraperParameters.class), any(SearchListener.class))).thenAnswer(invocation -> {
+			SearchListener listener = invocation.getArgument(1);
+			SearchResult result = new SearchResult();
+			for (String name : List.of("milk", "chocolate\nmilk")) {
+				ProductData product = product(name);
+				result.getProducts().add(product);
+				listener.onProduct("zehrs", product);
+			}
+			SiteResult site = new SiteResult();
+			site.setSite("zehrs");
+			site.setStatus(SiteStatus.OK);
+			result.getSites().add(site);
+			listener.onSiteComplete(site);
+			return result;
+		});
+
+		MvcResult started = mvc.perform(get("/api/products/search/stream").param("q", "milk"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MvcResult result = mvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+				.andReturn();
+
+		// the newline inside a product name is escaped, every line is one whole event
+		String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+		assertTrue(body.endsWith("\n"));
+		List<String> types = new ArrayList<>();
+		for (String line : body.split("\n")) {
+			JsonNode event = objectMapper.readTree(line);
+			types.add(event.get("type").asText());
+		}
+		assertEquals(List.of("product", "product", "site", "done"), types);
+		assertEquals("chocolate\nmilk", objectMapper.readTree(body.split("\n")[1]).at("/product/name").asText());
+		assertEquals(2, objectMapper.readTree(body.split("\n")[3]).get("productCount").asInt());
+	}
+
+	@Test
+	void rejectsStreamsBeyondTheLimit() throws Exception {
+		CountDownLatch running = new CountDownLatch(2);
+		when(productService.searchProducts(any(ProductScraperParameters.class), any(SearchListener.class))).thenAnswer(invocation -> {
+			running.countDown();
+			release.await();
+			return new SearchResult();
+		});
+		mvc.perform(get("/api/products/search/stream").param("q", "milk")).andExpect(request().asyncStarted());
+		mvc.perform(get("/api/products/search/stream").param("q", "eggs")).andExpect(request().asyncStarted());
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+
+		// no queue, the third stream is answered right away rather than waiting for a thread
+		mvc.perform(get("/api/products/search/stream").param("q", "bread"))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"))
+				.andExpect(jsonPath("$.error").value("Too many streamed searches running, try again later"));
+
+		release.countDown();
+	}
+
+	private static ProductData product(String name) {
+		ProductData product = new ProductData();
+		product.setName(name);
+		product.setUrl("https://www.zehrs.ca/" + name.replace('\n', '-'));
+		return product;
+	}
+}
@@ -0,0 +1,44 @@
+package com.scraper.api.model;
+
+import com.scraper.api.site.ZehrsSiteAdapter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceBlockingSpecTests {
+
+	@Test
+	void expandsTheResourceTypesBeforeTheExplicitPatterns() {
+		ResourceBlockingSpec spec = ResourceBlockingSpec.builder()
+				.resourceType(ResourceBlockingSpec.FONT)
+				.resourceType(ResourceBlockingSpec.STYLESHEET)
+				.urlPattern("*hotjar.com*")
+				.build();
+
+		assertEquals(List.of("*.woff*", "*.ttf*", "*.otf*", "*.eot*", "*.css*", "*hotjar.com*"), spec.blockedUrlPatterns());
+		assertTrue(ResourceBlockingSpec.NONE.isEmpty());
+		assertTrue(ResourceBlockingSpec.NONE.blockedUrlPatterns().isEmpty());
+	}
+
+	@Test
+	void siteRejectsAnUnknownResourceType() {
+		assertEquals(List.of("*.mp4*", "*.webm*", "*.m3u8*", "*.mp3*", "*.ogg*", "*tracker*"),
+				zehrs(List.of(" media ", ""), List.of("*tracker*")).getResourceBlocking().blockedUrlPatterns());
+
+		// a typo would otherwise leave every image loading
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> zehrs(List.of("images"), Collections.emptyList()));
+		assertEquals("Unknown resource type images in scraper.sites.zehrs.blocked-resources, expected font, image, media, stylesheet",
+				e.getMessage());
+	}
+
+	private static ZehrsSiteAdapter zehrs(List<String> blockedResources, List<String> blockedUrls) {
+		return new ZehrsSiteAdapter(true, "https://www.zehrs.ca/search?search-bar={keyword}", ScrapeEngineType.BROWSER,
+				5, 48, "", 1, 2, 2, blockedResources, blockedUrls, Duration.ofSeconds(45));
+	}
+}
@@ -0,0 +1,147 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.BulkSearchRequest;
+import com.scraper.api.model.BulkSearchResult;
+import com.scraper.api.model.KeywordResult;
+import com.scraper.api.model.KeywordStatus;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.model.SiteResult;
+import com.scraper.api.model.SiteStatus;
+import com.scraper.api.untils.ProductScraperParameters;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkSearchServiceTests {
+
+	private final RecordingProductService productService = new RecordingProductService();
+	private final BulkSearchService bulk = new BulkSearchService(productService, 2, 3, 1);
+
+	@AfterEach
+	void shutdown() {
+		bulk.shutdown();
+	}
+
+	@Test
+	void searchesEveryKeywordOnceAndGroupsTheResultsInRequestOrder() {
+		BulkSearchRequest request = new BulkSearchRequest();
+		request.setKeywords(Arrays.asList(" milk ", "eggs", "Milk", "", "broken"));
+		request.setLimit(10L);
+		List<KeywordResult> streamed = new CopyOnWriteArrayList<>();
+
+		BulkSearchResult result = bulk.search(request, streamed::add);
+
+		assertEquals(List.of("milk", "eggs", "broken"), result.getResults().stream().map(KeywordResult::getKeyword).collect(Collectors.toList()));
+		assertEquals(3, productService.keywords.size());
+		assertEquals(KeywordStatus.OK, result.getResults().get(0).getStatus());
+		assertEquals(KeywordStatus.PARTIAL, result.getResults().get(1).getStatus());
+		assertEquals(KeywordStatus.FAILED, result.getResults().get(2).getStatus());
+		assertEquals("Site down", result.getResults().get(2).getError());
+		assertEquals(1, result.getOk());
+		assertEquals(1, result.getFailed());
+		assertEquals(3, streamed.size());
+		// a bulk search is no sign of what users look for
+		assertTrue(productService.popular.isEmpty());
+	}
+
+	@Test
+	void rejectsBulkSearchesBeyondTheLimitAndCancelsTheKeywordsLeft() throws Exception {
+		// both workers block on the slow keywords, eggs waits in the queue
+		BulkSearchService.Run run = bulk.start(request("slow 1", "slow 2", "eggs"), BulkSearchService.Listener.NONE);
+		productService.started.await();
+
+		assertThrows(BulkSearchesFullException.class, () -> bulk.search(request("milk"), BulkSearchService.Listener.NONE));
+		run.cancel();
+
+		assertEquals(KeywordStatus.FAILED, run.await().getResults().get(2).getStatus());
+		assertEquals(KeywordStatus.OK, bulk.search(request("milk"), BulkSearchService.Listener.NONE).getResults().get(0).getStatus());
+		assertFalse(productService.keywords.contains("eggs"));
+		assertEquals(1L, bulk.getStats().get("rejected"));
+	}
+
+	@Test
+	void rejectsRequestsWithoutKeywordsOrWithTooMany() {
+		BulkSearchRequest empty = new BulkSearchRequest();
+		empty.setKeywords(Arrays.asList(" ", null));
+		BulkSearchRequest tooMany = new BulkSearchRequest();
+		tooMany.setKeywords(Arrays.asList("a", "b", "c", "d"));
+
+		assertThrows(IllegalArgumentException.class, () -> bulk.search(empty, BulkSearchService.Listener.NONE));
+		assertThrows(IllegalArgumentException.class, () -> bulk.search(tooMany, BulkSearchService.Listener.NONE));
+		assertEquals(0, productService.keywords.size());
+	}
+
+	private static BulkSearchRequest request(String... keywords) {
+		BulkSearchRequest request = new BulkSearchRequest();
+		request.setKeywords(Arrays.asList(keywords));
+		return request;
+	}
+
+	/**
+	 * Answers one OK site per search, a timed out one for "eggs" and fails the searches of "broken".
+	 * The searches of the "slow" keywords block until they are interrupted.
+	 */
+	private static class RecordingProductService implements ProductService {
+		private final List<String> keywords = new CopyOnWriteArrayList<>();
+		// keywords counted in the popularity
+		private final List<String> popular = new CopyOnWriteArrayList<>();
+		private final CountDownLatch started = new CountDownLatch(2);
+
+		@Override
+		public SearchResult searchProducts(ProductScraperParameters parameters, SearchListener listener) {
+			String keyword = parameters.getKeywords();
+			keywords.add(keyword);
+			if (parameters.isRecordPopularity()) popular.add(keyword);
+			if (keyword.equals("broken")) throw new ScrapeException("Site down", 503);
+			if (keyword.startsWith("slow")) {
+				started.countDown();
+				try {
+					new CountDownLatch(1).await();
+				} catch (InterruptedException e) {
+					throw new ScrapeException("Interrupted", e);
+				}
+			}
+			SiteResult site = new SiteResult();
+			site.setSite("zehrs");
+			site.setStatus(keyword.equals("eggs") ? SiteStatus.TIMEOUT : SiteStatus.OK);
+			SearchResult result = new SearchResult();
+			result.setKeyword(keyword);
+			result.getSites().add(site);
+			return result;
+		}
+
+		@Override
+		public SearchResult searchProducts(String keyword, SearchListener listener) {
+			ProductScraperParameters parameters = new ProductScraperParameters();
+			parameters.setKeywords(keyword);
+			return searchProducts(parameters, listener);
+		}
+
+		@Override
+		public SearchResult searchProducts(String keyword) {
+			return searchProducts(keyword, SearchListener.NONE);
+		}
+
+		@Override
+		public Set<ProductData> getProducts() {
+			return Set.of();
+		}
+
+		@Override
+		public Set<ProductData> getProductsByKeyword(String keyword) {
+			return Set.of();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.scraper.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeywordPopularityTests {
+
+	@Test
+	void ranksKeywordsByDecayedSearchCount() {
+		AtomicLong now = new AtomicLong();
+		KeywordPopularity popularity = new KeywordPopularity(Duration.ofHours(1), 100, now::get);
+		for (int i = 0; i < 4; i++) popularity.record("Milk");
+		popularity.record(" milk ");
+		popularity.record("eggs");
+
+		// two half-lives later milk weighs 5 / 4, and three fresh searches of bread outweigh it
+		now.set(Duration.ofHours(2).toMillis());
+		for (int i = 0; i < 3; i++) popularity.record("bread");
+
+		assertEquals(List.of("bread", "milk"), popularity.top(5, 1));
+		assertEquals(List.of("bread"), popularity.top(1, 0));
+	}
+
+	@Test
+	void dropsLeastPopularHalfWhenFull() {
+		KeywordPopularity popularity = new KeywordPopularity(Duration.ofHours(1), 4, () -> 0);
+		for (String keyword : List.of("a", "a", "b", "b", "c", "d", "e")) popularity.record(keyword);
+
+		assertEquals(3, popularity.getTracked());
+		assertEquals(List.of("a", "b"), popularity.top(2, 0));
+	}
+}
@@ -0,0 +1,67 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.SearchCacheKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListingTrackerTests {
+
+	private static final SearchCacheKey MILK = new SearchCacheKey("zehrs", "milk");
+	private static final SearchCacheKey CHEESE = new SearchCacheKey("zehrs", "cheese");
+
+	private final ListingTracker tracker = new ListingTracker(100);
+
+	@AfterEach
+	void clearInterrupt() {
+		Thread.interrupted();
+	}
+
+	@Test
+	void completeCrawlReportsWhatItNoLongerLists() {
+		tracker.update(MILK, List.of("a", "b", "c"), true);
+		tracker.update(CHEESE, List.of("c"), true);
+
+		// c is still listed by the cheese search
+		assertEquals(List.of("b"), tracker.update(MILK, List.of("a"), true));
+		assertEquals(2, tracker.getProducts());
+	}
+
+	@Test
+	void incompleteCrawlOnlyAdds() {
+		// a crawl stopped on a page timeout lists whatever was rendered by then
+		tracker.update(MILK, List.of("a", "b", "c"), true);
+
+		assertTrue(tracker.update(MILK, List.of("a"), false).isEmpty());
+		assertEquals(List.of("b", "c"), sorted(tracker.update(MILK, List.of("a"), true)));
+	}
+
+	@Test
+	void interruptedCrawlIsNeverComplete() {
+		tracker.update(MILK, List.of("a", "b", "c"), true);
+
+		Thread.currentThread().interrupt();
+		assertTrue(tracker.update(MILK, List.of("a"), true).isEmpty());
+		assertTrue(Thread.interrupted());
+		assertEquals(3, tracker.getProducts());
+	}
+
+	@Test
+	void forgottenSearchesReportNothingGone() {
+		ListingTracker small = new ListingTracker(1);
+		small.update(MILK, List.of("a"), true);
+
+		assertTrue(small.update(CHEESE, List.of("b"), true).isEmpty());
+		assertEquals(1, small.getSearches());
+		assertEquals(1, small.getProducts());
+	}
+
+	private static List<String> sorted(List<String> keys) {
+		keys.sort(null);
+		return keys;
+	}
+}
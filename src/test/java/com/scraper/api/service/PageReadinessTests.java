@@ -0,0 +1,111 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ReadinessOutcome;
+import com.scraper.api.model.ReadinessSpec;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class PageReadinessTests {
+
+	private final PageReadiness readiness = new PageReadiness(Duration.ofSeconds(15), Duration.ofMillis(10));
+	private final WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+
+	@Test
+	void waitsUntilEveryConditionIsMet() {
+		when(((JavascriptExecutor) driver).executeScript(anyString(), any()))
+				.thenReturn(probe(false, 1000, 1000, false))
+				.thenReturn(probe(true, 100, 1000, false))
+				.thenReturn(probe(true, 1000, 100, false))
+				.thenReturn(probe(true, 1000, 1000, false));
+
+		ReadinessOutcome outcome = readiness.await(driver, spec(Duration.ofSeconds(5)));
+
+		assertTrue(outcome.isReady());
+		assertFalse(outcome.isEmpty());
+		assertNull(outcome.getPendingCondition());
+		verify((JavascriptExecutor) driver, times(4)).executeScript(anyString(), any());
+		assertEquals(0, readiness.getTimeouts());
+	}
+
+	@Test
+	void stopsAtABotChallenge() {
+		when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenReturn(probe(false, 1000, 1000, true));
+
+		ReadinessOutcome outcome = readiness.await(driver, spec(Duration.ofSeconds(5)));
+
+		assertFalse(outcome.isReady());
+		assertTrue(outcome.isBlocked());
+		verify((JavascriptExecutor) driver, times(1)).executeScript(anyString(), any());
+		assertEquals(1, readiness.getBlocked());
+	}
+
+	@Test
+	void timeoutIsNotAnError() {
+		// the tiles are there but the network never settles, what was rendered is still extracted
+		when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenReturn(probe(true, 10, 1000, false));
+
+		ReadinessOutcome outcome = readiness.await(driver, spec(Duration.ofMillis(100)));
+
+		assertFalse(outcome.isReady());
+		assertFalse(outcome.isBlocked());
+		assertEquals("network-idle", outcome.getPendingCondition());
+		assertTrue(outcome.getWaitedMillis() >= 100);
+		assertEquals(1, readiness.getTimeouts());
+	}
+
+	@Test
+	void tellsWhenTheSearchHasNoResults() {
+		// the empty results element stands in for the tiles, the page still settles like any other
+		when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenReturn(Arrays.asList(true, 10, 1000, false, true));
+
+		ReadinessOutcome outcome = readiness.await(driver, spec(Duration.ofMillis(100)));
+
+		assertFalse(outcome.isReady());
+		assertTrue(outcome.isEmpty());
+		assertEquals("network-idle", outcome.getPendingCondition());
+	}
+
+	@Test
+	void interruptEndsTheWaitAndKeepsTheFlag() {
+		when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenReturn(probe(false, 1000, 1000, false));
+
+		Thread.currentThread().interrupt();
+		ReadinessOutcome outcome = readiness.await(driver, spec(Duration.ofSeconds(10)));
+
+		assertTrue(Thread.interrupted());
+		assertFalse(outcome.isReady());
+		assertEquals("ready-selector", outcome.getPendingCondition());
+		assertTrue(outcome.getWaitedMillis() < 5000);
+	}
+
+	private static ReadinessSpec spec(Duration timeout) {
+		return ReadinessSpec.builder()
+				.readySelector("div.product-tile")
+				.networkIdle(Duration.ofMillis(500))
+				.domQuiet(Duration.ofMillis(300))
+				.timeout(timeout)
+				.build();
+	}
+
+	// the probe script answers [selector found, ms since network, ms since mutation, blocked, empty results]
+	private static List<Object> probe(boolean found, double sinceNetwork, double sinceMutation, boolean blocked) {
+		return Arrays.asList(found, sinceNetwork, sinceMutation, blocked, false);
+	}
+}
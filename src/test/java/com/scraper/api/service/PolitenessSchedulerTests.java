@@ -0,0 +1,142 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.RateLimitSpec;
+import com.scraper.api.site.ZehrsSiteAdapter;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolitenessSchedulerTests {
+
+	private static final RateLimitSpec UNLIMITED = RateLimitSpec.builder().requestsPerSecond(0).maxConcurrentPages(10).build();
+
+	@Test
+	void spacesFetchesByTokenRate() {
+		PolitenessScheduler scheduler = scheduler(Map.of("a.test",
+				RateLimitSpec.builder().requestsPerSecond(20).burst(1).maxConcurrentPages(10).build()), 8, Duration.ofMillis(200));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 4; i++) {
+			scheduler.acquire("http://a.test/search").close();
+		}
+
+		// the first fetch uses the burst, the next three wait 50 ms each for a token
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 120);
+	}
+
+	@Test
+	void capsPagesInFlightPerHost() {
+		PolitenessScheduler scheduler = scheduler(Map.of("a.test",
+				RateLimitSpec.builder().requestsPerSecond(0).maxConcurrentPages(1).build()), 8, Duration.ofMillis(200));
+
+		PolitenessScheduler.Permit first = scheduler.acquire("http://a.test/1");
+		assertThrows(ScrapeException.class, () -> scheduler.acquire("http://a.test/2"));
+		scheduler.acquire("http://b.test/1").close();
+
+		first.close();
+		scheduler.acquire("http://a.test/2").close();
+		assertEquals(1, scheduler.getTimeouts());
+	}
+
+	@Test
+	void servesWaitingHostsRoundRobin() throws Exception {
+		PolitenessScheduler scheduler = scheduler(Map.of("a.test", UNLIMITED, "b.test", UNLIMITED), 1, Duration.ofSeconds(5));
+		List<String> order = new CopyOnWriteArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+
+		PolitenessScheduler.Permit blocker = scheduler.acquire("http://a.test/0");
+		for (String host : List.of("a.test", "a.test", "a.test", "b.test")) {
+			Thread thread = new Thread(() -> {
+				try (PolitenessScheduler.Permit ignored = scheduler.acquire("http://" + host + "/")) {
+					order.add(host);
+				}
+			});
+			thread.start();
+			threads.add(thread);
+			awaitQueued(scheduler, threads.size());
+		}
+		blocker.close();
+		for (Thread thread : threads) {
+			thread.join(5000);
+		}
+
+		assertEquals(List.of("a.test", "b.test", "a.test", "a.test"), order);
+	}
+
+	@Test
+	void backsOffHostAnsweringTooManyRequests() throws Exception {
+		AtomicInteger status = new AtomicInteger(429);
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/search", exchange -> {
+			byte[] body = "<html><body><div class=\"product-tile\"><span class=\"product-name__item--name\">Milk</span></div></body></html>"
+					.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+			exchange.sendResponseHeaders(status.get(), body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		});
+		server.start();
+		try (CloseableHttpClient client = HttpClients.createDefault()) {
+			PolitenessScheduler scheduler = new PolitenessScheduler(Map.of("127.0.0.1",
+					RateLimitSpec.builder().requestsPerSecond(100).burst(5).maxConcurrentPages(2).build()),
+					true, 8, Duration.ofSeconds(5), Duration.ofMillis(200), Duration.ofSeconds(1), UNLIMITED);
+			HttpScrapeEngine engine = new HttpScrapeEngine();
+			ReflectionTestUtils.setField(engine, "scraperHttpClient", client);
+			ReflectionTestUtils.setField(engine, "politenessScheduler", scheduler);
+			ReflectionTestUtils.setField(engine, "scrapeMetrics", new ScrapeMetrics(new SimpleMeterRegistry()));
+			String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/search";
+
+			ScrapeException throttled = assertThrows(ScrapeException.class,
+					() -> engine.scrape(url, ZehrsSiteAdapter.SEARCH_PRODUCT_TILE, ZehrsSiteAdapter.SEARCH_READINESS, 10, product -> { }));
+			assertEquals(429, throttled.getStatus());
+			Map<String, Object> host = scheduler.getHostStats().get(0);
+			assertEquals(1L, host.get("throttled"));
+			assertEquals(50.0, host.get("requestsPerSecond"));
+
+			// the backoff of the first throttle lasts between half and all of backoff-base
+			status.set(200);
+			long start = System.nanoTime();
+			List<ProductData> products = engine.scrape(url, ZehrsSiteAdapter.SEARCH_PRODUCT_TILE,
+					ZehrsSiteAdapter.SEARCH_READINESS, 10, product -> { });
+			assertEquals("Milk", products.get(0).getName());
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 80);
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	private static PolitenessScheduler scheduler(Map<String, RateLimitSpec> limits, int maxInFlight, Duration acquireTimeout) {
+		return new PolitenessScheduler(limits, true, maxInFlight, acquireTimeout,
+				Duration.ofMillis(200), Duration.ofSeconds(1), UNLIMITED);
+	}
+
+	private static void awaitQueued(PolitenessScheduler scheduler, int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			int queued = scheduler.getHostStats().stream().mapToInt(host -> (Integer) host.get("queued")).sum();
+			if (queued == expected) return;
+			Thread.sleep(5);
+		}
+		throw new AssertionError("Fetches not queued");
+	}
+}
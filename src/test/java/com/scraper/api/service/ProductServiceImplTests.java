@@ -0,0 +1,129 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchCacheKey;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.model.SiteResult;
+import com.scraper.api.model.SiteStatus;
+import com.scraper.api.site.SiteAdapter;
+import com.scraper.api.site.SiteAdapterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductServiceImplTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final SearchResultCache cache = mock(SearchResultCache.class);
+	// interrupted scrapes of the slow site, counted down when its future is cancelled
+	private final CountDownLatch cancelled = new CountDownLatch(1);
+	private final List<String> completed = new CopyOnWriteArrayList<>();
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void reportsTheSitesAsTheyFinishAndCancelsTheOnesPastTheirDeadline() throws Exception {
+		// the slow site is submitted first, it still completes last
+		ProductServiceImpl service = service(site("slow", Duration.ofMillis(200)), site("fast", null));
+
+		SearchResult result = service.searchProducts("milk", listener());
+
+		assertEquals(List.of("fast", "slow"), completed);
+		assertEquals(List.of(SiteStatus.OK, SiteStatus.TIMEOUT), statuses(result));
+		assertEquals("No result within PT0.2S", result.getSites().get(1).getError());
+		// the deadline of the slow site is its own and counts from the fan-out
+		assertTrue(result.getSites().get(1).getElapsedMillis() >= 200);
+		assertTrue(result.getSites().get(1).getElapsedMillis() < 5000);
+		assertEquals(Collections.singleton("fast milk"), result.getProducts().stream().map(ProductData::getName).collect(Collectors.toSet()));
+		assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void interruptedSearchCancelsTheSitesStillRunning() throws Exception {
+		ProductServiceImpl service = service(site("fast", null), site("slow", Duration.ofMinutes(1)));
+		AtomicReference<SearchResult> result = new AtomicReference<>();
+
+		Thread search = new Thread(() -> result.set(service.searchProducts("milk", listener())));
+		search.start();
+		while (completed.isEmpty()) Thread.sleep(5);
+		search.interrupt();
+		search.join(5000);
+
+		assertEquals(List.of(SiteStatus.OK, SiteStatus.FAILED), statuses(result.get()));
+		assertEquals("Search interrupted", result.get().getSites().get(1).getError());
+		assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+	}
+
+	private ProductServiceImpl service(SiteAdapter... sites) {
+		SiteAdapterRegistry registry = mock(SiteAdapterRegistry.class);
+		when(registry.getEnabled()).thenReturn(List.of(sites));
+		// the fast site answers at once, the slow one until its scrape is cancelled
+		when(cache.get(any(), any())).thenAnswer(invocation -> {
+			SearchCacheKey key = invocation.getArgument(0);
+			if (key.getSite().equals("slow")) {
+				try {
+					Thread.sleep(60_000);
+				} catch (InterruptedException e) {
+					cancelled.countDown();
+					Thread.currentThread().interrupt();
+				}
+				return Collections.emptyList();
+			}
+			ProductData product = new ProductData();
+			product.setName("fast milk");
+			product.setUrl("http://fast.test/milk");
+			return Collections.singletonList(product);
+		});
+
+		ProductServiceImpl service = new ProductServiceImpl();
+		ReflectionTestUtils.setField(service, "scrapeExecutor", executor);
+		ReflectionTestUtils.setField(service, "searchResultCache", cache);
+		ReflectionTestUtils.setField(service, "siteAdapters", registry);
+		ReflectionTestUtils.setField(service, "keywordPopularity", mock(KeywordPopularity.class));
+		ReflectionTestUtils.setField(service, "scrapeMetrics", new ScrapeMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(service, "maxProducts", 500);
+		ReflectionTestUtils.setField(service, "siteTimeout", Duration.ofSeconds(30));
+		return service;
+	}
+
+	private SearchListener listener() {
+		return new SearchListener() {
+			@Override
+			public void onSiteComplete(SiteResult result) {
+				completed.add(result.getSite());
+			}
+		};
+	}
+
+	private static List<SiteStatus> statuses(SearchResult result) {
+		return result.getSites().stream().map(SiteResult::getStatus).collect(Collectors.toList());
+	}
+
+	private static SiteAdapter site(String name, Duration timeout) {
+		SiteAdapter site = mock(SiteAdapter.class);
+		when(site.getName()).thenReturn(name);
+		when(site.getTimeout()).thenReturn(timeout);
+		return site;
+	}
+}
@@ -0,0 +1,96 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.ResourceBlockingSpec;
+import com.scraper.api.site.SiteAdapter;
+import com.scraper.api.site.SiteAdapterRegistry;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class ResourceBlockerTests {
+
+	private static final ResourceBlockingSpec SPEC = ResourceBlockingSpec.builder()
+			.resourceType(ResourceBlockingSpec.FONT)
+			.urlPattern("*tracker*")
+			.build();
+
+	private final WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(HasCdp.class, JavascriptExecutor.class));
+
+	@Test
+	void blocksTheResourcesOfTheSiteOfThePage() {
+		ResourceBlocker blocker = blocker(0);
+
+		assertTrue(blocker.apply(driver, "https://shop.test/search?q=milk"));
+
+		verify((HasCdp) driver).executeCdpCommand("Network.setBlockedURLs", Collections.singletonMap("urls", SPEC.blockedUrlPatterns()));
+	}
+
+	@Test
+	void clearsTheListForAPageLoadingEverything() {
+		// pooled sessions go from site to site, the list of the previous page must not stick
+		ResourceBlocker blocker = blocker(0);
+
+		assertFalse(blocker.apply(driver, "https://other.test/search?q=milk"));
+
+		verify((HasCdp) driver).executeCdpCommand("Network.setBlockedURLs", Collections.singletonMap("urls", Collections.emptyList()));
+	}
+
+	@Test
+	void sampledBaselinePagesAreComparedWithTheBlockedOnes() {
+		ResourceBlocker baseline = blocker(1);
+		assertFalse(baseline.apply(driver, "https://shop.test/search?q=milk"));
+		verify((HasCdp) driver).executeCdpCommand("Network.setBlockedURLs", Collections.singletonMap("urls", Collections.emptyList()));
+
+		when(((JavascriptExecutor) driver).executeScript(anyString()))
+				.thenReturn(Arrays.asList(40L, 3000L))
+				.thenReturn(Arrays.asList(10L, 1000L));
+		baseline.record(driver, false, 900);
+		baseline.record(driver, true, 300);
+
+		Map<String, Object> stats = baseline.getStats();
+		assertEquals(1L, stats.get("baselinePages"));
+		assertEquals(1L, stats.get("blockedPages"));
+		assertEquals(30L, stats.get("requestsSaved"));
+		assertEquals(2000L, stats.get("bytesSaved"));
+	}
+
+	@Test
+	void driverWithoutDevToolsLoadsEverything() {
+		ResourceBlocker blocker = blocker(0);
+		WebDriver plain = mock(WebDriver.class);
+
+		assertFalse(blocker.apply(plain, "https://shop.test/search?q=milk"));
+		assertEquals(1L, blocker.getStats().get("unsupportedPages"));
+		assertNull(blocker.getStats().get("bytesSaved"));
+	}
+
+	private static ResourceBlocker blocker(double baselineSampleRate) {
+		SiteAdapterRegistry registry = mock(SiteAdapterRegistry.class);
+		List<SiteAdapter> sites = Arrays.asList(site("shop.test", SPEC), site("other.test", ResourceBlockingSpec.NONE));
+		when(registry.getAll()).thenReturn(sites);
+		return new ResourceBlocker(registry, true, baselineSampleRate);
+	}
+
+	private static SiteAdapter site(String host, ResourceBlockingSpec spec) {
+		SiteAdapter site = mock(SiteAdapter.class);
+		when(site.getHost()).thenReturn(host);
+		when(site.getResourceBlocking()).thenReturn(spec);
+		return site;
+	}
+}
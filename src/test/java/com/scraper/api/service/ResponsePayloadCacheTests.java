@@ -0,0 +1,97 @@
+package com.scraper.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.store.ProductStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponsePayloadCacheTests {
+
+	private final ResponsePayloadCache cache = new ResponsePayloadCache(new ObjectMapper(), DataSize.ofMegabytes(1));
+
+	@Test
+	void serializesOncePerVersion() {
+		AtomicInteger builds = new AtomicInteger();
+
+		ResponsePayloadCache.Payload first = cache.get("products", 1, () -> Collections.singletonList(builds.incrementAndGet()));
+		ResponsePayloadCache.Payload again = cache.get("products", 1, () -> Collections.singletonList(builds.incrementAndGet()));
+		ResponsePayloadCache.Payload next = cache.get("products", 2, () -> Collections.singletonList(builds.incrementAndGet()));
+
+		assertSame(first, again);
+		assertEquals(2, builds.get());
+		assertNotEquals(first.getEtag(false), next.getEtag(false));
+		// too small to be worth compressing
+		assertNull(first.getGzip());
+	}
+
+	@Test
+	void gzipsLargeBodiesAndMatchesEitherRepresentation() throws Exception {
+		String body = String.join(",", Collections.nCopies(500, "milk"));
+
+		ResponsePayloadCache.Payload payload = cache.get("search|milk", 7, () -> body);
+
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload.getGzip()))) {
+			assertArrayEquals(payload.getJson(), in.readAllBytes());
+		}
+		assertTrue(payload.matches(payload.getEtag(false)));
+		assertTrue(payload.matches("\"other\", W/" + payload.getEtag(true)));
+		assertFalse(payload.matches("\"other\""));
+		assertFalse(payload.matches(null));
+	}
+
+	@Test
+	void writeDuringABuildIsServedByTheNextRequest(@TempDir Path directory) throws Exception {
+		ProductStore store = new ProductStore(directory.toString(), 1 << 20, false, 0.5, Long.MAX_VALUE, "", Duration.ofDays(7));
+		store.open();
+		store.putAll(Collections.singletonList(product("milk")));
+
+		// the version is read before the scan, like the product list does, and the eggs land in between
+		long version = store.getCommitted();
+		ResponsePayloadCache.Payload first = cache.get("products", version, () -> {
+			store.putAll(Collections.singletonList(product("eggs")));
+			return names(store);
+		});
+		ResponsePayloadCache.Payload next = cache.get("products", store.getCommitted(), () -> names(store));
+		ResponsePayloadCache.Payload again = cache.get("products", store.getCommitted(), () -> names(store));
+
+		// tagged with the version it may be newer than, so it is built again once and never served for the write
+		assertNotSame(first, next);
+		assertSame(next, again);
+		assertEquals("[\"eggs\",\"milk\"]", new String(next.getJson(), StandardCharsets.UTF_8));
+		assertEquals(store.getSequence(), store.getCommitted());
+		store.close();
+	}
+
+	private static List<String> names(ProductStore store) {
+		return store.getAll().stream().map(ProductData::getName).sorted().collect(Collectors.toList());
+	}
+
+	private static ProductData product(String name) {
+		ProductData product = new ProductData();
+		product.setName(name);
+		product.setPrice("$1.99");
+		product.setUrl("https://www.zehrs.ca/" + name);
+		return product;
+	}
+}
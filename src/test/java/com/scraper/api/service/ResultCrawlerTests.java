@@ -0,0 +1,185 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.PaginationSpec;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.RateLimitSpec;
+import com.scraper.api.model.ReadinessSpec;
+import com.scraper.api.model.ScrapeEngineType;
+import com.scraper.api.model.TileSpec;
+import com.scraper.api.site.SiteAdapter;
+import com.scraper.api.site.ZehrsSiteAdapter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultCrawlerTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void crawlsPagesUntilLimitIsReached() {
+		PagedEngine engine = new PagedEngine(3, 3, 3, 3, 3);
+		List<ProductData> emitted = new CopyOnWriteArrayList<>();
+
+		List<ProductData> products = crawler(engine).crawl(site(), "milk", null, 7, emitted::add);
+
+		assertEquals(7, products.size());
+		assertEquals("page 3 product 1", products.get(6).getName());
+		assertEquals(7, emitted.size());
+		// page 3 alone completes the target, page 4 is never loaded
+		assertFalse(engine.urls.stream().anyMatch(url -> url.endsWith("page=4")));
+	}
+
+	@Test
+	void stopsAtShortPage() {
+		PagedEngine engine = new PagedEngine(3, 1, 3, 3, 3);
+
+		ResultCrawler.Listing listing = crawler(engine).crawlListing(site(), "milk", null, 20, product -> { });
+
+		assertEquals(4, listing.getProducts().size());
+		assertTrue(listing.isComplete());
+		assertFalse(engine.urls.stream().anyMatch(url -> url.endsWith("page=4")));
+	}
+
+	@Test
+	void shortPageCutByItsTimeoutIsNotTheEnd() {
+		PagedEngine engine = new PagedEngine(3, 1, 3, 3, 3);
+		engine.unsettled.add(2);
+
+		ResultCrawler.Listing listing = crawler(engine).crawlListing(site(), "milk", null, 20, product -> { });
+
+		assertEquals(4, listing.getProducts().size());
+		assertFalse(listing.isComplete());
+	}
+
+	@Test
+	void interruptedCrawlIsNotComplete() {
+		PagedEngine engine = new PagedEngine(3, 1, 3, 3, 3);
+		engine.interruptedPage = 2;
+
+		// pages load on the crawling thread, so the interrupt of page 2 lands on it
+		ResultCrawler.Listing listing = crawler(engine, new ExecutorServiceAdapter(new SyncTaskExecutor()))
+				.crawlListing(site(), "milk", null, 20, product -> { });
+
+		assertTrue(Thread.interrupted());
+		assertEquals(4, listing.getProducts().size());
+		assertFalse(listing.isComplete());
+	}
+
+	private ResultCrawler crawler(ScrapeEngine engine) {
+		return crawler(engine, executor);
+	}
+
+	private static ResultCrawler crawler(ScrapeEngine engine, ExecutorService pageExecutor) {
+		ResultCrawler crawler = new ResultCrawler();
+		crawler.setEngines(List.of(engine));
+		ReflectionTestUtils.setField(crawler, "pageExecutor", pageExecutor);
+		return crawler;
+	}
+
+	private static SiteAdapter site() {
+		return new SiteAdapter() {
+			@Override
+			public String getName() {
+				return "test";
+			}
+
+			@Override
+			public String getSearchUrlTemplate() {
+				return "http://shop.test/search?q={keyword}";
+			}
+
+			@Override
+			public ScrapeEngineType getEngine() {
+				return ScrapeEngineType.HTTP;
+			}
+
+			@Override
+			public TileSpec getTileSpec() {
+				return ZehrsSiteAdapter.SEARCH_PRODUCT_TILE;
+			}
+
+			@Override
+			public ReadinessSpec getReadiness() {
+				return ZehrsSiteAdapter.SEARCH_READINESS;
+			}
+
+			@Override
+			public PaginationSpec getPagination() {
+				return PaginationSpec.builder().pageParameter("page").pageSize(3).maxPages(5).build();
+			}
+
+			@Override
+			public RateLimitSpec getRateLimit() {
+				return RateLimitSpec.builder().build();
+			}
+		};
+	}
+
+	/**
+	 * Serves pages holding the given number of products, numbered from 1.
+	 */
+	private static class PagedEngine implements ScrapeEngine {
+		private final int[] pageSizes;
+		private final List<String> urls = new CopyOnWriteArrayList<>();
+		// pages whose readiness wait timed out
+		private final Set<Integer> unsettled = ConcurrentHashMap.newKeySet();
+		// page interrupting the thread scraping it, 0 for none
+		private volatile int interruptedPage;
+
+		private PagedEngine(int... pageSizes) {
+			this.pageSizes = pageSizes;
+		}
+
+		@Override
+		public ScrapeEngineType getType() {
+			return ScrapeEngineType.HTTP;
+		}
+
+		@Override
+		public Page scrapePage(String url, TileSpec spec, ReadinessSpec readiness, int limit, Consumer<ProductData> sink) {
+			List<ProductData> products = scrape(url, spec, readiness, limit, sink);
+			if (pageOf(url) == interruptedPage) Thread.currentThread().interrupt();
+			return new Page(products, !unsettled.contains(pageOf(url)));
+		}
+
+		@Override
+		public List<ProductData> scrape(String url, TileSpec spec, ReadinessSpec readiness, int limit, Consumer<ProductData> sink) {
+			urls.add(url);
+			int page = pageOf(url);
+			List<ProductData> products = new ArrayList<>();
+			for (int i = 1; i <= Math.min(pageSizes[page - 1], limit); i++) {
+				ProductData product = new ProductData();
+				product.setName("page " + page + " product " + i);
+				product.setUrl("http://shop.test/p/" + page + "/" + i);
+				products.add(product);
+				sink.accept(product);
+			}
+			return products;
+		}
+
+		private static int pageOf(String url) {
+			return url.contains("page=") ? Integer.parseInt(url.substring(url.indexOf("page=") + 5)) : 1;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.JobStatus;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ScrapeJob;
+import com.scraper.api.model.SearchResult;
+import com.scraper.api.untils.ProductScraperParameters;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScrapeJobServiceTests {
+
+	private final BlockingProductService productService = new BlockingProductService();
+	private final ScrapeJobService jobs = new ScrapeJobService(productService, 1, 2, Duration.ofMinutes(1));
+
+	@AfterEach
+	void shutdown() {
+		productService.gate.countDown();
+		jobs.shutdown();
+	}
+
+	@Test
+	void runsQueuedJobsByPriority() throws Exception {
+		ScrapeJob first = jobs.submit("first", 0);
+		assertTrue(productService.started.await(5, TimeUnit.SECONDS));
+		ScrapeJob low = jobs.submit("low", 0);
+		ScrapeJob high = jobs.submit("high", 10);
+
+		productService.gate.countDown();
+		awaitFinished(low);
+
+		assertEquals(List.of("first", "high", "low"), productService.keywords);
+		assertEquals(JobStatus.DONE, first.getStatus());
+		assertEquals(JobStatus.DONE, high.getStatus());
+	}
+
+	@Test
+	void rejectsJobsBeyondQueueCapacity() throws Exception {
+		jobs.submit("running", 0);
+		assertTrue(productService.started.await(5, TimeUnit.SECONDS));
+		jobs.submit("queued 1", 0);
+		jobs.submit("queued 2", 0);
+
+		assertThrows(JobQueueFullException.class, () -> jobs.submit("rejected", 0));
+		assertEquals(1, jobs.getRejected());
+	}
+
+	@Test
+	void cancelsQueuedAndRunningJobs() throws Exception {
+		ScrapeJob running = jobs.submit("running", 0);
+		assertTrue(productService.started.await(5, TimeUnit.SECONDS));
+		ScrapeJob queued = jobs.submit("queued", 0);
+
+		jobs.cancel(queued.getId());
+		jobs.cancel(running.getId());
+		awaitIdle();
+
+		assertEquals(JobStatus.CANCELLED, queued.getStatus());
+		assertEquals(JobStatus.CANCELLED, running.getStatus());
+		assertNull(running.getResult());
+		assertEquals(List.of("running"), productService.keywords);
+		assertEquals(0, jobs.getQueued());
+	}
+
+	private static void awaitFinished(ScrapeJob job) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!job.getStatus().isFinished() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(job.getStatus().isFinished());
+	}
+
+	private void awaitIdle() throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (jobs.getRunning() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, jobs.getRunning());
+	}
+
+	/**
+	 * Records the searched keywords and holds every search until the gate opens or the worker is interrupted.
+	 */
+	private static class BlockingProductService implements ProductService {
+		private final CountDownLatch gate = new CountDownLatch(1);
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final List<String> keywords = new CopyOnWriteArrayList<>();
+
+		@Override
+		public SearchResult searchProducts(String keyword, SearchListener listener) {
+			keywords.add(keyword);
+			started.countDown();
+			try {
+				gate.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			SearchResult result = new SearchResult();
+			result.setKeyword(keyword);
+			return result;
+		}
+
+		@Override
+		public SearchResult searchProducts(ProductScraperParameters parameters, SearchListener listener) {
+			return searchProducts(parameters.getKeywords(), listener);
+		}
+
+		@Override
+		public SearchResult searchProducts(String keyword) {
+			return searchProducts(keyword, SearchListener.NONE);
+		}
+
+		@Override
+		public Set<ProductData> getProducts() {
+			return Set.of();
+		}
+
+		@Override
+		public Set<ProductData> getProductsByKeyword(String keyword) {
+			return Set.of();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.scraper.api.service;
+
+import com.scraper.api.model.TraceSpan;
+import com.scraper.api.untils.ScrapeContext;
+import com.scraper.api.untils.ScrapeTrace;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ScrapeMetricsTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final ScrapeMetrics metrics = new ScrapeMetrics(registry);
+	private final ExecutorService executor = ScrapeContext.propagating(Executors.newSingleThreadExecutor());
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void timesPhasesOnOtherThreadsWithTheSiteAndTraceOfTheScrape() throws Exception {
+		ScrapeTrace trace = new ScrapeTrace();
+
+		ScrapeContext.callTraced(trace, () -> metrics.time("search", () -> ScrapeContext.callForSite("zehrs", () -> {
+			try {
+				return executor.submit(() -> metrics.time("page.load", () -> "loaded")).get();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		})));
+		List<TraceSpan> spans = trace.finish();
+
+		Timer page = registry.find(ScrapeMetrics.PHASE_TIMER).tags("phase", "page.load", "site", "zehrs", "outcome", "success").timer();
+		assertNotNull(page);
+		assertEquals(1, page.count());
+		assertNotNull(registry.find(ScrapeMetrics.PHASE_TIMER).tags("phase", "search", "site", "all").timer());
+		assertEquals(2, spans.size());
+		assertEquals("search", spans.get(0).getName());
+		assertNull(spans.get(0).getSite());
+		assertEquals("page.load", spans.get(1).getName());
+		assertEquals("zehrs", spans.get(1).getSite());
+		// the pool thread does not keep the context of the last task
+		assertNull(executor.submit(() -> ScrapeContext.current().getSite()).get());
+	}
+
+	@Test
+	void tagsFailedPhasesWithTheirException() {
+		ScrapeTrace trace = new ScrapeTrace();
+
+		assertThrows(ScrapeException.class, () -> ScrapeContext.callTraced(trace, () -> ScrapeContext.callForSite("zehrs",
+				() -> metrics.time("page.fetch", () -> {
+					throw new ScrapeException("Unexpected HTTP status 503", 503);
+				}))));
+
+		Timer failed = registry.find(ScrapeMetrics.PHASE_TIMER).tags("outcome", "error", "exception", "ScrapeException").timer();
+		assertNotNull(failed);
+		assertEquals(1, failed.count());
+		assertEquals("ScrapeException", trace.finish().get(0).getError());
+	}
+}
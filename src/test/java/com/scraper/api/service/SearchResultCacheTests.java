@@ -0,0 +1,106 @@
+package com.scraper.api.service;
+
+import com.scraper.api.config.SearchCacheProperties;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.SearchCacheKey;
+import com.scraper.api.store.ProductCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchResultCacheTests {
+
+	private static final SearchCacheKey EGGS = new SearchCacheKey("www.zehrs.ca", "eggs");
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void servesNormalizedKeywordFromCache() {
+		SearchResultCache cache = new SearchResultCache(new SearchCacheProperties(), new ProductCodec(), executor);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get(new SearchCacheKey("www.zehrs.ca", "Milk"), () -> products(loads.incrementAndGet()));
+		List<ProductData> cached = cache.get(new SearchCacheKey("www.zehrs.ca", "  milk "), () -> products(loads.incrementAndGet()));
+
+		assertEquals(1, loads.get());
+		assertEquals("product 1", cached.get(0).getName());
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	void servesStaleEntryWhileRefreshing() throws Exception {
+		SearchCacheProperties properties = new SearchCacheProperties();
+		properties.setTtl(Duration.ZERO);
+		properties.setMaxStale(Duration.ofHours(1));
+		SearchResultCache cache = new SearchResultCache(properties, new ProductCodec(), executor);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get(EGGS, () -> products(loads.incrementAndGet()));
+		List<ProductData> stale = cache.get(EGGS, () -> products(loads.incrementAndGet()));
+		assertEquals("product 1", stale.get(0).getName());
+
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.getStaleHits());
+		assertEquals(1, cache.getRefreshes());
+	}
+
+	@Test
+	void dropsTheRefreshWhenTheRefreshThreadsAreBusy() throws Exception {
+		SearchCacheProperties properties = new SearchCacheProperties();
+		properties.setTtl(Duration.ZERO);
+		properties.setMaxStale(Duration.ofHours(1));
+		// one thread and one queued refresh, like a small refresh executor
+		ThreadPoolExecutor refreshes = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+		CountDownLatch release = new CountDownLatch(1);
+		refreshes.execute(() -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		refreshes.execute(() -> { });
+		SearchResultCache cache = new SearchResultCache(properties, new ProductCodec(), refreshes);
+		AtomicInteger loads = new AtomicInteger();
+
+		cache.get(EGGS, () -> products(loads.incrementAndGet()));
+		assertEquals("product 1", cache.get(EGGS, () -> products(loads.incrementAndGet())).get(0).getName());
+		assertEquals(1, cache.getRefreshesDropped());
+
+		// the dropped refresh does not hold the key, the next stale hit refreshes it
+		release.countDown();
+		while (refreshes.getCompletedTaskCount() < 2) Thread.sleep(5);
+		cache.get(EGGS, () -> products(loads.incrementAndGet()));
+		refreshes.shutdown();
+		assertTrue(refreshes.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.getRefreshes());
+	}
+
+	private static List<ProductData> products(int generation) {
+		ProductData product = new ProductData();
+		product.setName("product " + generation);
+		return Collections.singletonList(product);
+	}
+}
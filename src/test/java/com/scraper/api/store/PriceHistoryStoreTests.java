@@ -0,0 +1,114 @@
+package com.scraper.api.store;
+
+import com.scraper.api.model.PriceHistory;
+import com.scraper.api.model.PriceSummary;
+import com.scraper.api.model.ProductData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriceHistoryStoreTests {
+
+	private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+	private static final String MILK = "https://www.zehrs.ca/milk";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void summarizesPriceChangesOverWindow() throws Exception {
+		PriceHistoryStore history = open();
+		record(history, 0, "5.00");
+		record(history, 1, "5.00");
+		record(history, 10, "4.00");
+		record(history, 20, "6.00");
+
+		PriceSummary summary = history.summary(MILK, START.plus(Duration.ofDays(5)), START.plus(Duration.ofDays(25)));
+		assertEquals(2, summary.getPoints());
+		assertEquals(new BigDecimal("4.00"), summary.getMin());
+		assertEquals(new BigDecimal("6.00"), summary.getMax());
+		// 5 days at 5.00, 10 at 4.00, 5 at 6.00
+		assertEquals(new BigDecimal("4.75"), summary.getAverage());
+		assertEquals(new BigDecimal("4.00"), summary.getLastChangeFrom());
+		assertEquals(new BigDecimal("6.00"), summary.getLastChangeTo());
+		assertNull(history.summary("https://www.zehrs.ca/eggs", START, START.plus(Duration.ofDays(1))));
+		history.close();
+	}
+
+	@Test
+	void recoversSeriesFromSnapshotAndLog() throws Exception {
+		PriceHistoryStore history = open();
+		// three points per block, the series spans sealed blocks and the open one
+		for (int day = 0; day < 10; day++) {
+			record(history, day, day % 2 == 0 ? "2.99" : "3.49");
+		}
+		history.checkpoint();
+		record(history, 10, "1.99");
+
+		// the snapshot covers the first ten points, the log the last one
+		PriceHistoryStore reopened = open();
+		PriceHistory all = reopened.history(MILK, Instant.EPOCH, START.plus(Duration.ofDays(30)));
+		assertEquals(11, all.getPoints().size());
+		assertEquals(new BigDecimal("1.99"), all.getPoints().get(10).getPrice());
+
+		PriceHistory window = reopened.history(MILK, START.plus(Duration.ofHours(100)), START.plus(Duration.ofDays(6)));
+		assertEquals(new BigDecimal("2.99"), window.getInitial().getPrice());
+		assertEquals(2, window.getPoints().size());
+		assertTrue(window.getPoints().get(0).getTimestamp().isAfter(window.getFrom()));
+		reopened.close();
+		history.close();
+	}
+
+	@Test
+	void logsThePricesOfTheStoreWrites() throws Exception {
+		ProductStore store = store();
+		PriceHistoryStore history = open(store);
+		ProductData milk = new ProductData();
+		milk.setName("Milk");
+		milk.setUrl(MILK);
+		milk.setPrice("$4.99");
+		store.putAll(List.of(milk));
+		milk.setPrice("$3.99");
+		store.putAll(List.of(milk));
+		history.checkpoint();
+		milk.setPrice("$4.49");
+		store.putAll(List.of(milk));
+		store.close();
+
+		PriceHistoryStore reopened = open();
+		PriceHistory all = reopened.history(MILK, Instant.EPOCH, Instant.now().plus(Duration.ofDays(1)));
+		assertEquals(3, all.getPoints().size());
+		assertEquals(new BigDecimal("4.49"), all.getPoints().get(2).getPrice());
+		reopened.close();
+		history.close();
+	}
+
+	private PriceHistoryStore open() throws Exception {
+		return open(store());
+	}
+
+	private ProductStore store() throws Exception {
+		ProductStore store = new ProductStore(directory.resolve("store").toString(), 1 << 20, false, 0.5, Long.MAX_VALUE, "", Duration.ofDays(7));
+		store.open();
+		return store;
+	}
+
+	private PriceHistoryStore open(ProductStore store) throws Exception {
+		PriceHistoryStore history = new PriceHistoryStore(store, directory.resolve("history").toString(), 3, Long.MAX_VALUE, true);
+		history.open();
+		return history;
+	}
+
+	private static void record(PriceHistoryStore history, int day, String price) throws Exception {
+		history.record(MILK, START.plus(Duration.ofDays(day)).toEpochMilli(), new BigDecimal(price));
+	}
+}
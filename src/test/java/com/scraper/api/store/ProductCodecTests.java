@@ -0,0 +1,55 @@
+package com.scraper.api.store;
+
+import com.scraper.api.model.ProductData;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ProductCodecTests {
+
+	private final ProductCodec codec = new ProductCodec();
+
+	@Test
+	void roundTripsProductsThroughBothForms() {
+		ProductData milk = product("2% Milk 4L", "Neilson", "$5.49", new BigDecimal("5.49"),
+				"https://www.zehrs.ca/2-milk-4l/p/20188873_EA",
+				"https://assets.shop.loblaws.ca/products/20188873/b1/en/front/20188873_front_a06_@2.png");
+		ProductData bare = product("Loose Carrots", null, null, null, "/relative/carrots", null);
+
+		List<ProductData> decoded = codec.decode(codec.encode(Arrays.asList(milk, bare)));
+		ProductData expanded = codec.expand(codec.compact(milk));
+
+		assertEquals(Arrays.asList(milk, bare), decoded);
+		assertEquals(milk, expanded);
+		assertNull(decoded.get(1).getBrand());
+		assertNull(decoded.get(1).getUnitPrice());
+		// brands are shared instances rather than a copy per product
+		assertSame(decoded.get(0).getBrand(), expanded.getBrand());
+	}
+
+	@Test
+	void sharesTheOriginAndLetterOnlySegmentsOfUrls() {
+		String image = "https://assets.shop.loblaws.ca/products/20188873/b1/en/front/20188873_front_a06_@2.png";
+
+		assertEquals("https://assets.shop.loblaws.ca/products/".length(), ProductCodec.prefixEnd(image));
+		assertEquals("https://www.zehrs.ca/".length(), ProductCodec.prefixEnd("https://www.zehrs.ca/2-milk-4l/p/20188873_EA"));
+		assertEquals(0, ProductCodec.prefixEnd("/relative/carrots"));
+	}
+
+	private static ProductData product(String name, String brand, String price, BigDecimal unitPrice, String url, String image) {
+		ProductData product = new ProductData();
+		product.setName(name);
+		product.setBrand(brand == null ? null : new String(brand));
+		product.setPrice(price);
+		product.setUnitPrice(unitPrice);
+		product.setUrl(url);
+		product.setImage(image);
+		return product;
+	}
+}
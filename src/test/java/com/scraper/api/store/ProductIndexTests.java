@@ -0,0 +1,81 @@
+package com.scraper.api.store;
+
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ProductPage;
+import com.scraper.api.model.ProductQuery;
+import com.scraper.api.model.ProductSort;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductIndexTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void matchesEveryTokenAndFilters() throws Exception {
+		ProductStore store = open();
+		store.putAll(Arrays.asList(
+				product("2% Milk 4L", "Neilson", "$5.49"),
+				product("Chocolate Milk", "Neilson", "2 for $7.00"),
+				product("Oat Milk", "Oatly", "$4.99"),
+				product("Milk Chocolate Bar", "Lindt", "99¢")));
+		ProductIndex index = new ProductIndex(store, new ProductCodec());
+		index.load();
+
+		assertEquals(List.of("Chocolate Milk", "Milk Chocolate Bar"), names(index.query(ProductQuery.builder()
+				.keyword("milk chocolate").sort(ProductSort.NAME).build())));
+		assertEquals(List.of("2% Milk 4L", "Chocolate Milk"), names(index.query(ProductQuery.builder()
+				.keyword("MILK").brand("neilson").sort(ProductSort.PRICE_DESC).build())));
+		assertEquals(List.of("Chocolate Milk", "Oat Milk"), names(index.query(ProductQuery.builder()
+				.minPrice(new BigDecimal("1")).maxPrice(new BigDecimal("5")).build())));
+		store.close();
+	}
+
+	@Test
+	void pagesCheapestFirstAndFollowsWrites() throws Exception {
+		ProductStore store = open();
+		ProductIndex index = new ProductIndex(store, new ProductCodec());
+		index.load();
+		for (int i = 1; i <= 30; i++) {
+			store.putAll(Collections.singletonList(product("Bread " + i, "Dempster's", "$" + i)));
+		}
+		store.putAll(Collections.singletonList(product("Bread 30", "Dempster's", "$0.50")));
+		store.delete("https://www.zehrs.ca/Bread 1");
+
+		ProductPage page = index.query(ProductQuery.builder().keyword("bread").page(1).size(3).build());
+		assertEquals(29, page.getTotal());
+		assertEquals(List.of("Bread 4", "Bread 5", "Bread 6"), names(page));
+		assertEquals(List.of("Bread 30", "Bread 2"), names(index.query(ProductQuery.builder().size(2).build())));
+		store.close();
+	}
+
+	private ProductStore open() throws Exception {
+		ProductStore store = new ProductStore(directory.toString(), 1 << 20, false, 0.5, Long.MAX_VALUE, "", Duration.ofDays(7));
+		store.open();
+		return store;
+	}
+
+	private static List<String> names(ProductPage page) {
+		return page.getProducts().stream().map(ProductData::getName).collect(Collectors.toList());
+	}
+
+	private static ProductData product(String name, String brand, String price) {
+		ProductData product = new ProductData();
+		product.setName(name);
+		product.setBrand(brand);
+		product.setPrice(price);
+		product.setUrl("https://www.zehrs.ca/" + name);
+		return product;
+	}
+}
@@ -0,0 +1,137 @@
+package com.scraper.api.store;
+
+import com.scraper.api.model.ProductChange;
+import com.scraper.api.model.ProductData;
+import com.scraper.api.model.ProductDelta;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductStoreTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recoversIndexAfterReopen() throws Exception {
+		ProductStore store = open(1 << 20);
+		store.putAll(Arrays.asList(product("milk", "$5.49"), product("eggs", "$3.99")));
+		store.putAll(Collections.singletonList(product("milk", "$4.99")));
+		store.delete("https://www.zehrs.ca/eggs");
+		store.close();
+
+		ProductStore reopened = open(1 << 20);
+		assertEquals(1, reopened.size());
+		assertEquals("$4.99", reopened.get("https://www.zehrs.ca/milk").getPrice());
+		assertNull(reopened.get("https://www.zehrs.ca/eggs"));
+		assertEquals(4, reopened.getSequence());
+		reopened.close();
+	}
+
+	@Test
+	void dropsTornRecordAtTheEnd() throws Exception {
+		ProductStore store = open(1 << 20);
+		store.putAll(Collections.singletonList(product("milk", "$5.49")));
+		store.close();
+
+		Path segment = Files.list(directory).findFirst().orElseThrow();
+		long intact = Files.size(segment);
+		Files.write(segment, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+		ProductStore reopened = open(1 << 20);
+		assertEquals(1, reopened.size());
+		assertEquals(intact, Files.size(segment));
+		reopened.putAll(Collections.singletonList(product("bread", "$2.99")));
+		assertEquals("$2.99", reopened.get("https://www.zehrs.ca/bread").getPrice());
+		reopened.close();
+	}
+
+	@Test
+	void compactionKeepsOnlyLiveRecords() throws Exception {
+		ProductStore store = open(256);
+		for (int i = 0; i < 20; i++) {
+			store.putAll(Arrays.asList(product("milk", "$" + i), product("eggs", "$" + i)));
+		}
+		long before = store.getTotalBytes();
+		store.compact();
+
+		assertTrue(store.getTotalBytes() < before);
+		assertEquals(store.getLiveBytes(), store.getTotalBytes());
+		assertEquals("$19", store.get("https://www.zehrs.ca/milk").getPrice());
+		store.close();
+
+		ProductStore reopened = open(256);
+		assertEquals(2, reopened.size());
+		assertEquals("$19", reopened.get("https://www.zehrs.ca/eggs").getPrice());
+		reopened.close();
+	}
+
+	@Test
+	void writesOnlyChangedProductsAndTracksDeletes() throws Exception {
+		ProductStore store = open(1 << 20);
+		assertEquals(2, store.putAll(Arrays.asList(product("milk", "$5.49"), product("eggs", "$3.99"))));
+		long version = store.getSequence();
+
+		assertEquals(1, store.putAll(Arrays.asList(product("milk", "$4.99"), product("eggs", "$3.99"))));
+		store.delete("https://www.zehrs.ca/eggs");
+		assertEquals(1, store.getUnchangedCount());
+
+		ProductDelta delta = store.changesSince(version, 10);
+		assertEquals(2, delta.getChanges().size());
+		assertEquals(ProductChange.PUT, delta.getChanges().get(0).getType());
+		assertEquals("$4.99", delta.getChanges().get(0).getProduct().getPrice());
+		assertEquals(ProductChange.DELETE, delta.getChanges().get(1).getType());
+		assertEquals(4, delta.getVersion());
+		store.close();
+
+		// the tombstones survive a reopen and a compaction
+		ProductStore reopened = open(1 << 20);
+		reopened.compact();
+		ProductDelta all = reopened.changesSince(0, 1);
+		assertTrue(all.isHasMore());
+		assertEquals("https://www.zehrs.ca/milk", all.getChanges().get(0).getKey());
+		assertEquals(List.of("https://www.zehrs.ca/eggs"), reopened.changesSince(all.getVersion(), 10).getChanges().stream()
+				.map(ProductChange::getKey).collect(Collectors.toList()));
+		reopened.close();
+	}
+
+	@Test
+	void parsesTheUnitPriceOnACopy() throws Exception {
+		ProductStore store = open(1 << 20);
+		ProductData milk = product("milk", "$5.49");
+
+		store.putAll(Collections.singletonList(milk));
+
+		// the caller's product may be streamed to a client meanwhile, it is left alone
+		assertNull(milk.getUnitPrice());
+		assertEquals(new BigDecimal("5.49"), store.get("https://www.zehrs.ca/milk").getUnitPrice());
+		store.close();
+	}
+
+	private ProductStore open(long segmentBytes) throws Exception {
+		ProductStore store = new ProductStore(directory.toString(), segmentBytes, false, 0.5, Long.MAX_VALUE, "", Duration.ofDays(7));
+		store.open();
+		return store;
+	}
+
+	private static ProductData product(String name, String price) {
+		ProductData product = new ProductData();
+		product.setName(name);
+		product.setPrice(price);
+		product.setUrl("https://www.zehrs.ca/" + name);
+		return product;
+	}
+}
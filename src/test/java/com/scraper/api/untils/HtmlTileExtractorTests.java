@@ -0,0 +1,82 @@
+package com.scraper.api.untils;
+
+import com.scraper.api.site.ZehrsSiteAdapter;
+import com.scraper.api.model.ProductData;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HtmlTileExtractorTests {
+
+	private static final String PAGE = "<html><body>"
+			+ "<div class=\"product-tile\">"
+			+ "<a class=\"product-tile__details__info__name__link\" href=\"/milk/p/1\">"
+			+ "<span class=\"product-name__item--brand\">Neilson</span>"
+			+ "<span class=\"product-name__item--name\">2% Milk</span></a>"
+			+ "<img class=\"responsive-image--product-tile-image\" src=\"https://assets.example.com/milk.png\">"
+			+ "<span class=\"selling-price-list__item__price--now-price__value\">$5.49</span>"
+			+ "</div>"
+			+ "<div class=\"product-tile\">"
+			+ "<a class=\"product-tile__details__info__name__link\" href=\"/eggs/p/2\">"
+			+ "<span class=\"product-name__item--name\">Large Eggs</span></a>"
+			+ "<span class=\"selling-price-list__item__price--sale__value\">$3.99</span>"
+			+ "</div>"
+			+ "<div class=\"product-tile\"><span class=\"product-name__item--name\">Butter</span></div>"
+			+ "</body></html>";
+
+	@Test
+	void extractsFieldsAndFallbackSelectors() throws Exception {
+		List<ProductData> products = HtmlTileExtractor.extract(new StringReader(PAGE),
+				"https://www.zehrs.ca/search?search-bar=milk", ZehrsSiteAdapter.SEARCH_PRODUCT_TILE, 10);
+
+		assertEquals(3, products.size());
+		ProductData milk = products.get(0);
+		assertEquals("2% Milk", milk.getName());
+		assertEquals("Neilson", milk.getBrand());
+		assertEquals("$5.49", milk.getPrice());
+		assertEquals("https://assets.example.com/milk.png", milk.getImage());
+		assertEquals("https://www.zehrs.ca/milk/p/1", milk.getUrl());
+
+		ProductData eggs = products.get(1);
+		assertEquals("$3.99", eggs.getPrice());
+		assertNull(eggs.getBrand());
+	}
+
+	@Test
+	void countsFieldsFoundByFallbackSelectors() throws Exception {
+		SelectorFallbacks fallbacks = new SelectorFallbacks();
+
+		HtmlTileExtractor.extract(new StringReader(PAGE), "https://www.zehrs.ca/", ZehrsSiteAdapter.SEARCH_PRODUCT_TILE, 10,
+				product -> { }, fallbacks);
+
+		// only the eggs are priced by the sale selector
+		assertEquals(Map.of("price", 1), fallbacks.getCounts());
+	}
+
+	@Test
+	void stopsAtLimit() throws Exception {
+		List<ProductData> products = HtmlTileExtractor.extract(new StringReader(PAGE),
+				"https://www.zehrs.ca/", ZehrsSiteAdapter.SEARCH_PRODUCT_TILE, 2);
+
+		assertEquals(2, products.size());
+	}
+
+	@Test
+	void readsUnbufferedResponseStreams() throws Exception {
+		// the HTTP engine hands over the response body as is, a reader without mark()
+		InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(PAGE.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+
+		List<ProductData> products = HtmlTileExtractor.extract(reader, "https://www.zehrs.ca/", ZehrsSiteAdapter.SEARCH_PRODUCT_TILE, 10);
+
+		assertEquals(3, products.size());
+		assertEquals("2% Milk", products.get(0).getName());
+	}
+}
@@ -0,0 +1,38 @@
+package com.scraper.api.untils;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PriceParserTests {
+
+	@Test
+	void parsesDisplayedPrices() {
+		assertEquals(new BigDecimal("4.99"), PriceParser.unitPrice("$4.99"));
+		assertEquals(new BigDecimal("4.99"), PriceParser.unitPrice("sale $4.99 ea"));
+		assertEquals(new BigDecimal("1.29"), PriceParser.unitPrice("$1.29/100g"));
+		assertEquals(new BigDecimal("1299.00"), PriceParser.unitPrice("$1,299"));
+		assertEquals(new BigDecimal("0.99"), PriceParser.unitPrice("99¢"));
+		assertEquals(new BigDecimal("3.49"), PriceParser.unitPrice("$3.49 - $4.99"));
+		assertEquals(new BigDecimal("3.49"), PriceParser.unitPrice("$4.99 - $3.49"));
+		assertEquals(new BigDecimal("3.49"), PriceParser.unitPrice("$4.99 to $3.49"));
+	}
+
+	@Test
+	void dividesMultiBuyOffers() {
+		assertEquals(new BigDecimal("3.50"), PriceParser.unitPrice("2 for $7.00"));
+		assertEquals(new BigDecimal("1.67"), PriceParser.unitPrice("3/$5"));
+	}
+
+	@Test
+	void ignoresMissingPrices() {
+		assertNull(PriceParser.unitPrice(null));
+		assertNull(PriceParser.unitPrice("Out of stock"));
+		// numbers without a currency marker are counts, not prices
+		assertNull(PriceParser.unitPrice("Pack of 12"));
+		assertNull(PriceParser.unitPrice("Limit 4"));
+	}
+}
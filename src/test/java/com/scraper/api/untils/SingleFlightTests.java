@@ -0,0 +1,131 @@
+package com.scraper.api.untils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTests {
+
+	private final ExecutorService flightExecutor = Executors.newCachedThreadPool();
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutdown() {
+		flightExecutor.shutdownNow();
+		callers.shutdownNow();
+	}
+
+	@Test
+	void concurrentCallsShareOneExecution() throws Exception {
+		SingleFlight<String, String> flights = new SingleFlight<>(flightExecutor);
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Future<String>> results = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			results.add(callers.submit(() -> flights.execute("milk", () -> {
+				executions.incrementAndGet();
+				await(release);
+				return "scraped";
+			}, Duration.ofSeconds(5))));
+		}
+		while (flights.getCoalesced() + flights.getExecutions() < 10) Thread.sleep(5);
+		release.countDown();
+
+		for (Future<String> result : results) {
+			assertEquals("scraped", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, executions.get());
+		assertEquals(9, flights.getCoalesced());
+	}
+
+	@Test
+	void callerTimeoutDoesNotCancelSharedWork() throws Exception {
+		SingleFlight<String, String> flights = new SingleFlight<>(flightExecutor);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> patient = callers.submit(() -> flights.execute("eggs", () -> {
+			await(release);
+			return "scraped";
+		}, Duration.ofSeconds(5)));
+		while (flights.getExecutions() == 0) Thread.sleep(5);
+
+		assertThrows(TimeoutException.class, () -> flights.execute("eggs", () -> "other", Duration.ofMillis(20)));
+		release.countDown();
+
+		assertEquals("scraped", patient.get(5, TimeUnit.SECONDS));
+		assertEquals(0, flights.getAbandoned());
+	}
+
+	@Test
+	void lastCallerLeavingCancelsWork() throws Exception {
+		SingleFlight<String, String> flights = new SingleFlight<>(flightExecutor);
+		CountDownLatch interrupted = new CountDownLatch(1);
+
+		assertThrows(TimeoutException.class, () -> flights.execute("bread", () -> {
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return "never";
+		}, Duration.ofMillis(20)));
+
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		assertEquals(1, flights.getAbandoned());
+		assertEquals(0, flights.getInFlight());
+	}
+
+	@Test
+	void flightAbandonedBeforeItStartsNeverRuns() throws Exception {
+		ExecutorService busy = Executors.newSingleThreadExecutor();
+		CountDownLatch release = new CountDownLatch(1);
+		busy.execute(() -> await(release));
+		SingleFlight<String, String> flights = new SingleFlight<>(busy);
+		AtomicInteger executions = new AtomicInteger();
+
+		// still queued behind the busy task when its only caller gives up
+		assertThrows(TimeoutException.class, () -> flights.execute("cheese", () -> {
+			executions.incrementAndGet();
+			return "never";
+		}, Duration.ofMillis(20)));
+		release.countDown();
+		busy.shutdown();
+
+		assertTrue(busy.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(0, executions.get());
+		assertEquals(0, flights.getInFlight());
+	}
+
+	@Test
+	void rejectedFlightFailsItsCallers() {
+		flightExecutor.shutdown();
+		SingleFlight<String, String> flights = new SingleFlight<>(flightExecutor);
+
+		assertThrows(RejectedExecutionException.class, () -> flights.execute("tea", () -> "never", Duration.ofSeconds(5)));
+		assertEquals(0, flights.getInFlight());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}